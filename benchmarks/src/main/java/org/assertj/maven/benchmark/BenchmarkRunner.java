@@ -0,0 +1,60 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * Copyright 2012-2017 the original author or authors.
+ */
+package org.assertj.maven.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks selected by the usual JMH command line options, always with the GC profiler to measure the
+ * allocation rate next to the score, and publishes the results in {@value #RESULT_FILE} (JSON format) unless
+ * another result file is given with {@code -rff}.
+ * <p>
+ * The {@value #SCALE_PROFILE} option runs the {@link ScaleProfile} parameter sets of {@link GenerationBenchmark}
+ * instead of the selected benchmarks.
+ */
+public class BenchmarkRunner {
+
+  static final String RESULT_FILE = "jmh-result.json";
+  static final String SCALE_PROFILE = "-scale";
+
+  public static void main(String[] args) throws Exception {
+    List<String> arguments = new ArrayList<>(Arrays.asList(args));
+    boolean scaleProfile = arguments.remove(SCALE_PROFILE);
+    args = arguments.toArray(new String[0]);
+    CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+    if (commandLineOptions.shouldHelp() || commandLineOptions.shouldList()
+        || commandLineOptions.shouldListWithParams() || commandLineOptions.shouldListProfilers()
+        || commandLineOptions.shouldListResultFormats()) {
+      // nothing to run
+      Main.main(args);
+      return;
+    }
+    OptionsBuilder options = new OptionsBuilder();
+    options.parent(commandLineOptions).addProfiler(GCProfiler.class);
+    if (!commandLineOptions.getResultFormat().hasValue()) options.resultFormat(ResultFormatType.JSON);
+    if (!commandLineOptions.getResult().hasValue()) options.result(RESULT_FILE);
+    Options runOptions = options.build();
+    if (scaleProfile) ScaleProfile.run(runOptions);
+    else new Runner(runOptions).run();
+  }
+}
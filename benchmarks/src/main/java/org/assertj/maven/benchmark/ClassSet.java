@@ -0,0 +1,129 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * Copyright 2012-2017 the original author or authors.
+ */
+package org.assertj.maven.benchmark;
+
+import static com.google.common.base.Charsets.UTF_8;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * A synthesized set of compiled classes to generate assertions for.
+ * <p>
+ * Classes are chained in hierarchies of {@code depth} classes (each class but the root extends the previous one) and
+ * each class declares {@code getters} getters cycling over the property types having a specific assertion template
+ * (object, boolean, whole and real numbers, char, arrays and iterables).
+ * <p>
+ * Compiling tens of thousands of classes takes a while, the compiled classes are kept in the temporary directory and
+ * reused by the next benchmark runs (and forks) with the same parameters.
+ */
+class ClassSet {
+
+  static final String PACKAGE = "org.assertj.benchmark.model";
+  // javac is given the sources by batches to keep its memory bounded with large class sets
+  private static final int COMPILATION_BATCH_SIZE = 500;
+  private static final String COMPLETE_MARKER = ".complete";
+  private static final String[] PROPERTY_TYPES = { "String", "int", "boolean", "java.util.List<String>", "double",
+      "Integer", "char", "String[]", "Long", "Boolean" };
+
+  private final File classesDirectory;
+
+  private ClassSet(File classesDirectory) {
+    this.classesDirectory = classesDirectory;
+  }
+
+  static ClassSet of(int classCount, int depth, int getters) throws IOException {
+    File directory = new File(System.getProperty("java.io.tmpdir"),
+                              "assertj-generator-benchmark/classes-" + classCount + "-" + depth + "-" + getters);
+    File classesDirectory = new File(directory, "classes");
+    if (!new File(directory, COMPLETE_MARKER).exists()) {
+      FileUtils.deleteQuietly(directory);
+      compile(classCount, depth, getters, new File(directory, "src"), classesDirectory);
+      FileUtils.deleteQuietly(new File(directory, "src"));
+      Files.createFile(new File(directory, COMPLETE_MARKER).toPath());
+    }
+    return new ClassSet(classesDirectory);
+  }
+
+  URLClassLoader newClassLoader() throws IOException {
+    return new URLClassLoader(new URL[] { classesDirectory.toURI().toURL() }, ClassSet.class.getClassLoader());
+  }
+
+  private static void compile(int classCount, int depth, int getters, File sourceDirectory, File classesDirectory)
+      throws IOException {
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    if (compiler == null) throw new IllegalStateException("The benchmarks must be run with a JDK");
+    File packageDirectory = new File(sourceDirectory, PACKAGE.replace('.', File.separatorChar));
+    Files.createDirectories(packageDirectory.toPath());
+    Files.createDirectories(classesDirectory.toPath());
+    List<String> sourceFiles = new ArrayList<>();
+    for (int i = 0; i < classCount; i++) {
+      File sourceFile = new File(packageDirectory, "Type" + i + ".java");
+      Files.write(sourceFile.toPath(), sourceOf(i, depth, getters).getBytes(UTF_8));
+      sourceFiles.add(sourceFile.getPath());
+      if (sourceFiles.size() == COMPILATION_BATCH_SIZE || i == classCount - 1) {
+        // super classes of the batch have been compiled by the previous batches
+        List<String> arguments = new ArrayList<>();
+        arguments.add("-nowarn");
+        arguments.add("-cp");
+        arguments.add(classesDirectory.getPath());
+        arguments.add("-d");
+        arguments.add(classesDirectory.getPath());
+        arguments.addAll(sourceFiles);
+        if (compiler.run(null, null, null, arguments.toArray(new String[0])) != 0) {
+          throw new IllegalStateException("Failed to compile the benchmark classes");
+        }
+        sourceFiles.clear();
+      }
+    }
+  }
+
+  private static String sourceOf(int classIndex, int depth, int getters) {
+    StringBuilder source = new StringBuilder();
+    source.append("package ").append(PACKAGE).append(";\n");
+    source.append("public class Type").append(classIndex);
+    if (classIndex % depth != 0) source.append(" extends Type").append(classIndex - 1);
+    source.append(" {\n");
+    for (int i = 0; i < getters; i++) {
+      String type = PROPERTY_TYPES[i % PROPERTY_TYPES.length];
+      String prefix = type.equals("boolean") ? "is" : "get";
+      source.append("  public ").append(type).append(' ').append(prefix).append("Property").append(classIndex)
+            .append('_').append(i).append("() { return ").append(defaultValueOf(type)).append("; }\n");
+    }
+    return source.append("}\n").toString();
+  }
+
+  private static String defaultValueOf(String type) {
+    switch (type) {
+    case "int":
+    case "double":
+      return "0";
+    case "boolean":
+      return "false";
+    case "char":
+      return "'a'";
+    default:
+      return "null";
+    }
+  }
+}
@@ -0,0 +1,104 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * Copyright 2012-2017 the original author or authors.
+ */
+package org.assertj.maven.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.assertj.maven.NoLog;
+import org.assertj.maven.generator.AssertionsGenerator;
+import org.assertj.maven.generator.AssertionsGeneratorReport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link AssertionsGenerator#generateAssertionsFor} on a synthesized {@link ClassSet}, in flat and
+ * hierarchical modes.
+ * <p>
+ * Each invocation generates the assertions in a new empty directory, as a clean build does: reusing the directory would
+ * only measure the comparison of unchanged files. A single invocation takes seconds, so each one is measured on its
+ * own.
+ * <p>
+ * The defaults are kept small for a quick run, larger class sets are selected with JMH parameters, for example
+ * {@code -p classCount=1000,10000,100000 -p getters=10,500 -p depth=1,20}, or with the {@link ScaleProfile scale
+ * profile}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GenerationBenchmark {
+
+  @Param("1000")
+  public int classCount;
+
+  @Param("5")
+  public int depth;
+
+  @Param("10")
+  public int getters;
+
+  @Param({ "false", "true" })
+  public boolean hierarchical;
+
+  private URLClassLoader classLoader;
+  private File targetDirectory;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    classLoader = ClassSet.of(classCount, depth, getters).newClassLoader();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    classLoader.close();
+  }
+
+  @Setup(Level.Iteration)
+  public void createTargetDirectory() throws IOException {
+    targetDirectory = Files.createTempDirectory("assertj-generator-benchmark-assertions").toFile();
+  }
+
+  @TearDown(Level.Iteration)
+  public void deleteTargetDirectory() {
+    FileUtils.deleteQuietly(targetDirectory);
+  }
+
+  @Benchmark
+  public AssertionsGeneratorReport generateAssertions() throws Exception {
+    AssertionsGenerator generator = new AssertionsGenerator(classLoader);
+    generator.setLog(new NoLog());
+    AssertionsGeneratorReport report = generator.generateAssertionsFor(new String[] { ClassSet.PACKAGE },
+                                                                       new String[0], targetDirectory.getPath(), null,
+                                                                       hierarchical, null, false);
+    if (report.getReportedException() != null) throw report.getReportedException();
+    return report;
+  }
+}
@@ -0,0 +1,88 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * Copyright 2012-2017 the original author or authors.
+ */
+package org.assertj.maven.benchmark;
+
+import static org.assertj.assertions.generator.AssertionsEntryPointType.STANDARD;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.io.CharStreams;
+
+import org.assertj.maven.generator.AssertionsGeneratorReport;
+import org.assertj.maven.generator.GenerationPhase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link AssertionsGeneratorReport#getReportContent()} and its streamed counterpart
+ * {@link AssertionsGeneratorReport#writeReportContent(Writer)} for a report of {@code classCount} generated classes, a
+ * tenth of them excluded from the generation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ReportBenchmark {
+
+  @Param({ "1000", "10000", "100000" })
+  public int classCount;
+
+  private AssertionsGeneratorReport report;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    File targetDirectory = new File(System.getProperty("java.io.tmpdir"), "assertj-generator-benchmark/assertions");
+    File packageDirectory = new File(targetDirectory, ClassSet.PACKAGE.replace('.', File.separatorChar));
+    report = new AssertionsGeneratorReport();
+    report.setDirectoryPathWhereAssertionFilesAreGenerated(targetDirectory.getPath());
+    report.setInputPackages(new String[] { ClassSet.PACKAGE });
+    report.setFoundClassesCount(classCount);
+    List<String> excludedClassNames = new ArrayList<>();
+    for (int i = 0; i < classCount; i++) {
+      if (i % 10 == 0) excludedClassNames.add(ClassSet.PACKAGE + ".Type" + i);
+      else report.addGeneratedAssertionFile(new File(packageDirectory, "Type" + i + "Assert.java"));
+    }
+    report.setExcludedClassNamesFromAssertionGeneration(excludedClassNames);
+    report.reportEntryPointGeneration(STANDARD, new File(packageDirectory, "Assertions.java"));
+    for (GenerationPhase phase : GenerationPhase.values()) {
+      report.reportPhaseTime(phase, TimeUnit.MILLISECONDS.toNanos(100), TimeUnit.MILLISECONDS.toNanos(90));
+    }
+  }
+
+  @Benchmark
+  public String getReportContent() {
+    return report.getReportContent();
+  }
+
+  @Benchmark
+  public void writeReportContent() throws IOException {
+    report.writeReportContent(CharStreams.nullWriter());
+  }
+}
@@ -0,0 +1,74 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * Copyright 2012-2017 the original author or authors.
+ */
+package org.assertj.maven.benchmark;
+
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * The parameter sets of {@link GenerationBenchmark} measuring how the generation scales, run by {@link BenchmarkRunner}
+ * with the {@value BenchmarkRunner#SCALE_PROFILE} option.
+ * <p>
+ * Each sweep varies one dimension of the synthesized class set, the others keep their default value unless given with
+ * {@code -p}:
+ * <ul>
+ * <li>{@code classCount}: 1k, 10k, 50k and 100k classes, in flat and hierarchical modes</li>
+ * <li>{@code getters}: 10, 100 and 500 getters per class, in flat and hierarchical modes</li>
+ * <li>{@code depth}: hierarchies of 1, 5, 20 and 50 classes on 10k classes, in hierarchical mode</li>
+ * </ul>
+ * The cartesian product of these values would take days to compile and run, hence the sweeps. The results of each
+ * sweep are written next to the result file, suffixed by the sweep name (e.g. {@code jmh-result-classCount.json}).
+ */
+class ScaleProfile {
+
+  // sweep name followed by the parameters of the sweep, each one being a name followed by its values
+  private static final String[][][] SWEEPS = {
+      { { "classCount" }, { "classCount", "1000", "10000", "50000", "100000" }, { "hierarchical", "false", "true" } },
+      { { "getters" }, { "getters", "10", "100", "500" }, { "hierarchical", "false", "true" } },
+      { { "depth" }, { "classCount", "10000" }, { "depth", "1", "5", "20", "50" }, { "hierarchical", "true" } } };
+
+  private ScaleProfile() {}
+
+  /**
+   * Runs the sweeps with the given options, which give the JMH settings (iterations, JVM arguments, profilers, result
+   * file...) and the parameters not varied by a sweep, but not the benchmarks.
+   */
+  static void run(Options options) throws RunnerException {
+    if (!options.getIncludes().isEmpty()) {
+      throw new IllegalArgumentException("The scale profile only runs " + GenerationBenchmark.class.getSimpleName()
+                                         + ", no benchmark can be selected");
+    }
+    for (String[][] sweep : SWEEPS) {
+      ChainedOptionsBuilder sweepOptions = new OptionsBuilder().parent(options)
+                                                               .include(GenerationBenchmark.class.getSimpleName())
+                                                               .result(resultFileOf(options, sweep[0][0]));
+      for (int i = 1; i < sweep.length; i++) {
+        String[] param = sweep[i];
+        String[] values = new String[param.length - 1];
+        System.arraycopy(param, 1, values, 0, values.length);
+        sweepOptions.param(param[0], values);
+      }
+      new Runner(sweepOptions.build()).run();
+    }
+  }
+
+  private static String resultFileOf(Options options, String sweepName) {
+    String resultFile = options.getResult().orElse(BenchmarkRunner.RESULT_FILE);
+    int extensionIndex = resultFile.lastIndexOf('.');
+    if (extensionIndex <= resultFile.lastIndexOf('/')) return resultFile + "-" + sweepName;
+    return resultFile.substring(0, extensionIndex) + "-" + sweepName + resultFile.substring(extensionIndex);
+  }
+}
@@ -0,0 +1,108 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * Copyright 2012-2017 the original author or authors.
+ */
+package org.assertj.maven.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.assertj.assertions.generator.Template;
+import org.assertj.maven.Templates;
+import org.assertj.maven.generator.AssertionsGeneratorReport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link Templates#getTemplates(AssertionsGeneratorReport)} without user templates and with all the
+ * templates overridden by the user (copies of the generator default templates).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TemplatesBenchmark {
+
+  @Param({ "false", "true" })
+  public boolean userTemplates;
+
+  private File templatesDirectory;
+  private Templates templates;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    templatesDirectory = Files.createTempDirectory("assertj-generator-benchmark-templates").toFile();
+    templates = new Templates();
+    templates.templatesDirectory = templatesDirectory.getPath();
+    if (!userTemplates) return;
+    // @format:off
+    templates.assertionClass = userTemplate("custom_assertion_class_template.txt");
+    templates.hierarchicalAssertionConcreteClass = userTemplate("custom_hierarchical_assertion_class_template.txt");
+    templates.hierarchicalAssertionAbstractClass = userTemplate("custom_abstract_assertion_class_template.txt");
+    templates.objectAssertion = userTemplate("has_assertion_template.txt");
+    templates.booleanAssertion = userTemplate("is_assertion_template.txt");
+    templates.booleanWrapperAssertion = userTemplate("is_wrapper_assertion_template.txt");
+    templates.arrayAssertion = userTemplate("has_elements_assertion_template_for_array.txt");
+    templates.iterableAssertion = userTemplate("has_elements_assertion_template_for_iterable.txt");
+    templates.charAssertion = userTemplate("has_assertion_template_for_char.txt");
+    templates.characterAssertion = userTemplate("has_assertion_template_for_character.txt");
+    templates.realNumberAssertion = userTemplate("has_assertion_template_for_real_number.txt");
+    templates.realNumberWrapperAssertion = userTemplate("has_assertion_template_for_real_number_wrapper.txt");
+    templates.wholeNumberAssertion = userTemplate("has_assertion_template_for_whole_number.txt");
+    templates.wholeNumberWrapperAssertion = userTemplate("has_assertion_template_for_whole_number_wrapper.txt");
+    templates.assertionsEntryPointClass = userTemplate("standard_assertions_entry_point_class_template.txt");
+    templates.assertionEntryPointMethod = userTemplate("standard_assertion_entry_point_method_template.txt");
+    templates.softEntryPointAssertionClass = userTemplate("soft_assertions_entry_point_class_template.txt");
+    templates.junitSoftEntryPointAssertionClass = userTemplate("junit_soft_assertions_entry_point_class_template.txt");
+    templates.softEntryPointAssertionMethod = userTemplate("soft_assertion_entry_point_method_template.txt");
+    templates.bddEntryPointAssertionClass = userTemplate("bdd_assertions_entry_point_class_template.txt");
+    templates.bddEntryPointAssertionMethod = userTemplate("bdd_assertion_entry_point_method_template.txt");
+    // @format:on
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    FileUtils.deleteQuietly(templatesDirectory);
+  }
+
+  @Benchmark
+  public List<Template> getTemplates() {
+    return templates.getTemplates(new AssertionsGeneratorReport());
+  }
+
+  /**
+   * Copies the given default template of the generator in the user templates directory.
+   */
+  private String userTemplate(String templateName) throws IOException {
+    try (InputStream template = Template.class.getResourceAsStream("/templates/" + templateName)) {
+      FileUtils.copyInputStreamToFile(template, new File(templatesDirectory, templateName));
+    }
+    return templateName;
+  }
+}
@@ -0,0 +1,4 @@
+package org.assertj.maven.benchmark.generated;
+public class GenerationBenchmark_jmhType extends GenerationBenchmark_jmhType_B3 {
+}
+
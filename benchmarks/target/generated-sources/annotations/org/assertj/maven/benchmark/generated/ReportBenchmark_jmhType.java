@@ -0,0 +1,4 @@
+package org.assertj.maven.benchmark.generated;
+public class ReportBenchmark_jmhType extends ReportBenchmark_jmhType_B3 {
+}
+
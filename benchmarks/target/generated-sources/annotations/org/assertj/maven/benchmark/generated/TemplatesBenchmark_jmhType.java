@@ -0,0 +1,4 @@
+package org.assertj.maven.benchmark.generated;
+public class TemplatesBenchmark_jmhType extends TemplatesBenchmark_jmhType_B3 {
+}
+
@@ -13,25 +13,38 @@
 package org.assertj.maven;
 
 import static com.google.common.base.Charsets.UTF_8;
+import static java.lang.Float.parseFloat;
+import static java.lang.Integer.parseInt;
+import static java.lang.Math.max;
 import static java.lang.String.format;
-import static org.apache.commons.io.FileUtils.write;
+import static java.util.Arrays.asList;
+import static org.apache.commons.io.FileUtils.openOutputStream;
 import static org.apache.commons.lang3.ArrayUtils.isEmpty;
+import static org.apache.commons.lang3.StringUtils.endsWithIgnoreCase;
 import static org.apache.commons.lang3.StringUtils.equalsIgnoreCase;
 import static org.apache.commons.lang3.StringUtils.isEmpty;
 import static org.apache.maven.plugins.annotations.LifecyclePhase.GENERATE_TEST_SOURCES;
 import static org.apache.maven.plugins.annotations.ResolutionScope.TEST;
 import static org.assertj.assertions.generator.AssertionsEntryPointType.*;
+import static org.assertj.maven.generator.GenerationPhase.CLASS_LOADER_BUILD;
 
+import java.io.BufferedWriter;
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.MalformedURLException;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.maven.artifact.DependencyResolutionRequiredException;
 import org.apache.maven.plugin.AbstractMojo;
@@ -41,15 +54,25 @@ import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
+import org.assertj.assertions.generator.BaseAssertionGenerator;
 import org.assertj.core.util.VisibleForTesting;
+import org.assertj.maven.GenerationWorker.WorkerUnavailableException;
 import org.assertj.maven.generator.AssertionsGenerator;
 import org.assertj.maven.generator.AssertionsGeneratorReport;
+import org.assertj.maven.generator.JsonReportWriter;
+import org.assertj.maven.generator.OpenMetricsReportWriter;
+import org.assertj.maven.generator.PhaseTimer;
 import org.codehaus.plexus.util.FileUtils;
 
+import com.google.common.hash.Hashing;
+
 /**
  * Generates custom AssertJ assertions (*Assert) for all given classes and classes of given packages.
+ * <p>
+ * The mojo is thread safe: parameters are never modified, each execution has its own generator and class loader and
+ * what is shared between executions (class loaders of dependencies, jar indexes, templates) is safe to share.
  */
-@Mojo(name = "generate-assertions", defaultPhase = GENERATE_TEST_SOURCES, requiresDependencyResolution = TEST, requiresProject = true)
+@Mojo(name = "generate-assertions", defaultPhase = GENERATE_TEST_SOURCES, requiresDependencyResolution = TEST, requiresProject = true, threadSafe = true)
 public class AssertJAssertionsGeneratorMojo extends AbstractMojo {
 
   private static final String[] INCLUDE_ALL_CLASSES = { ".*" };
@@ -174,6 +197,26 @@ public class AssertJAssertionsGeneratorMojo extends AbstractMojo {
   @Parameter(property = "assertj.generate.SoftAssertions")
   public boolean generateSoftAssertions = true;
 
+  /**
+   * Flag specifying whether to generate the entry point classes (Assertions, BddAssertions, SoftAssertions ...) in each
+   * package for the classes of this package, instead of single entry point classes for all the classes. The default is
+   * false.
+   * <p/>
+   * With many classes, the single entry point classes get huge and are generated and compiled again each time a class
+   * is added or removed, per package entry points are smaller and only the ones of the changed package are.
+   */
+  @Parameter(defaultValue = "false", property = "assertj.entryPointsPerPackage")
+  public boolean entryPointsPerPackage;
+
+  /**
+   * Flag specifying whether to also generate the usual entry point classes for all the classes when
+   * {@link #entryPointsPerPackage} is enabled, in the {@link #entryPointClassPackage} or in the shortest package. It
+   * allows tests to keep importing a single entry point, it replaces the entry point classes of its own package. The
+   * default is false.
+   */
+  @Parameter(defaultValue = "false", property = "assertj.entryPointsFacade")
+  public boolean entryPointsFacade;
+
   /**
    * Do not log anything if true, false by default.
    */
@@ -182,10 +225,36 @@ public class AssertJAssertionsGeneratorMojo extends AbstractMojo {
 
   /**
    * The generated assertions report is written to the given file, if given a relative path the root path is where the plugin is executed.
+   * <p/>
+   * Like the other reports, it is only written when assertions are generated: when the execution is skipped as up to
+   * date (see {@link #incremental}), the report of the previous execution is left as is.
    */
   @Parameter(property = "assertj.writeReportInFile")
   public String writeReportInFile;
 
+  /**
+   * The maximum number of file names listed in each section of the generated assertions report (generated files,
+   * unchanged files ...), the other files are only counted. All file names are listed by default.
+   */
+  @Parameter(defaultValue = "-1", property = "assertj.maxReportedFileNames")
+  public int maxReportedFileNames = AssertionsGeneratorReport.ALL_FILE_NAMES;
+
+  /**
+   * The generated assertions report is written as JSON to the given file (class counts, written and unchanged files,
+   * excluded classes, phase timings, peak heap ...), for tools like CI dashboards. It is left as is when the execution
+   * is skipped as up to date, see {@link #writeReportInFile}.
+   */
+  @Parameter(property = "assertj.writeJsonReportInFile")
+  public String writeJsonReportInFile;
+
+  /**
+   * The generated assertions counts and timings are written in the OpenMetrics text format to the given file, for
+   * metrics systems like Prometheus. It is left as is when the execution is skipped as up to date, see
+   * {@link #writeReportInFile}.
+   */
+  @Parameter(property = "assertj.writeOpenMetricsReportInFile")
+  public String writeOpenMetricsReportInFile;
+
   /**
    * Generate generating Soft Assertions entry point class.
    */
@@ -198,6 +267,144 @@ public class AssertJAssertionsGeneratorMojo extends AbstractMojo {
   @Parameter(property = "assertj.includePackagePrivateClasses")
   public boolean includePackagePrivateClasses = false;
 
+  /**
+   * Flag specifying whether to only generate assertions for the classes that have changed since the previous
+   * generation, the other classes being skipped as up to date. The default is true.
+   * <p/>
+   * The bytecode fingerprint of each class is kept in the {@link #stateDirectory}, any change in the generator
+   * configuration (templates, hierarchical, ...) leads to generating all assertions again.
+   * <p/>
+   * When none of the parameters, templates, plugin and classpath files has changed since the previous execution and
+   * the files it generated are intact, the whole execution is skipped, reports included.
+   */
+  @Parameter(defaultValue = "true", property = "assertj.incremental")
+  public boolean incremental;
+
+  /**
+   * Flag specifying whether to delete the assertions files generated by the previous execution that are not generated
+   * anymore, i.e. the files of the classes that have been removed or excluded since. The other files are left in
+   * place, unlike {@link #cleanTargetDir} which deletes everything and forces to generate and compile everything
+   * again. The default is false.
+   * <p/>
+   * Pruning relies on the files recorded for each class by the {@link #incremental} generation.
+   */
+  @Parameter(defaultValue = "false", property = "assertj.pruneStaleFiles")
+  public boolean pruneStaleFiles;
+
+  /**
+   * Flag specifying whether to only write the generated files whose content has changed, unchanged files keep their
+   * timestamp so that they are not recompiled. The default is true.
+   * <p/>
+   * It has no effect when the target directory is cleaned (see {@link #cleanTargetDir}) as there is no previous file
+   * to compare with, the generated files are the same whether it is enabled or not.
+   */
+  @Parameter(defaultValue = "true", property = "assertj.writeOnlyChangedFiles")
+  public boolean writeOnlyChangedFiles;
+
+  /**
+   * Number of threads used to generate assertions, either an absolute number like '4' or a multiple of the available
+   * cores like '1C' (one thread per core) or '0.5C'. The default is 1, i.e. assertions are generated in the maven
+   * thread.
+   */
+  @Parameter(defaultValue = "1", property = "assertj.threads")
+  public String threads;
+
+  /**
+   * Number of rendered files that can wait to be written when files are written by a dedicated writer stage, rendering
+   * going on while files are written. The default is 0, i.e. files are written by the threads rendering them.
+   * <p/>
+   * It pays off when file writes are slow (network file systems ...), the memory held by the rendered files waiting to
+   * be written is bounded by this size. Only used when {@link #writeOnlyChangedFiles} is true.
+   */
+  @Parameter(defaultValue = "0", property = "assertj.writeQueueSize")
+  public int writeQueueSize;
+
+  /**
+   * Only plans the generation: classes are collected and filtered, and the report lists the classes assertions would be
+   * generated for, the files that would be created, generated again or deleted in {@link #targetDir} and an estimate of
+   * the generated sources size and generation time. Nothing is written nor deleted, {@link #cleanTargetDir} is
+   * ignored.<br>
+   * Defaults to false.
+   */
+  @Parameter(defaultValue = "false", property = "assertj.dryRun")
+  public boolean dryRun;
+
+  /**
+   * Flag specifying whether to generate assertions in a forked JVM rather than in the maven one, the classes assertions
+   * are generated for are then loaded in the forked JVM heap and metaspace. The generated assertions and the report are
+   * the same. The default is false.
+   * <p/>
+   * It pays off with many classes, when they compete for memory with the other plugins of the build.
+   */
+  @Parameter(defaultValue = "false", property = "assertj.fork")
+  public boolean fork;
+
+  /**
+   * Maximum heap size of the forked JVM like '2g', see {@link #fork}, or of the worker JVM, see {@link #worker}. The
+   * default is the JVM one.
+   */
+  @Parameter(property = "assertj.forkMaxHeap")
+  public String forkMaxHeap;
+
+  /**
+   * Additional arguments of the forked JVM separated by spaces, like '-XX:+UseParallelGC -XX:MaxMetaspaceSize=512m',
+   * see {@link #fork}.
+   */
+  @Parameter(property = "assertj.forkJvmArgs")
+  public String forkJvmArgs;
+
+  /**
+   * Flag specifying whether to generate assertions in a local worker JVM kept alive between builds rather than in a JVM
+   * forked for each execution, see {@link #fork}. The worker is started with {@link #forkMaxHeap} and
+   * {@link #forkJvmArgs} by the first execution needing it. The default is false.
+   * <p/>
+   * Repeated local builds then get a warm generator: templates, jar indexes, dependencies class loaders and JIT compiled
+   * code are kept between builds, dependencies class loaders being kept per project dependencies. The worker releases
+   * its cached class loaders when three quarters of its heap are used. If the worker can't be started or stops
+   * answering, assertions are generated in the maven JVM.
+   */
+  @Parameter(defaultValue = "false", property = "assertj.worker")
+  public boolean worker;
+
+  /**
+   * Time in seconds without any generation after which the worker stops, see {@link #worker}. The default is 600.
+   */
+  @Parameter(defaultValue = "600", property = "assertj.workerIdleTimeoutSeconds")
+  public long workerIdleTimeoutSeconds = 600;
+
+  /**
+   * Directory where the workers write the port they listen to and their log, see {@link #worker}.<br>
+   * Defaults to '~/.m2/assertj-assertions-generator/workers'.
+   */
+  @Parameter(defaultValue = "${user.home}/.m2/assertj-assertions-generator/workers", property = "assertj.workerDirectory")
+  public String workerDirectory;
+
+  /**
+   * Directory where the plugin keeps the state it needs between builds (like the incremental generation state).<br>
+   * Defaults to 'target/assertj-assertions-generator'.
+   */
+  @Parameter(defaultValue = "${project.build.directory}/assertj-assertions-generator", property = "assertj.stateDirectory")
+  public String stateDirectory;
+
+  /**
+   * Directory where the classes found in each jar of the classpath are cached, a jar is only scanned again when its
+   * path, size or last modification time changes. The cache can be shared by all modules and builds, set it to an
+   * empty value to always scan jars.<br>
+   * Defaults to '~/.m2/assertj-assertions-generator/jar-index'.
+   */
+  @Parameter(defaultValue = "${user.home}/.m2/assertj-assertions-generator/jar-index", property = "assertj.jarIndexCacheDirectory")
+  public String jarIndexCacheDirectory;
+
+  /**
+   * Current maven session, class loaders over dependencies and jar indexes are shared by the executions of the
+   * session (typed as Object to stay independent of the maven version).
+   */
+  @Parameter(defaultValue = "${session}", readonly = true)
+  public Object session;
+
+  // classes changed since the previous generation (set by the watch goal), null to scan all the classes
+  Set<String> changedClassNames;
+
   @Override
   public void execute() throws MojoExecutionException, MojoFailureException {
     if (skip) {
@@ -205,32 +412,139 @@ public class AssertJAssertionsGeneratorMojo extends AbstractMojo {
       return;
     }
     failIfMojoParametersAreMissing();
+    int threadCount = threadCount();
     try {
-      ClassLoader projectClassLoader = getProjectClassLoader();
-      AssertionsGenerator assertionGenerator = new AssertionsGenerator(projectClassLoader);
-      assertionGenerator.generateAssertionsForAllFields(this.generateAssertionsForAllFields);
-      assertionGenerator.setIncludePatterns(includes);
-      assertionGenerator.setExcludePatterns(excludes);
-      if (generateAssertions) assertionGenerator.enableEntryPointClassesGenerationFor(STANDARD);
-      if (generateBddAssertions) assertionGenerator.enableEntryPointClassesGenerationFor(BDD);
-      if (generateSoftAssertions) assertionGenerator.enableEntryPointClassesGenerationFor(SOFT);
-      if (generateJUnitSoftAssertions) {
-        if (junitFoundBy(projectClassLoader)) assertionGenerator.enableEntryPointClassesGenerationFor(JUNIT_SOFT);
-        else
-          getLog().info("JUnit not found in project classpath => JUnitSoftAssertions entry point class won't be generated.");
+      // a dry run must neither rely on nor alter the state of the previous generation
+      UpToDateCheck upToDateCheck = dryRun ? null : upToDateCheck();
+      if (upToDateCheck != null && upToDateCheck.isUpToDate()) {
+        getLog().info("Assertions are up to date, nothing has changed since the previous generation.");
+        addGeneratedSourcesRoot();
+        return;
       }
-      assertionGenerator.setLog(getLog());
-      if (generateAssertionsInPackage != null) {
-        // user has set generateAssertionsInPackage  (not that maven converts empty string param to null)
-        assertionGenerator.setGeneratedAssertionsPackage(generateAssertionsInPackage);
-      }
-      if (cleanTargetDir) cleanPreviouslyGeneratedSources();
-      executeWithAssertionGenerator(assertionGenerator);
+      if (upToDateCheck != null) upToDateCheck.invalidate();
+      if (cleanTargetDir && dryRun) getLog().info("Dry run: the target directory is not cleaned.");
+      else if (cleanTargetDir) cleanPreviouslyGeneratedSources();
+      AssertionsGeneratorReport report = generateAssertions(threadCount);
+      if (upToDateCheck != null && report.getReportedException() == null) upToDateCheck.save(generatedFilesOf(report));
     } catch (Exception e) {
       throw new MojoExecutionException(e.getMessage(), e);
     }
   }
 
+  /**
+   * Generates assertions with a generator configured from the mojo parameters, over a project class loader released
+   * once done, or in a forked or worker JVM. When the worker can't be used, assertions are generated in the maven JVM.
+   */
+  AssertionsGeneratorReport generateAssertions(int threadCount) throws Exception {
+    if (fork || worker) {
+      AssertionsGeneratorReport report = worker
+          ? generateInWorker(threadCount)
+          : ForkedGeneration.generate(this, threadCount, projectClasspathElements(), forkedJvmArguments(), getLog());
+      if (report != null) {
+        printReport(report);
+        addGeneratedSourcesRoot();
+        return report;
+      }
+    }
+    ClassLoader projectClassLoader = null;
+    try {
+      PhaseTimer classLoaderBuildTimer = PhaseTimer.start();
+      projectClassLoader = getProjectClassLoader();
+      AssertionsGenerator assertionGenerator = new AssertionsGenerator(projectClassLoader);
+      assertionGenerator.addPhaseTime(CLASS_LOADER_BUILD, classLoaderBuildTimer.wallTimeNanos(),
+                                      classLoaderBuildTimer.cpuTimeNanos());
+      configure(assertionGenerator, projectClassLoader, threadCount);
+      SessionCache sessionCache = sessionCache();
+      if (sessionCache != null) assertionGenerator.setSharedJarIndexes(sessionCache.getJarIndexes());
+      return executeWithAssertionGenerator(assertionGenerator);
+    } finally {
+      release(projectClassLoader);
+    }
+  }
+
+  /**
+   * Returns the report of the generation run in the worker, or null if the worker can't be used.
+   */
+  private AssertionsGeneratorReport generateInWorker(int threadCount) throws Exception {
+    try {
+      return GenerationWorker.generate(this, threadCount, projectClasspathElements(), forkedJvmArguments(),
+                                       new File(workerDirectory), workerIdleTimeoutSeconds * 1000, getLog());
+    } catch (WorkerUnavailableException e) {
+      String warning = e.getMessage() + ", generating assertions in the maven JVM instead.";
+      if (e.getCause() == null) getLog().warn(warning);
+      else getLog().warn(warning, e.getCause());
+      return null;
+    }
+  }
+
+  /**
+   * Configures the given generator from the mojo parameters, in the maven JVM or in a forked one.
+   */
+  void configure(AssertionsGenerator assertionGenerator, ClassLoader projectClassLoader,
+                 int threadCount) throws URISyntaxException {
+    assertionGenerator.generateAssertionsForAllFields(this.generateAssertionsForAllFields);
+    assertionGenerator.setIncludePatterns(includes);
+    assertionGenerator.setExcludePatterns(excludes);
+    if (generateAssertions) assertionGenerator.enableEntryPointClassesGenerationFor(STANDARD);
+    if (generateBddAssertions) assertionGenerator.enableEntryPointClassesGenerationFor(BDD);
+    if (generateSoftAssertions) assertionGenerator.enableEntryPointClassesGenerationFor(SOFT);
+    if (generateJUnitSoftAssertions) {
+      if (junitFoundBy(projectClassLoader)) assertionGenerator.enableEntryPointClassesGenerationFor(JUNIT_SOFT);
+      else
+        getLog().info("JUnit not found in project classpath => JUnitSoftAssertions entry point class won't be generated.");
+    }
+    assertionGenerator.setLog(getLog());
+    if (generateAssertionsInPackage != null) {
+      // user has set generateAssertionsInPackage  (not that maven converts empty string param to null)
+      assertionGenerator.setGeneratedAssertionsPackage(generateAssertionsInPackage);
+    }
+    assertionGenerator.setWriteOnlyChangedFiles(writeOnlyChangedFiles);
+    assertionGenerator.setThreads(threadCount);
+    assertionGenerator.setWriteQueueSize(writeQueueSize);
+    if (isIncremental() && stateDirectory != null) assertionGenerator.setIncrementalStateFile(incrementalStateFile());
+    if (pruneStaleFiles && !isIncremental()) {
+      getLog().warn("Stale assertions files can't be pruned as incremental generation is disabled.");
+    }
+    assertionGenerator.setPruneStaleFiles(pruneStaleFiles);
+    assertionGenerator.setEntryPointsPerPackage(entryPointsPerPackage);
+    assertionGenerator.setEntryPointsFacade(entryPointsFacade);
+    if (!isEmpty(jarIndexCacheDirectory)) assertionGenerator.setJarIndexCacheDirectory(new File(jarIndexCacheDirectory));
+    assertionGenerator.setDryRun(dryRun);
+    assertionGenerator.setGeneratorCodeFiles(pluginFiles());
+    if (isIncremental()) assertionGenerator.setChangedClassNames(changedClassNames);
+  }
+
+  private List<String> forkedJvmArguments() {
+    List<String> jvmArguments = new ArrayList<>();
+    if (!isEmpty(forkMaxHeap)) jvmArguments.add("-Xmx" + forkMaxHeap.trim());
+    if (!isEmpty(forkJvmArgs)) jvmArguments.addAll(asList(forkJvmArgs.trim().split("\\s+")));
+    return jvmArguments;
+  }
+
+  boolean isIncremental() {
+    return incremental;
+  }
+
+  /**
+   * The class loaders and jar indexes shared with the other executions of the maven session, null without session.
+   */
+  SessionCache sessionCache() {
+    return session == null ? null : SessionCache.of(session);
+  }
+
+  /**
+   * Closes the project class loader so that its jars are not kept opened and its classes can be unloaded, this matters
+   * when the JVM is reused for several builds (maven daemon, IDE). Shared session class loaders are left opened.
+   */
+  void release(ClassLoader projectClassLoader) {
+    if (!(projectClassLoader instanceof Closeable)) return;
+    try {
+      ((Closeable) projectClassLoader).close();
+    } catch (IOException e) {
+      getLog().warn("Fail to close the project class loader", e);
+    }
+  }
+
   @Override
   public Log getLog() {
     return quiet ? NO_LOG : super.getLog();
@@ -248,32 +562,150 @@ public class AssertJAssertionsGeneratorMojo extends AbstractMojo {
     }
   }
 
+  /**
+   * Each target directory gets its own state file so that several executions of the plugin in the same module don't
+   * invalidate each other's state.
+   */
+  private File incrementalStateFile() {
+    String targetDirHash = Hashing.murmur3_32().hashString(new File(targetDir).getAbsolutePath(), UTF_8).toString();
+    return new File(stateDirectory, "incremental-state-" + targetDirHash + ".txt");
+  }
+
+  /**
+   * The whole execution can be skipped when incremental generation is enabled and nothing it depends on has changed,
+   * returns null when it can't be skipped.
+   */
+  @SuppressWarnings("unchecked")
+  UpToDateCheck upToDateCheck() throws DependencyResolutionRequiredException, IOException, URISyntaxException {
+    if (!isIncremental() || stateDirectory == null || cleanTargetDir) return null;
+    String targetDirHash = Hashing.murmur3_32().hashString(new File(targetDir).getAbsolutePath(), UTF_8).toString();
+    UpToDateCheck upToDateCheck = new UpToDateCheck(new File(stateDirectory, "up-to-date-" + targetDirHash + ".txt"));
+    for (File pluginFile : pluginFiles()) {
+      upToDateCheck.putClasspathElement(pluginFile.getPath());
+    }
+    upToDateCheck.putParameter("targetDir", new File(targetDir).getAbsolutePath())
+                 .putParameter("generateAssertionsInPackage", generateAssertionsInPackage)
+                 .putParameter("packages", packages)
+                 .putParameter("classes", classes)
+                 .putParameter("includes", includes)
+                 .putParameter("excludes", excludes)
+                 .putParameter("hierarchical", hierarchical)
+                 .putParameter("generateAssertionsForAllFields", generateAssertionsForAllFields)
+                 .putParameter("entryPointClassPackage", entryPointClassPackage)
+                 .putParameter("generateAssertions", generateAssertions)
+                 .putParameter("generateBddAssertions", generateBddAssertions)
+                 .putParameter("generateJUnitSoftAssertions", generateJUnitSoftAssertions)
+                 .putParameter("generateSoftAssertions", generateSoftAssertions)
+                 .putParameter("entryPointsPerPackage", entryPointsPerPackage)
+                 .putParameter("entryPointsFacade", entryPointsFacade)
+                 .putParameter("includePackagePrivateClasses", includePackagePrivateClasses)
+                 .putParameter("pruneStaleFiles", pruneStaleFiles)
+                 .putParameter("writeReportInFile", writeReportInFile)
+                 .putParameter("maxReportedFileNames", maxReportedFileNames)
+                 .putParameter("writeJsonReportInFile", writeJsonReportInFile)
+                 .putParameter("writeOpenMetricsReportInFile", writeOpenMetricsReportInFile);
+    if (templates != null) {
+      for (File templateFile : templates.getTemplateFiles()) {
+        upToDateCheck.putFile(templateFile);
+      }
+    }
+    List<String> classpathElements = new ArrayList<String>(project.getCompileClasspathElements());
+    classpathElements.addAll(project.getTestClasspathElements());
+    for (String classpathElement : classpathElements) {
+      upToDateCheck.putClasspathElement(classpathElement);
+    }
+    return upToDateCheck;
+  }
+
+  /**
+   * The plugin and assertions generator code, it may change without their version changing (snapshots, generator
+   * version overridden in the plugin dependencies).
+   */
+  @VisibleForTesting
+  List<File> pluginFiles() throws URISyntaxException {
+    return asList(codeSourceOf(AssertJAssertionsGeneratorMojo.class), codeSourceOf(BaseAssertionGenerator.class));
+  }
+
+  private static File codeSourceOf(Class<?> type) throws URISyntaxException {
+    // the location is an URL whose path is encoded (spaces are %20 ...)
+    return new File(type.getProtectionDomain().getCodeSource().getLocation().toURI());
+  }
+
+  private static List<File> generatedFilesOf(AssertionsGeneratorReport report) {
+    List<File> generatedFiles = new ArrayList<>();
+    for (String fileName : report.getGeneratedCustomAssertionFileNames()) {
+      generatedFiles.add(new File(fileName));
+    }
+    for (String fileName : report.getUnchangedCustomAssertionFileNames()) {
+      generatedFiles.add(new File(fileName));
+    }
+    generatedFiles.addAll(report.getAssertionsEntryPointFilesByType().values());
+    for (String fileName : report.getPackageEntryPointFileNames()) {
+      generatedFiles.add(new File(fileName));
+    }
+    for (String fileName : report.getUnchangedPackageEntryPointFileNames()) {
+      generatedFiles.add(new File(fileName));
+    }
+    return generatedFiles;
+  }
+
   @VisibleForTesting
   AssertionsGeneratorReport executeWithAssertionGenerator(AssertionsGenerator assertionGenerator) {
-    if (classes == null) classes = new String[0];
-    AssertionsGeneratorReport generatorReport = assertionGenerator.generateAssertionsFor(packages, classes, targetDir,
-                                                                                         entryPointClassPackage, hierarchical,
-                                                                                         templates, includePackagePrivateClasses);
+    AssertionsGeneratorReport generatorReport = generate(assertionGenerator);
     printReport(generatorReport);
+    addGeneratedSourcesRoot();
+    return generatorReport;
+  }
+
+  AssertionsGeneratorReport generate(AssertionsGenerator assertionGenerator) {
+    // parameters are never modified, see the class documentation
+    String[] inputClasses = classes == null ? new String[0] : classes;
+    return assertionGenerator.generateAssertionsFor(packages, inputClasses, targetDir, entryPointClassPackage,
+                                                    hierarchical, templates, includePackagePrivateClasses);
+  }
+
+  private void addGeneratedSourcesRoot() {
     if (isEmpty(generatedSourcesScope) || equalsIgnoreCase("test", generatedSourcesScope)) project.addTestCompileSourceRoot(targetDir);
     else if (equalsIgnoreCase("compile", generatedSourcesScope)) project.addCompileSourceRoot(targetDir);
     else getLog().warn(format("Unknown generated sources scope '%s' - no sources added to project", generatedSourcesScope));
-    return generatorReport;
   }
 
   private void printReport(AssertionsGeneratorReport assertionsGeneratorReport) {
-    String reportContent = assertionsGeneratorReport.getReportContent();
     if (shouldWriteReportInFile()) {
       getLog().info("Writing the assertions generator report in file: " + writeReportInFile);
-      writeReportInFile(reportContent);
-    } else {
-      getLog().info(reportContent);
+      writeReportInFile(assertionsGeneratorReport);
+    } else if (getLog().isInfoEnabled()) {
+      // streamed to the log by chunks rather than built as a whole
+      try (Writer writer = new LogWriter(getLog())) {
+        assertionsGeneratorReport.writeReportContent(writer, maxReportedFileNames);
+      } catch (IOException e) {
+        getLog().warn("Failed to log the assertions generation report", e);
+      }
+    }
+    if (writeJsonReportInFile != null) {
+      getLog().info("Writing the assertions generator JSON report in file: " + writeJsonReportInFile);
+      writeStructuredReportInFile(assertionsGeneratorReport, writeJsonReportInFile, false);
+    }
+    if (writeOpenMetricsReportInFile != null) {
+      getLog().info("Writing the assertions generator OpenMetrics report in file: " + writeOpenMetricsReportInFile);
+      writeStructuredReportInFile(assertionsGeneratorReport, writeOpenMetricsReportInFile, true);
     }
   }
 
-  private void writeReportInFile(String reportContent) {
-    try {
-      write(new File(writeReportInFile), reportContent, UTF_8);
+  private void writeStructuredReportInFile(AssertionsGeneratorReport assertionsGeneratorReport, String reportFile,
+                                           boolean openMetrics) {
+    try (Writer writer = new BufferedWriter(new OutputStreamWriter(openOutputStream(new File(reportFile)), UTF_8))) {
+      if (openMetrics) OpenMetricsReportWriter.write(assertionsGeneratorReport, writer);
+      else JsonReportWriter.write(assertionsGeneratorReport, writer);
+    } catch (IOException e) {
+      getLog().warn("Failed to write the assertions generation report in file " + reportFile, e);
+    }
+  }
+
+  private void writeReportInFile(AssertionsGeneratorReport assertionsGeneratorReport) {
+    try (Writer writer = new BufferedWriter(new OutputStreamWriter(openOutputStream(new File(writeReportInFile)),
+                                                                   UTF_8))) {
+      assertionsGeneratorReport.writeReportContent(writer, maxReportedFileNames);
     } catch (IOException e) {
       getLog().warn("Failed to write the assertions generation assertionsGeneratorReport in file "
                     + writeReportInFile, e);
@@ -284,21 +716,67 @@ public class AssertJAssertionsGeneratorMojo extends AbstractMojo {
     return writeReportInFile != null;
   }
 
-  private void failIfMojoParametersAreMissing() throws MojoFailureException {
+  void failIfMojoParametersAreMissing() throws MojoFailureException {
     if (isEmpty(packages) && isEmpty(classes)) {
       throw new MojoFailureException(shouldHaveNonEmptyPackagesOrClasses());
     }
   }
 
+  int threadCount() throws MojoFailureException {
+    if (isEmpty(threads)) return 1;
+    String threadsValue = threads.trim();
+    try {
+      if (!endsWithIgnoreCase(threadsValue, "C")) return max(1, parseInt(threadsValue));
+      float threadsPerCore = parseFloat(threadsValue.substring(0, threadsValue.length() - 1));
+      return max(1, (int) (threadsPerCore * Runtime.getRuntime().availableProcessors()));
+    } catch (NumberFormatException e) {
+      throw new MojoFailureException(shouldBeAValidThreadCount(threads));
+    }
+  }
+
+  @VisibleForTesting
+  static String shouldBeAValidThreadCount(String threads) {
+    return format("Parameter 'threads' should be a number of threads like '4' or a number of threads per core like '1C' but was '%s'.",
+                  threads);
+  }
+
+  @VisibleForTesting
+  ClassLoader getProjectClassLoader() throws DependencyResolutionRequiredException, MalformedURLException {
+    return projectClassLoader(projectClasspathElements(), sessionCache());
+  }
+
+  /**
+   * A class loader over the given project classpath elements, sharing the dependencies class loaders of the given
+   * cache if any.
+   */
+  static ClassLoader projectClassLoader(List<String> classpathElements,
+                                       SessionCache sessionCache) throws MalformedURLException {
+    if (sessionCache == null) {
+      List<URL> classpathElementUrls = new ArrayList<>(classpathElements.size());
+      for (String classpathElement : classpathElements) {
+        classpathElementUrls.add(new File(classpathElement).toURI().toURL());
+      }
+      return new URLClassLoader(classpathElementUrls.toArray(new URL[0]), Thread.currentThread().getContextClassLoader());
+    }
+    // dependencies jars are shared with the other modules of the build, output directories are specific to this one
+    Set<URL> moduleDirectories = new LinkedHashSet<>();
+    Set<URL> dependencies = new LinkedHashSet<>();
+    for (String classpathElement : classpathElements) {
+      File classpathElementFile = new File(classpathElement);
+      URL classpathElementUrl = classpathElementFile.toURI().toURL();
+      if (classpathElementFile.isDirectory()) moduleDirectories.add(classpathElementUrl);
+      else dependencies.add(classpathElementUrl);
+    }
+    ClassLoader dependenciesClassLoader = sessionCache.dependenciesClassLoader(new ArrayList<>(dependencies),
+                                                                               Thread.currentThread().getContextClassLoader());
+    return new ModuleClassLoader(moduleDirectories.toArray(new URL[0]), dependenciesClassLoader);
+  }
+
   @SuppressWarnings("unchecked")
-  private ClassLoader getProjectClassLoader() throws DependencyResolutionRequiredException, MalformedURLException {
+  private List<String> projectClasspathElements() throws DependencyResolutionRequiredException {
     List<String> classpathElements = new ArrayList<String>(project.getCompileClasspathElements());
     classpathElements.addAll(project.getTestClasspathElements());
-    List<URL> classpathElementUrls = new ArrayList<>(classpathElements.size());
-    for (String classpathElement : classpathElements) {
-      classpathElementUrls.add(new File(classpathElement).toURI().toURL());
-    }
-    return new URLClassLoader(classpathElementUrls.toArray(new URL[0]), Thread.currentThread().getContextClassLoader());
+    return classpathElements;
   }
 
   @VisibleForTesting
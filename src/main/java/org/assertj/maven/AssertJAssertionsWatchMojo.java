@@ -0,0 +1,187 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * Copyright 2012-2017 the original author or authors.
+ */
+package org.assertj.maven;
+
+import static java.lang.String.format;
+import static org.apache.maven.plugins.annotations.ResolutionScope.TEST;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.assertj.core.util.VisibleForTesting;
+
+/**
+ * Generates custom AssertJ assertions like the generate-assertions goal, then watches the project output directories
+ * and generates them again each time classes are recompiled (by the IDE or another maven build), until stopped.
+ * <p/>
+ * Generation is always incremental: only the assertions of the changed classes are generated again and entry points are
+ * only written if their content has changed. Dependency class loaders, jar indexes and templates are kept between
+ * generations, only the changed class files and the type hierarchy of their dependent classes are read again.
+ */
+@Mojo(name = "watch", requiresDependencyResolution = TEST, requiresProject = true, threadSafe = true)
+public class AssertJAssertionsWatchMojo extends AssertJAssertionsGeneratorMojo {
+
+  private static final String CLASS_FILE_EXTENSION = ".class";
+
+  /**
+   * Time in milliseconds without any class file change after which the classes are considered compiled and assertions
+   * are generated again, compilers writing many class files in a row. The default is 500.
+   */
+  @Parameter(defaultValue = "500", property = "assertj.watch.debounceMillis")
+  public long debounceMillis = 500;
+
+  // when run without maven session, the watch keeps its own class loaders and jar indexes between generations
+  private SessionCache watchCache;
+  private ClassFileWatcher classFileWatcher;
+  private boolean stopped;
+
+  @Override
+  public void execute() throws MojoExecutionException, MojoFailureException {
+    if (skip) {
+      getLog().info("Assertions generator is disabled as 'skip' option is true.");
+      return;
+    }
+    failIfMojoParametersAreMissing();
+    int threadCount = threadCount();
+    if (!incremental) getLog().info("Incremental generation is always enabled when watching classes.");
+    Thread shutdownHook = new Thread("assertj-assertions-watch-shutdown") {
+      @Override
+      public void run() {
+        try {
+          stopWatching();
+        } catch (IOException e) {
+          // the JVM is exiting anyway
+        }
+      }
+    };
+    Runtime.getRuntime().addShutdownHook(shutdownHook);
+    try {
+      List<File> outputDirectories = outputDirectories();
+      try (ClassFileWatcher watcher = startWatching(outputDirectories)) {
+        if (watcher == null) return;
+        // files are generated behind the back of the up to date check, the next build must not rely on it
+        UpToDateCheck upToDateCheck = upToDateCheck();
+        if (upToDateCheck != null) upToDateCheck.invalidate();
+        generateAssertions(threadCount);
+        getLog().info("Watching classes to generate their assertions again when they change, stop with Ctrl+C.");
+        while (true) {
+          Set<Path> changes = watcher.awaitChanges(debounceMillis);
+          getLog().info(format("%d class files or directories changed, generating assertions again.", changes.size()));
+          // only the changed classes and the ones depending on them are scanned and fingerprinted again
+          changedClassNames = classNamesOf(changes, outputDirectories);
+          generateAssertions(threadCount);
+        }
+      }
+    } catch (ClosedWatchServiceException e) {
+      // stopped
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (Exception e) {
+      throw new MojoExecutionException(e.getMessage(), e);
+    } finally {
+      changedClassNames = null;
+      if (watchCache != null) watchCache.close();
+      removeShutdownHook(shutdownHook);
+    }
+  }
+
+  private static void removeShutdownHook(Thread shutdownHook) {
+    try {
+      Runtime.getRuntime().removeShutdownHook(shutdownHook);
+    } catch (IllegalStateException e) {
+      // the JVM is already shutting down, the hook has stopped the watch
+    }
+  }
+
+  private synchronized ClassFileWatcher startWatching(List<File> directories) throws IOException {
+    if (stopped) return null;
+    classFileWatcher = new ClassFileWatcher(directories);
+    return classFileWatcher;
+  }
+
+  /**
+   * Stops watching classes, the pending generation if any completes before {@link #execute()} returns. Called when the
+   * JVM shuts down (Ctrl+C).
+   */
+  synchronized void stopWatching() throws IOException {
+    stopped = true;
+    if (classFileWatcher != null) classFileWatcher.close();
+  }
+
+  @Override
+  boolean isIncremental() {
+    return true;
+  }
+
+  @Override
+  synchronized SessionCache sessionCache() {
+    if (session != null) return super.sessionCache();
+    if (watchCache == null) watchCache = new SessionCache();
+    return watchCache;
+  }
+
+  /**
+   * Returns the binary names of the classes of the given changed class files, or null when a whole directory has to
+   * be scanned again (changes lost or new directory) for all the classes to be scanned.
+   */
+  @VisibleForTesting
+  static Set<String> classNamesOf(Set<Path> changes, List<File> outputDirectories) {
+    Set<String> classNames = new LinkedHashSet<>();
+    for (Path change : changes) {
+      String className = classNameOf(change, outputDirectories);
+      if (className == null) return null;
+      classNames.add(className);
+    }
+    return classNames;
+  }
+
+  private static String classNameOf(Path classFile, List<File> outputDirectories) {
+    String fileName = classFile.getFileName().toString();
+    if (!fileName.endsWith(CLASS_FILE_EXTENSION) || Files.isDirectory(classFile)) return null;
+    for (File outputDirectory : outputDirectories) {
+      Path outputDirectoryPath = outputDirectory.toPath();
+      if (!classFile.startsWith(outputDirectoryPath)) continue;
+      String relativePath = outputDirectoryPath.relativize(classFile).toString();
+      return relativePath.substring(0, relativePath.length() - CLASS_FILE_EXTENSION.length())
+                         .replace(File.separatorChar, '.');
+    }
+    return null;
+  }
+
+  /**
+   * The directories of the project classpath, where the classes assertions are generated for are compiled.
+   */
+  @SuppressWarnings("unchecked")
+  private List<File> outputDirectories() throws DependencyResolutionRequiredException {
+    Set<String> classpathElements = new LinkedHashSet<>(project.getCompileClasspathElements());
+    classpathElements.addAll(project.getTestClasspathElements());
+    List<File> outputDirectories = new ArrayList<>();
+    for (String classpathElement : classpathElements) {
+      File classpathElementFile = new File(classpathElement);
+      if (classpathElementFile.isDirectory()) outputDirectories.add(classpathElementFile);
+    }
+    return outputDirectories;
+  }
+}
@@ -0,0 +1,112 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * Copyright 2012-2017 the original author or authors.
+ */
+package org.assertj.maven;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Watches directories of class files, including their sub directories, and reports the class files changed by bursts:
+ * compilers write many class files in a row, a burst ends when nothing has changed for the debounce delay.
+ * <p>
+ * Closing the watcher ends a pending {@link #awaitChanges(long)} with a
+ * {@link java.nio.file.ClosedWatchServiceException}.
+ */
+class ClassFileWatcher implements Closeable {
+
+  private static final String CLASS_FILE_EXTENSION = ".class";
+
+  private final WatchService watchService;
+  private final Map<WatchKey, Path> watchedDirectories = new ConcurrentHashMap<>();
+
+  ClassFileWatcher(List<File> directories) throws IOException {
+    watchService = FileSystems.getDefault().newWatchService();
+    for (File directory : directories) {
+      registerAll(directory.toPath());
+    }
+  }
+
+  /**
+   * Blocks until class files are created, modified or deleted and returns the ones changed in the burst of changes.
+   * When changes have been lost (too many at once) or a directory has been created, the concerned watched directories
+   * are returned as any of their class files may have changed.
+   */
+  Set<Path> awaitChanges(long debounceMillis) throws IOException, InterruptedException {
+    Set<Path> changes = new TreeSet<>();
+    while (changes.isEmpty()) {
+      WatchKey watchKey = watchService.take();
+      while (watchKey != null) {
+        collectChanges(watchKey, changes);
+        watchKey = watchService.poll(debounceMillis, MILLISECONDS);
+      }
+    }
+    return changes;
+  }
+
+  private void collectChanges(WatchKey watchKey, Set<Path> changes) throws IOException {
+    Path directory = watchedDirectories.get(watchKey);
+    for (WatchEvent<?> event : watchKey.pollEvents()) {
+      if (directory == null) continue;
+      if (event.kind() == OVERFLOW) {
+        changes.add(directory);
+        continue;
+      }
+      Path changedPath = directory.resolve((Path) event.context());
+      if (event.kind() == ENTRY_CREATE && Files.isDirectory(changedPath)) {
+        // class files may have been written in the new directory before it was registered
+        registerAll(changedPath);
+        changes.add(changedPath);
+      } else if (changedPath.getFileName().toString().endsWith(CLASS_FILE_EXTENSION)) {
+        changes.add(changedPath);
+      }
+    }
+    if (!watchKey.reset()) watchedDirectories.remove(watchKey);
+  }
+
+  private void registerAll(Path root) throws IOException {
+    if (!Files.isDirectory(root)) return;
+    Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attributes) throws IOException {
+        watchedDirectories.put(directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), directory);
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  @Override
+  public void close() throws IOException {
+    watchService.close();
+  }
+}
@@ -0,0 +1,416 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * Copyright 2012-2017 the original author or authors.
+ */
+package org.assertj.maven;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static org.apache.commons.lang3.StringUtils.isEmpty;
+import static org.assertj.maven.AssertJAssertionsGeneratorMojo.projectClassLoader;
+import static org.assertj.maven.generator.GenerationPhase.CLASS_LOADER_BUILD;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.Serializable;
+import java.io.StringWriter;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+import org.assertj.maven.generator.AssertionsGenerator;
+import org.assertj.maven.generator.AssertionsGeneratorReport;
+import org.assertj.maven.generator.PhaseTimer;
+
+/**
+ * Generates assertions in a child JVM so that the classes assertions are generated for are loaded in its heap and
+ * metaspace rather than in the maven ones, with its own memory settings.
+ * <p>
+ * The parent sends the mojo parameters and the project classpath on the child standard input, the child configures
+ * the generator exactly as an in-process execution does and sends the report back on its standard output, both as
+ * serialized objects. Anything else the child prints goes to its standard error, its log lines are forwarded to the
+ * maven log.
+ */
+public class ForkedGeneration {
+
+  // parameters that only make sense in the maven JVM
+  private static final Set<String> NOT_FORKED_PARAMETERS = new LinkedHashSet<>(Arrays.asList("project", "session"));
+  private static final char LOG_LEVEL_SEPARATOR = '|';
+
+  private ForkedGeneration() {}
+
+  /**
+   * Runs the generation configured by the given mojo parameters in a child JVM started with the given arguments.
+   */
+  static AssertionsGeneratorReport generate(AssertJAssertionsGeneratorMojo mojo, int threadCount,
+                                            List<String> projectClasspathElements, List<String> jvmArguments,
+                                            final Log log) throws Exception {
+    List<String> command = new ArrayList<>();
+    command.add(javaExecutable());
+    command.addAll(jvmArguments);
+    command.add("-cp");
+    command.add(pluginClasspath());
+    command.add(ForkedGeneration.class.getName());
+    // relative paths like the templates directory are resolved as in the maven JVM
+    final Process process = new ProcessBuilder(command).directory(new File("").getAbsoluteFile()).start();
+    Thread logForwarder = new Thread("assertj-assertions-fork-log") {
+      @Override
+      public void run() {
+        forwardLog(process, log);
+      }
+    };
+    logForwarder.setDaemon(true);
+    logForwarder.start();
+    try {
+      try (ObjectOutputStream request = new ObjectOutputStream(new BufferedOutputStream(process.getOutputStream()))) {
+        request.writeObject(new GenerationRequest(mojo, projectClasspathElements, threadCount, null));
+      }
+      AssertionsGeneratorReport report;
+      try (ObjectInputStream response = new ObjectInputStream(new BufferedInputStream(process.getInputStream()))) {
+        report = (AssertionsGeneratorReport) response.readObject();
+      } catch (IOException e) {
+        throw new MojoExecutionException("The forked assertions generation JVM has failed with exit code "
+                                         + process.waitFor() + ", see its output above.", e);
+      }
+      // the generation errors are in the report, the exit code is not needed anymore
+      process.waitFor();
+      logForwarder.join();
+      return report;
+    } finally {
+      process.destroy();
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    // the standard output is reserved to the report
+    PrintStream reportStream = System.out;
+    System.setOut(System.err);
+    ObjectInputStream request = new ObjectInputStream(new BufferedInputStream(System.in));
+    GenerationRequest generationRequest = (GenerationRequest) request.readObject();
+    AssertionsGeneratorReport report = generate(generationRequest, new ForwardedLog(System.err, generationRequest),
+                                                null);
+    try (ObjectOutputStream response = new ObjectOutputStream(new BufferedOutputStream(reportStream))) {
+      response.writeObject(report);
+    }
+    // the report tells the parent whether the generation has failed, the exit code says the same to anyone else
+    System.exit(report.getReportedException() == null ? 0 : 1);
+  }
+
+  /**
+   * Generates assertions as requested, the way an in-process execution does, sharing the dependencies class loaders
+   * and jar indexes of the given cache if any.
+   */
+  static AssertionsGeneratorReport generate(GenerationRequest request, Log log,
+                                            SessionCache sessionCache) throws Exception {
+    AssertJAssertionsGeneratorMojo mojo = request.mojo();
+    mojo.setLog(log);
+    PhaseTimer classLoaderBuildTimer = PhaseTimer.start();
+    ClassLoader projectClassLoader = projectClassLoader(request.projectClasspathElements, sessionCache);
+    try {
+      AssertionsGenerator assertionGenerator = new AssertionsGenerator(projectClassLoader);
+      assertionGenerator.addPhaseTime(CLASS_LOADER_BUILD, classLoaderBuildTimer.wallTimeNanos(),
+                                      classLoaderBuildTimer.cpuTimeNanos());
+      mojo.configure(assertionGenerator, projectClassLoader, request.threadCount);
+      if (sessionCache != null) assertionGenerator.setSharedJarIndexes(sessionCache.getJarIndexes());
+      AssertionsGeneratorReport report = mojo.generate(assertionGenerator);
+      // the exception classes may not be known by the maven JVM
+      if (report.getReportedException() != null) report.setException(portable(report.getReportedException()));
+      return report;
+    } finally {
+      mojo.release(projectClassLoader);
+    }
+  }
+
+  static String javaExecutable() {
+    return new File(new File(System.getProperty("java.home"), "bin"), "java").getPath();
+  }
+
+  /**
+   * The plugin classpath along with the maven jars the plugin classes refer to, they come from maven itself and are not
+   * part of the plugin class loader.
+   */
+  static String pluginClasspath() throws URISyntaxException {
+    Set<String> classpathElements = new LinkedHashSet<>();
+    ClassLoader pluginClassLoader = ForkedGeneration.class.getClassLoader();
+    if (pluginClassLoader instanceof URLClassLoader) {
+      for (URL url : ((URLClassLoader) pluginClassLoader).getURLs()) {
+        classpathElements.add(new File(url.toURI()).getPath());
+      }
+    } else {
+      classpathElements.addAll(Arrays.asList(System.getProperty("java.class.path").split(File.pathSeparator)));
+    }
+    for (Class<?> mavenClass : new Class<?>[] { AbstractMojo.class, MavenProject.class,
+        DependencyResolutionRequiredException.class }) {
+      classpathElements.add(new File(mavenClass.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath());
+    }
+    StringBuilder classpath = new StringBuilder();
+    for (String classpathElement : classpathElements) {
+      if (classpath.length() > 0) classpath.append(File.pathSeparatorChar);
+      classpath.append(classpathElement);
+    }
+    return classpath.toString();
+  }
+
+  private static void forwardLog(Process process, Log log) {
+    try (BufferedReader output = new BufferedReader(new InputStreamReader(process.getErrorStream(), UTF_8))) {
+      String line;
+      while ((line = output.readLine()) != null) {
+        forward(line, log);
+      }
+    } catch (IOException e) {
+      log.warn("Fail to read the output of the forked assertions generation JVM", e);
+    }
+  }
+
+  /**
+   * Logs a line written by a {@link ForwardedLog} at its level.
+   */
+  static void forward(String line, Log log) {
+    int separatorIndex = line.indexOf(LOG_LEVEL_SEPARATOR);
+    String level = separatorIndex < 0 ? "" : line.substring(0, separatorIndex);
+    String message = line.substring(separatorIndex + 1);
+    if (level.equals(ForwardedLog.DEBUG)) log.debug(message);
+    else if (level.equals(ForwardedLog.INFO)) log.info(message);
+    else if (level.equals(ForwardedLog.ERROR)) log.error(message);
+    // warnings and anything printed by the JVM itself (out of memory errors ...)
+    else if (level.equals(ForwardedLog.WARN)) log.warn(message);
+    else log.warn(line);
+  }
+
+  static Exception portable(Throwable throwable) {
+    ForkedGenerationException portableException = new ForkedGenerationException(throwable);
+    if (throwable.getCause() != null && throwable.getCause() != throwable) {
+      portableException.initCause(portable(throwable.getCause()));
+    }
+    return portableException;
+  }
+
+  /**
+   * An exception of the forked JVM, reported and printed as the original one.
+   */
+  private static class ForkedGenerationException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String description;
+
+    ForkedGenerationException(Throwable original) {
+      super(original.getMessage());
+      description = original.toString();
+      setStackTrace(original.getStackTrace());
+    }
+
+    @Override
+    public String toString() {
+      return description;
+    }
+  }
+
+  /**
+   * What the parent needs to run the generation: the mojo public parameters, i.e. its configuration as maven injected
+   * it, the project classpath and the working directory relative paths are resolved against, if not the current one.
+   */
+  static class GenerationRequest implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Map<String, Object> parameters = new HashMap<>();
+    final List<String> projectClasspathElements;
+    private final int threadCount;
+    private final String workingDirectory;
+    private final Set<String> changedClassNames;
+    // the child only logs at the levels enabled in the maven JVM
+    private final Set<String> enabledLogLevels;
+
+    GenerationRequest(AssertJAssertionsGeneratorMojo mojo, List<String> projectClasspathElements, int threadCount,
+                      String workingDirectory) throws IllegalAccessException {
+      for (Field field : AssertJAssertionsGeneratorMojo.class.getFields()) {
+        if (Modifier.isStatic(field.getModifiers()) || NOT_FORKED_PARAMETERS.contains(field.getName())) continue;
+        parameters.put(field.getName(), field.get(mojo));
+      }
+      this.projectClasspathElements = new ArrayList<>(projectClasspathElements);
+      this.threadCount = threadCount;
+      this.workingDirectory = workingDirectory;
+      this.changedClassNames = mojo.changedClassNames == null ? null : new HashSet<>(mojo.changedClassNames);
+      this.enabledLogLevels = ForwardedLog.enabledLevelsOf(mojo.getLog());
+    }
+
+    /**
+     * A mojo configured with the request parameters, to be used once as it is modified to resolve relative paths.
+     */
+    private AssertJAssertionsGeneratorMojo mojo() throws ReflectiveOperationException {
+      AssertJAssertionsGeneratorMojo mojo = new AssertJAssertionsGeneratorMojo();
+      for (Map.Entry<String, Object> parameter : parameters.entrySet()) {
+        AssertJAssertionsGeneratorMojo.class.getField(parameter.getKey()).set(mojo, parameter.getValue());
+      }
+      mojo.targetDir = resolved(mojo.targetDir);
+      mojo.stateDirectory = resolved(mojo.stateDirectory);
+      mojo.jarIndexCacheDirectory = resolved(mojo.jarIndexCacheDirectory);
+      if (mojo.templates != null) mojo.templates.templatesDirectory = resolved(mojo.templates.templatesDirectory);
+      mojo.changedClassNames = changedClassNames;
+      return mojo;
+    }
+
+    private String resolved(String path) {
+      if (workingDirectory == null || isEmpty(path) || new File(path).isAbsolute()) return path;
+      return new File(workingDirectory, path).getPath();
+    }
+  }
+
+  /**
+   * Writes each log line prefixed by its level, read back by {@link #forward(String, Log)}, on the given stream or
+   * wherever {@link #write(String)} is overridden to, only at the log levels enabled in the maven JVM.
+   */
+  static class ForwardedLog implements Log {
+
+    private static final String DEBUG = "debug";
+    private static final String INFO = "info";
+    private static final String WARN = "warn";
+    private static final String ERROR = "error";
+
+    private final PrintStream stream;
+    private final Set<String> enabledLevels;
+
+    ForwardedLog(PrintStream stream, GenerationRequest request) {
+      this.stream = stream;
+      this.enabledLevels = request.enabledLogLevels;
+    }
+
+    static Set<String> enabledLevelsOf(Log log) {
+      Set<String> enabledLevels = new HashSet<>();
+      if (log.isDebugEnabled()) enabledLevels.add(DEBUG);
+      if (log.isInfoEnabled()) enabledLevels.add(INFO);
+      if (log.isWarnEnabled()) enabledLevels.add(WARN);
+      if (log.isErrorEnabled()) enabledLevels.add(ERROR);
+      return enabledLevels;
+    }
+
+    void write(String line) {
+      stream.println(line);
+    }
+
+    private synchronized void log(String level, CharSequence content, Throwable error) {
+      if (!enabledLevels.contains(level)) return;
+      StringBuilder lines = new StringBuilder();
+      if (content != null) lines.append(content).append(System.lineSeparator());
+      if (error != null) {
+        StringWriter stackTrace = new StringWriter();
+        error.printStackTrace(new PrintWriter(stackTrace));
+        lines.append(stackTrace);
+      }
+      for (String line : lines.toString().split("\\r?\\n")) {
+        write(level + LOG_LEVEL_SEPARATOR + line);
+      }
+    }
+
+    @Override
+    public boolean isDebugEnabled() {
+      return enabledLevels.contains(DEBUG);
+    }
+
+    @Override
+    public void debug(CharSequence content) {
+      log(DEBUG, content, null);
+    }
+
+    @Override
+    public void debug(CharSequence content, Throwable error) {
+      log(DEBUG, content, error);
+    }
+
+    @Override
+    public void debug(Throwable error) {
+      log(DEBUG, null, error);
+    }
+
+    @Override
+    public boolean isInfoEnabled() {
+      return enabledLevels.contains(INFO);
+    }
+
+    @Override
+    public void info(CharSequence content) {
+      log(INFO, content, null);
+    }
+
+    @Override
+    public void info(CharSequence content, Throwable error) {
+      log(INFO, content, error);
+    }
+
+    @Override
+    public void info(Throwable error) {
+      log(INFO, null, error);
+    }
+
+    @Override
+    public boolean isWarnEnabled() {
+      return enabledLevels.contains(WARN);
+    }
+
+    @Override
+    public void warn(CharSequence content) {
+      log(WARN, content, null);
+    }
+
+    @Override
+    public void warn(CharSequence content, Throwable error) {
+      log(WARN, content, error);
+    }
+
+    @Override
+    public void warn(Throwable error) {
+      log(WARN, null, error);
+    }
+
+    @Override
+    public boolean isErrorEnabled() {
+      return enabledLevels.contains(ERROR);
+    }
+
+    @Override
+    public void error(CharSequence content) {
+      log(ERROR, content, null);
+    }
+
+    @Override
+    public void error(CharSequence content, Throwable error) {
+      log(ERROR, content, error);
+    }
+
+    @Override
+    public void error(Throwable error) {
+      log(ERROR, null, error);
+    }
+  }
+}
@@ -0,0 +1,447 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * Copyright 2012-2017 the original author or authors.
+ */
+package org.assertj.maven;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static java.lang.management.MemoryType.HEAP;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.assertj.maven.ForkedGeneration.forward;
+import static org.assertj.maven.ForkedGeneration.javaExecutable;
+import static org.assertj.maven.ForkedGeneration.pluginClasspath;
+import static org.assertj.maven.ForkedGeneration.portable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.lang.ProcessBuilder.Redirect;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryUsage;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.assertj.maven.ForkedGeneration.ForwardedLog;
+import org.assertj.maven.ForkedGeneration.GenerationRequest;
+import org.assertj.maven.generator.AssertionsGeneratorReport;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * A generation JVM kept alive between builds so that repeated builds get a warm generator: compiled templates, jar
+ * indexes, dependencies class loaders and JIT compiled code are kept from one generation to the next.
+ * <p>
+ * The worker listens on a loopback port written in its worker file along with a random token, the file is only
+ * readable by its owner. The worker first proves it knows the token by hashing it with a random challenge of the
+ * client, a stale worker file may point to a port now used by another program, then the client must send the token
+ * before anything else is read. Requests and reports are the ones of a {@link ForkedGeneration}, log lines are sent
+ * back as they are logged and heartbeats are sent while generating so that the client can tell a hung worker from a
+ * long generation.
+ * <p>
+ * There is a worker per plugin classpath and JVM arguments. Dependencies class loaders and jar indexes are kept per
+ * project dependencies so that projects never see each other classes. The worker stops accepting requests when it has
+ * not been used for the idle timeout or when another worker has replaced it, and exits once the running generations
+ * are completed. It releases its cached class loaders when the heap used after garbage collection goes over
+ * {@link #MEMORY_CEILING_RATIO} of the maximum heap.
+ */
+public class GenerationWorker {
+
+  private static final String PORT = "port";
+  private static final String TOKEN = "token";
+  private static final long START_TIMEOUT_MILLIS = 30000;
+  private static final int CONNECT_TIMEOUT_MILLIS = 1000;
+  private static final int REQUEST_TIMEOUT_MILLIS = 30000;
+  private static final long HEARTBEAT_PERIOD_MILLIS = REQUEST_TIMEOUT_MILLIS / 3;
+  // log lines always start with their level, a heartbeat can't be mistaken for one
+  private static final String HEARTBEAT = "";
+  private static final long IDLE_CHECK_PERIOD_MILLIS = 1000;
+  private static final double MEMORY_CEILING_RATIO = 0.75;
+
+  private final File workerFile;
+  private final long idleTimeoutMillis;
+  private final String token = randomString();
+  // dependencies class loaders and jar indexes by project dependencies
+  private final Map<List<String>, SessionCache> cachesByDependencies = new HashMap<>();
+  // generations share the cached class loaders, releasing them waits for the generations using them
+  private final ReadWriteLock cachesLock = new ReentrantReadWriteLock();
+  private final AtomicInteger activeRequests = new AtomicInteger();
+  private volatile long lastRequestEndMillis = System.currentTimeMillis();
+  private final ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(
+      new ThreadFactoryBuilder().setDaemon(true).setNameFormat("assertj-assertions-worker-heartbeat").build());
+
+  private GenerationWorker(File workerFile, long idleTimeoutMillis) {
+    this.workerFile = workerFile;
+    this.idleTimeoutMillis = idleTimeoutMillis;
+  }
+
+  /**
+   * Runs the generation configured by the given mojo parameters in the worker of the given JVM arguments, starting it
+   * if it is not running.
+   *
+   * @throws WorkerUnavailableException if the worker can't be started or reached, does not prove its identity or
+   *           stops answering, the generation can be run elsewhere then.
+   */
+  static AssertionsGeneratorReport generate(AssertJAssertionsGeneratorMojo mojo, int threadCount,
+                                            List<String> projectClasspathElements, List<String> jvmArguments,
+                                            File workerDirectory, long idleTimeoutMillis,
+                                            Log log) throws Exception {
+    String pluginClasspath = pluginClasspath();
+    String workerName = "worker-" + workerId(pluginClasspath, jvmArguments);
+    File workerFile = new File(workerDirectory, workerName + ".properties");
+    File logFile = new File(workerDirectory, workerName + ".log");
+    Properties worker = readProperties(workerFile);
+    Socket connection = connect(worker);
+    if (connection == null) {
+      log.info("Starting an assertions generation worker, its log file is " + logFile);
+      Process process = start(workerFile, logFile, pluginClasspath, jvmArguments, idleTimeoutMillis);
+      long startTimeout = System.currentTimeMillis() + START_TIMEOUT_MILLIS;
+      while (connection == null) {
+        if (hasExited(process)) {
+          throw new WorkerUnavailableException("The assertions generation worker has failed to start with exit code "
+                                               + process.exitValue() + ", see its log file " + logFile, null);
+        }
+        if (System.currentTimeMillis() > startTimeout) {
+          process.destroy();
+          throw new WorkerUnavailableException("The assertions generation worker has not started in "
+                                               + START_TIMEOUT_MILLIS + "ms, see its log file " + logFile, null);
+        }
+        Thread.sleep(100);
+        worker = readProperties(workerFile);
+        connection = connect(worker);
+      }
+    }
+    try (Socket socket = connection) {
+      // a worker answers right away and then sends heartbeats, whatever the generation time
+      socket.setSoTimeout(REQUEST_TIMEOUT_MILLIS);
+      ObjectOutputStream request = new ObjectOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+      String challenge = randomString();
+      request.writeUTF(challenge);
+      request.flush();
+      ObjectInputStream response = new ObjectInputStream(new BufferedInputStream(socket.getInputStream()));
+      String token = worker.getProperty(TOKEN);
+      if (!isEqual(proofOf(token, challenge), response.readUTF())) {
+        throw new WorkerUnavailableException("The program listening on the port of the worker file " + workerFile
+                                             + " is not an assertions generation worker", null);
+      }
+      request.writeUTF(token);
+      // the worker runs in another working directory
+      request.writeObject(new GenerationRequest(mojo, projectClasspathElements, threadCount,
+                                                new File("").getAbsolutePath()));
+      request.flush();
+      while (true) {
+        Object message = response.readObject();
+        if (HEARTBEAT.equals(message)) continue;
+        if (message instanceof String) forward((String) message, log);
+        else if (message instanceof AssertionsGeneratorReport) return (AssertionsGeneratorReport) message;
+        else throw new MojoExecutionException("The assertions generation worker has failed", (Throwable) message);
+      }
+    } catch (IOException e) {
+      throw new WorkerUnavailableException("The assertions generation worker has failed or stopped answering, see its "
+                                           + "log file " + logFile, e);
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    new GenerationWorker(new File(args[0]), Long.parseLong(args[1])).serve();
+    System.exit(0);
+  }
+
+  private void serve() throws IOException, InterruptedException {
+    try (ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+      serverSocket.setSoTimeout((int) Math.min(idleTimeoutMillis, IDLE_CHECK_PERIOD_MILLIS));
+      publish(serverSocket.getLocalPort());
+      System.err.println("Assertions generation worker listening on port " + serverSocket.getLocalPort());
+      while (!shouldStop()) {
+        try {
+          final Socket connection = serverSocket.accept();
+          activeRequests.incrementAndGet();
+          Thread requestHandler = new Thread("assertj-assertions-worker-request") {
+            @Override
+            public void run() {
+              try {
+                handle(connection);
+              } finally {
+                lastRequestEndMillis = System.currentTimeMillis();
+                activeRequests.decrementAndGet();
+              }
+            }
+          };
+          requestHandler.start();
+        } catch (SocketTimeoutException e) {
+          // time to check whether the worker should stop
+        }
+      }
+    } finally {
+      if (isPublished()) workerFile.delete();
+    }
+    // new connections are refused from now on, the running generations complete before the worker exits
+    while (activeRequests.get() > 0) {
+      Thread.sleep(IDLE_CHECK_PERIOD_MILLIS / 10);
+    }
+  }
+
+  private boolean shouldStop() {
+    if (!isPublished()) {
+      System.err.println("Stopping as another worker has replaced this one");
+      return true;
+    }
+    if (activeRequests.get() == 0 && System.currentTimeMillis() - lastRequestEndMillis >= idleTimeoutMillis) {
+      System.err.println("Stopping after " + idleTimeoutMillis + "ms without generation");
+      return true;
+    }
+    return false;
+  }
+
+  private void handle(Socket connection) {
+    try (Socket socket = connection) {
+      socket.setSoTimeout(REQUEST_TIMEOUT_MILLIS);
+      final ObjectOutputStream response = new ObjectOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+      ObjectInputStream request = new ObjectInputStream(new BufferedInputStream(socket.getInputStream()));
+      response.writeUTF(proofOf(token, request.readUTF()));
+      response.flush();
+      // nothing is deserialized for clients not knowing the token, i.e. not able to read the worker file
+      if (!isEqual(token, request.readUTF())) return;
+      GenerationRequest generationRequest = (GenerationRequest) request.readObject();
+      Log log = new ForwardedLog(System.err, generationRequest) {
+        @Override
+        void write(String line) {
+          send(line, response);
+        }
+      };
+      Object result;
+      ScheduledFuture<?> heartbeat = heartbeats.scheduleAtFixedRate(new Runnable() {
+        @Override
+        public void run() {
+          send(HEARTBEAT, response);
+        }
+      }, HEARTBEAT_PERIOD_MILLIS, HEARTBEAT_PERIOD_MILLIS, MILLISECONDS);
+      cachesLock.readLock().lock();
+      try {
+        result = ForkedGeneration.generate(generationRequest, log,
+                                           cacheFor(generationRequest.projectClasspathElements));
+      } catch (Exception e) {
+        result = portable(e);
+      } finally {
+        cachesLock.readLock().unlock();
+        heartbeat.cancel(false);
+      }
+      synchronized (response) {
+        response.writeObject(result);
+        response.flush();
+      }
+    } catch (IOException | ClassNotFoundException e) {
+      e.printStackTrace();
+    }
+    releaseCachesAboveMemoryCeiling();
+  }
+
+  private static void send(String message, ObjectOutputStream response) {
+    try {
+      synchronized (response) {
+        response.writeObject(message);
+        response.flush();
+      }
+    } catch (IOException e) {
+      // the client is gone, the generation completes anyway
+    }
+  }
+
+  private SessionCache cacheFor(List<String> projectClasspathElements) {
+    List<String> dependencies = new ArrayList<>();
+    for (String classpathElement : projectClasspathElements) {
+      if (!new File(classpathElement).isDirectory()) dependencies.add(classpathElement);
+    }
+    synchronized (cachesByDependencies) {
+      SessionCache cache = cachesByDependencies.get(dependencies);
+      if (cache == null) {
+        cache = new SessionCache();
+        cachesByDependencies.put(dependencies, cache);
+      }
+      return cache;
+    }
+  }
+
+  private void releaseCachesAboveMemoryCeiling() {
+    long usedHeapAfterCollection = 0;
+    for (MemoryPoolMXBean memoryPool : ManagementFactory.getMemoryPoolMXBeans()) {
+      MemoryUsage collectionUsage = memoryPool.getType() == HEAP ? memoryPool.getCollectionUsage() : null;
+      if (collectionUsage != null) usedHeapAfterCollection += collectionUsage.getUsed();
+    }
+    if (usedHeapAfterCollection < Runtime.getRuntime().maxMemory() * MEMORY_CEILING_RATIO) return;
+    // when generations are running, the caches are released after the next one
+    if (!cachesLock.writeLock().tryLock()) return;
+    try {
+      synchronized (cachesByDependencies) {
+        for (SessionCache cache : cachesByDependencies.values()) {
+          cache.close();
+        }
+        cachesByDependencies.clear();
+      }
+      System.err.println("Cached class loaders released as " + usedHeapAfterCollection
+                         + " bytes of heap were used after the last garbage collection");
+    } finally {
+      cachesLock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Writes the worker file atomically, from a temporary file only readable by its owner (when the file system
+   * supports it) as the token must be.
+   */
+  private void publish(int port) throws IOException {
+    Path workerDirectory = workerFile.getAbsoluteFile().getParentFile().toPath();
+    Path temporaryFile = Files.createTempFile(workerDirectory, workerFile.getName(), ".tmp");
+    Properties worker = new Properties();
+    worker.setProperty(PORT, String.valueOf(port));
+    worker.setProperty(TOKEN, token);
+    try (OutputStream output = Files.newOutputStream(temporaryFile)) {
+      worker.store(output, "AssertJ assertions generation worker");
+    }
+    Files.move(temporaryFile, workerFile.toPath(), ATOMIC_MOVE);
+  }
+
+  private boolean isPublished() {
+    Properties worker = readProperties(workerFile);
+    return worker != null && token.equals(worker.getProperty(TOKEN));
+  }
+
+  private static String randomString() {
+    return new BigInteger(128, new SecureRandom()).toString(Character.MAX_RADIX);
+  }
+
+  /**
+   * What the worker answers to a client challenge to prove it knows the token without revealing it.
+   */
+  private static String proofOf(String token, String challenge) {
+    return Hashing.hmacSha256(token.getBytes(UTF_8)).hashString(challenge, UTF_8).toString();
+  }
+
+  // in constant time, not to tell how much of a guessed secret is right
+  private static boolean isEqual(String secret, String candidate) {
+    return MessageDigest.isEqual(secret.getBytes(UTF_8), candidate.getBytes(UTF_8));
+  }
+
+  private static Process start(File workerFile, File logFile, String pluginClasspath, List<String> jvmArguments,
+                               long idleTimeoutMillis) throws IOException {
+    File workerDirectory = workerFile.getAbsoluteFile().getParentFile();
+    Files.createDirectories(workerDirectory.toPath());
+    List<String> command = new ArrayList<>();
+    command.add(javaExecutable());
+    command.addAll(jvmArguments);
+    command.add("-cp");
+    command.add(pluginClasspath);
+    command.add(GenerationWorker.class.getName());
+    command.add(workerFile.getAbsolutePath());
+    command.add(String.valueOf(idleTimeoutMillis));
+    // the worker outlives the build, it must not keep its directory busy nor write to its output
+    Process process = new ProcessBuilder(command).directory(workerDirectory).redirectErrorStream(true)
+                                                 .redirectOutput(Redirect.appendTo(logFile)).start();
+    process.getOutputStream().close();
+    return process;
+  }
+
+  private static Socket connect(Properties worker) {
+    if (worker == null || worker.getProperty(PORT) == null || worker.getProperty(TOKEN) == null) return null;
+    Socket socket = new Socket();
+    try {
+      socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(worker.getProperty(PORT))),
+                     CONNECT_TIMEOUT_MILLIS);
+      return socket;
+    } catch (IOException | NumberFormatException e) {
+      try {
+        socket.close();
+      } catch (IOException closeError) {
+        // nothing else can be done
+      }
+      return null;
+    }
+  }
+
+  private static Properties readProperties(File workerFile) {
+    if (!workerFile.isFile()) return null;
+    Properties worker = new Properties();
+    try (InputStream input = Files.newInputStream(workerFile.toPath())) {
+      worker.load(input);
+      return worker;
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  private static boolean hasExited(Process process) {
+    try {
+      process.exitValue();
+      return true;
+    } catch (IllegalThreadStateException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Identifies the worker by the java executable, the plugin classpath files (snapshots change without their path
+   * changing) and the JVM arguments.
+   */
+  private static String workerId(String pluginClasspath, List<String> jvmArguments) {
+    Hasher hasher = Hashing.murmur3_128().newHasher();
+    hasher.putString(javaExecutable(), UTF_8);
+    for (String classpathElement : pluginClasspath.split(File.pathSeparator)) {
+      File classpathElementFile = new File(classpathElement);
+      hasher.putString(classpathElement, UTF_8).putLong(classpathElementFile.length())
+            .putLong(classpathElementFile.lastModified());
+    }
+    for (String jvmArgument : jvmArguments) {
+      hasher.putString(jvmArgument, UTF_8);
+    }
+    return hasher.hash().toString();
+  }
+
+  /**
+   * The worker can't be used for this generation, which can be run elsewhere.
+   */
+  static class WorkerUnavailableException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    WorkerUnavailableException(String message, Throwable cause) {
+      super(message, cause);
+    }
+  }
+}
@@ -0,0 +1,57 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * Copyright 2012-2017 the original author or authors.
+ */
+package org.assertj.maven;
+
+import java.io.Writer;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Writes text to the info level of a Maven {@link Log} in chunks of whole lines, so that a large text like the
+ * generation report is logged without being built entirely in memory.
+ * <p>
+ * Each chunk is logged as one message: a text smaller than a chunk is logged exactly as a single message would.
+ */
+class LogWriter extends Writer {
+
+  private static final int CHUNK_SIZE = 64 * 1024;
+
+  private final Log log;
+  private final StringBuilder chunk = new StringBuilder();
+
+  LogWriter(Log log) {
+    this.log = log;
+  }
+
+  @Override
+  public void write(char[] buffer, int offset, int length) {
+    chunk.append(buffer, offset, length);
+    if (chunk.length() < CHUNK_SIZE) return;
+    int lastLineEnd = chunk.lastIndexOf("\n");
+    if (lastLineEnd < 0) return;
+    // the log adds its own line end
+    log.info(chunk.substring(0, lastLineEnd));
+    chunk.delete(0, lastLineEnd + 1);
+  }
+
+  @Override
+  public void flush() {
+    // only whole chunks are logged, the last one on close
+  }
+
+  @Override
+  public void close() {
+    if (chunk.length() > 0) log.info(chunk.toString());
+    chunk.setLength(0);
+  }
+}
@@ -0,0 +1,54 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * Copyright 2012-2017 the original author or authors.
+ */
+package org.assertj.maven;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+
+/**
+ * Loads the classes of the module output directories before looking in its parent (the shared dependencies class
+ * loader) so that they take precedence over dependencies as they do on the module classpath.
+ */
+class ModuleClassLoader extends URLClassLoader {
+
+  static {
+    registerAsParallelCapable();
+  }
+
+  ModuleClassLoader(URL[] moduleDirectories, ClassLoader dependenciesClassLoader) {
+    super(moduleDirectories, dependenciesClassLoader);
+  }
+
+  @Override
+  protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+    synchronized (getClassLoadingLock(name)) {
+      Class<?> loadedClass = findLoadedClass(name);
+      if (loadedClass == null && !name.startsWith("java.")) {
+        try {
+          loadedClass = findClass(name);
+        } catch (ClassNotFoundException e) {
+          // not a module class
+        }
+      }
+      if (loadedClass == null) return super.loadClass(name, resolve);
+      if (resolve) resolveClass(loadedClass);
+      return loadedClass;
+    }
+  }
+
+  @Override
+  public URL getResource(String name) {
+    URL resource = findResource(name);
+    return resource != null ? resource : super.getResource(name);
+  }
+}
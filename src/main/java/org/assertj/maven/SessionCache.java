@@ -0,0 +1,200 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * Copyright 2012-2017 the original author or authors.
+ */
+package org.assertj.maven;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.assertj.core.util.VisibleForTesting;
+import org.assertj.maven.generator.JarIndexes;
+
+/**
+ * Class loaders and jar indexes shared by the plugin executions of a maven session, i.e. by all the modules of a
+ * reactor build, including when they are built in parallel.
+ * <p>
+ * Dependency jars class loaders are chained by common classpath prefix: a module whose dependencies start with the
+ * dependencies of a previous module gets a class loader over its remaining dependencies whose parent is the class
+ * loader of the previous module dependencies. As parents are searched first, classes are looked up in the same order
+ * as with a single class loader over all the dependencies. When modules only share the beginning of their
+ * dependencies, a class loader is created for the shared part so that the next modules starting the same way reuse it.
+ * <p>
+ * Sessions are only weakly referenced: the cache of a session is released (its class loaders closed) once the session
+ * has ended and has been garbage collected, which matters when a JVM is reused for several builds (maven daemon, IDE),
+ * possibly running at the same time.
+ */
+class SessionCache implements Closeable {
+
+  private static final Map<Object, SessionCache> CACHES_BY_SESSION = new WeakHashMap<>();
+  private static final ReferenceQueue<Object> ENDED_SESSIONS = new ReferenceQueue<>();
+  // keeps the references to the sessions until they end so that they are enqueued
+  private static final Set<SessionReference> SESSION_REFERENCES = new HashSet<>();
+  private static Thread endedSessionsCleaner;
+
+  // keys are the parent class loader followed by the dependencies, see key(..)
+  private final Map<List<Object>, URLClassLoader> dependenciesClassLoaders = new LinkedHashMap<>();
+  private final JarIndexes jarIndexes = new JarIndexes();
+  private boolean closed;
+
+  static SessionCache of(Object session) {
+    synchronized (CACHES_BY_SESSION) {
+      SessionCache sessionCache = CACHES_BY_SESSION.get(session);
+      if (sessionCache == null) {
+        sessionCache = new SessionCache();
+        CACHES_BY_SESSION.put(session, sessionCache);
+        SESSION_REFERENCES.add(new SessionReference(session, sessionCache));
+        if (endedSessionsCleaner == null) startEndedSessionsCleaner();
+      }
+      return sessionCache;
+    }
+  }
+
+  private static void startEndedSessionsCleaner() {
+    endedSessionsCleaner = new Thread("assertj-assertions-session-cache-cleaner") {
+      @Override
+      public void run() {
+        while (true) {
+          try {
+            SessionReference endedSession = (SessionReference) ENDED_SESSIONS.remove();
+            synchronized (CACHES_BY_SESSION) {
+              SESSION_REFERENCES.remove(endedSession);
+            }
+            endedSession.sessionCache.close();
+          } catch (InterruptedException e) {
+            return;
+          }
+        }
+      }
+    };
+    endedSessionsCleaner.setDaemon(true);
+    endedSessionsCleaner.start();
+  }
+
+  JarIndexes getJarIndexes() {
+    return jarIndexes;
+  }
+
+  /**
+   * Returns a class loader over the given dependencies (jars) with the given parent, reusing the class loaders
+   * created for the longest common prefix of dependencies.
+   */
+  synchronized ClassLoader dependenciesClassLoader(List<URL> dependencies, ClassLoader parent) {
+    List<Object> key = key(dependencies, parent);
+    URLClassLoader dependenciesClassLoader = dependenciesClassLoaders.get(key);
+    if (dependenciesClassLoader != null) return dependenciesClassLoader;
+    List<Object> longestPrefix = null;
+    int longestCommonPrefixSize = 0;
+    for (List<Object> cachedKey : dependenciesClassLoaders.keySet()) {
+      int commonPrefixSize = commonPrefixSize(cachedKey, key);
+      if (commonPrefixSize == cachedKey.size() && (longestPrefix == null || cachedKey.size() > longestPrefix.size())) {
+        longestPrefix = cachedKey;
+      }
+      longestCommonPrefixSize = Math.max(longestCommonPrefixSize, commonPrefixSize);
+    }
+    // the first key element is the parent class loader
+    int reusedDependenciesCount = longestPrefix == null ? 0 : longestPrefix.size() - 1;
+    ClassLoader prefixClassLoader = longestPrefix == null ? parent : dependenciesClassLoaders.get(longestPrefix);
+    int sharedDependenciesCount = longestCommonPrefixSize - 1;
+    if (sharedDependenciesCount > reusedDependenciesCount && sharedDependenciesCount < dependencies.size()) {
+      // the dependencies shared with another module, for the next modules sharing them too
+      prefixClassLoader = newDependenciesClassLoader(key.subList(0, longestCommonPrefixSize),
+                                                     dependencies.subList(reusedDependenciesCount,
+                                                                          sharedDependenciesCount),
+                                                     prefixClassLoader);
+      reusedDependenciesCount = sharedDependenciesCount;
+    }
+    return newDependenciesClassLoader(key, dependencies.subList(reusedDependenciesCount, dependencies.size()),
+                                      prefixClassLoader);
+  }
+
+  private URLClassLoader newDependenciesClassLoader(List<Object> key, List<URL> dependencies, ClassLoader parent) {
+    URLClassLoader dependenciesClassLoader = new URLClassLoader(dependencies.toArray(new URL[0]), parent);
+    dependenciesClassLoaders.put(new ArrayList<>(key), dependenciesClassLoader);
+    return dependenciesClassLoader;
+  }
+
+  private static int commonPrefixSize(List<Object> key, List<Object> otherKey) {
+    int commonPrefixSize = 0;
+    while (commonPrefixSize < key.size() && commonPrefixSize < otherKey.size()
+           && key.get(commonPrefixSize).equals(otherKey.get(commonPrefixSize))) {
+      commonPrefixSize++;
+    }
+    return commonPrefixSize;
+  }
+
+  /**
+   * Dependencies are identified by their url, size and last modification time so that a jar rebuilt during the
+   * session is not served by a stale class loader.
+   */
+  private static List<Object> key(List<URL> dependencies, ClassLoader parent) {
+    List<Object> key = new ArrayList<>(dependencies.size() + 1);
+    key.add(parent);
+    for (URL dependency : dependencies) {
+      File file = fileOf(dependency);
+      key.add(dependency + File.pathSeparator + file.length() + File.pathSeparator + file.lastModified());
+    }
+    return key;
+  }
+
+  private static File fileOf(URL url) {
+    try {
+      return new File(url.toURI());
+    } catch (URISyntaxException | IllegalArgumentException e) {
+      return new File(url.getPath());
+    }
+  }
+
+  @Override
+  public synchronized void close() {
+    for (URLClassLoader dependenciesClassLoader : dependenciesClassLoaders.values()) {
+      try {
+        dependenciesClassLoader.close();
+      } catch (IOException e) {
+        // best effort, nothing else can be done
+      }
+    }
+    dependenciesClassLoaders.clear();
+    jarIndexes.clear();
+    closed = true;
+  }
+
+  @VisibleForTesting
+  synchronized boolean isClosed() {
+    return closed;
+  }
+
+  /**
+   * A reference to a session enqueued once the session has been garbage collected, holding the cache to release.
+   */
+  private static class SessionReference extends WeakReference<Object> {
+
+    private final SessionCache sessionCache;
+
+    SessionReference(Object session, SessionCache sessionCache) {
+      super(session, ENDED_SESSIONS);
+      this.sessionCache = sessionCache;
+    }
+  }
+}
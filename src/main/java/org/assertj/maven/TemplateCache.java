@@ -0,0 +1,57 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * Copyright 2012-2017 the original author or authors.
+ */
+package org.assertj.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.lang3.CharEncoding;
+import org.assertj.assertions.generator.Template;
+import org.assertj.core.util.Files;
+
+/**
+ * User templates read once per JVM and reused by all the modules using them until their file changes (its size or
+ * last modification time).
+ */
+class TemplateCache {
+
+  private final ConcurrentMap<String, CachedTemplate> cachedTemplates = new ConcurrentHashMap<>();
+
+  Template templateFor(File templateFile, Template.Type type) throws IOException {
+    // the same file could be used for different types of templates
+    String key = type + File.pathSeparator + templateFile.getCanonicalPath();
+    long length = templateFile.length();
+    long lastModified = templateFile.lastModified();
+    CachedTemplate cachedTemplate = cachedTemplates.get(key);
+    if (cachedTemplate != null && cachedTemplate.length == length && cachedTemplate.lastModified == lastModified) {
+      return cachedTemplate.template;
+    }
+    Template template = new Template(type, Files.contentOf(templateFile, CharEncoding.UTF_8));
+    cachedTemplates.put(key, new CachedTemplate(length, lastModified, template));
+    return template;
+  }
+
+  private static class CachedTemplate {
+    private final long length;
+    private final long lastModified;
+    private final Template template;
+
+    CachedTemplate(long length, long lastModified, Template template) {
+      this.length = length;
+      this.lastModified = lastModified;
+      this.template = template;
+    }
+  }
+}
@@ -40,18 +40,21 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
-import org.apache.commons.lang3.CharEncoding;
 import org.assertj.assertions.generator.Template;
-import org.assertj.core.util.Files;
 import org.assertj.core.util.VisibleForTesting;
 import org.assertj.maven.generator.AssertionsGeneratorReport;
 
 import com.google.common.io.CharStreams;
 
-public class Templates {
+// serializable to be sent to a forked generation as part of the mojo parameters
+public class Templates implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+  private static final TemplateCache TEMPLATE_CACHE = new TemplateCache();
 
   public String templatesDirectory;
   // assertion class templates
@@ -80,9 +83,6 @@ public class Templates {
   public String bddEntryPointAssertionMethod;
 
   public List<Template> getTemplates(AssertionsGeneratorReport report) {
-    // resolve user templates directory
-    if (templatesDirectory == null) templatesDirectory = "./";
-    if (!templatesDirectory.endsWith("/")) templatesDirectory += "/";
     // load any templates overridden by the user
     List<Template> userTemplates = new ArrayList<>();
     // @format:off
@@ -114,22 +114,47 @@ public class Templates {
     return userTemplates;
   }
 
+  /**
+   * Returns the files of the templates overridden by the user.
+   */
+  List<File> getTemplateFiles() {
+    List<File> templateFiles = new ArrayList<>();
+    for (String userTemplate : new String[] { assertionClass, hierarchicalAssertionConcreteClass,
+        hierarchicalAssertionAbstractClass, objectAssertion, booleanAssertion, booleanWrapperAssertion, arrayAssertion,
+        iterableAssertion, charAssertion, characterAssertion, realNumberAssertion, realNumberWrapperAssertion,
+        wholeNumberAssertion, wholeNumberWrapperAssertion, assertionsEntryPointClass, assertionEntryPointMethod,
+        softEntryPointAssertionClass, junitSoftEntryPointAssertionClass, softEntryPointAssertionMethod,
+        bddEntryPointAssertionClass, bddEntryPointAssertionMethod }) {
+      if (userTemplate != null) templateFiles.add(new File(templatesDirectory(), userTemplate));
+    }
+    return templateFiles;
+  }
+
   @VisibleForTesting
   void loadUserTemplate(String userTemplate, Template.Type type, String templateDescription,
                         List<Template> userTemplates, AssertionsGeneratorReport report) {
     if (userTemplate != null) {
+      String directory = templatesDirectory();
       try {
-        File templateFile = new File(templatesDirectory, userTemplate);
-        String templateContent = Files.contentOf(templateFile, CharEncoding.UTF_8);
-        userTemplates.add(new Template(type, templateContent));
+        File templateFile = new File(directory, userTemplate);
+        userTemplates.add(TEMPLATE_CACHE.templateFor(templateFile, type));
         report.registerUserTemplate("Using custom template for " + templateDescription + " loaded from "
-                                    + templatesDirectory + userTemplate);
+                                    + directory + userTemplate);
       } catch (@SuppressWarnings("unused") Exception e) {
         // best effort : if we can't read user template, use the default one.
         report.registerUserTemplate("Use default " + templateDescription
                                     + " assertion template as we failed to to read user template from "
-                                    + templatesDirectory + userTemplate);
+                                    + directory + userTemplate);
       }
     }
   }
+
+  /**
+   * The user templates directory ending with a '/', resolved without changing the configured one as it is a parameter
+   * of the mojo.
+   */
+  private String templatesDirectory() {
+    if (templatesDirectory == null) return "./";
+    return templatesDirectory.endsWith("/") ? templatesDirectory : templatesDirectory + "/";
+  }
 }
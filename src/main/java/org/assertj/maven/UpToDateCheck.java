@@ -0,0 +1,155 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * Copyright 2012-2017 the original author or authors.
+ */
+package org.assertj.maven;
+
+import static com.google.common.base.Charsets.UTF_8;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+/**
+ * Fingerprints everything a plugin execution depends on (parameters, templates, plugin version and classpath) and
+ * remembers it along with the files the execution generated, so that the next execution can be skipped when nothing
+ * has changed and the generated files are still there.
+ * <p>
+ * Files are fingerprinted from their path, size and last modification time: class files and jars are never read, the
+ * check only costs a walk of the classpath directories.
+ */
+class UpToDateCheck {
+
+  private static final String HEADER = "# AssertJ assertions generator up to date check - do not edit";
+  private static final String INPUTS_KEY = "@inputs=";
+  private static final char SEPARATOR = ':';
+
+  private final File stateFile;
+  private final Hasher hasher = Hashing.murmur3_128().newHasher();
+  private String inputsFingerprint;
+
+  UpToDateCheck(File stateFile) {
+    this.stateFile = stateFile;
+  }
+
+  UpToDateCheck putParameter(String name, Object value) {
+    // unset parameters are equivalent to empty ones (an unset 'classes' parameter is set empty during the execution)
+    String valueString = value == null ? "" : String.valueOf(value);
+    if (value instanceof Object[]) {
+      Object[] values = (Object[]) value;
+      valueString = values.length == 0 ? "" : Arrays.toString(values);
+    }
+    hasher.putString(name, UTF_8).putChar('=').putString(valueString, UTF_8).putChar('\n');
+    return this;
+  }
+
+  UpToDateCheck putFile(File file) {
+    hasher.putString(file.getAbsolutePath(), UTF_8).putLong(file.length()).putLong(file.lastModified());
+    return this;
+  }
+
+  /**
+   * Directories are fingerprinted from all the class files they contain, in a stable order.
+   */
+  UpToDateCheck putClasspathElement(String classpathElement) throws IOException {
+    File classpathElementFile = new File(classpathElement);
+    if (!classpathElementFile.isDirectory()) return putFile(classpathElementFile);
+    final List<String> classFiles = new ArrayList<>();
+    Files.walkFileTree(classpathElementFile.toPath(), new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+        if (file.toString().endsWith(".class")) {
+          classFiles.add(file + File.pathSeparator + attributes.size() + File.pathSeparator
+                         + attributes.lastModifiedTime().toMillis());
+        }
+        return FileVisitResult.CONTINUE;
+      }
+    });
+    Collections.sort(classFiles);
+    hasher.putString(classpathElementFile.getAbsolutePath(), UTF_8);
+    for (String classFile : classFiles) {
+      hasher.putString(classFile, UTF_8);
+    }
+    return this;
+  }
+
+  /**
+   * Returns true if the inputs have the same fingerprint as when the state was saved and the files generated at that
+   * time have not been changed or deleted since.
+   */
+  boolean isUpToDate() {
+    if (!stateFile.isFile()) return false;
+    try (BufferedReader reader = Files.newBufferedReader(stateFile.toPath(), UTF_8)) {
+      if (!HEADER.equals(reader.readLine()) || !(INPUTS_KEY + inputsFingerprint()).equals(reader.readLine())) {
+        return false;
+      }
+      String generatedFile;
+      while ((generatedFile = reader.readLine()) != null) {
+        // size:lastModified:path
+        int sizeEnd = generatedFile.indexOf(SEPARATOR);
+        int lastModifiedEnd = generatedFile.indexOf(SEPARATOR, sizeEnd + 1);
+        File file = new File(generatedFile.substring(lastModifiedEnd + 1));
+        if (!file.isFile() || !generatedFile.substring(0, lastModifiedEnd).equals(sizeAndLastModifiedOf(file))) {
+          return false;
+        }
+      }
+      return true;
+    } catch (IOException | RuntimeException e) {
+      // best effort : assertions are generated again
+      return false;
+    }
+  }
+
+  /**
+   * Forgets the saved state so that an execution failing half way is not considered up to date.
+   */
+  void invalidate() {
+    stateFile.delete();
+  }
+
+  void save(Collection<File> generatedFiles) throws IOException {
+    File stateDirectory = stateFile.getParentFile();
+    if (stateDirectory != null) Files.createDirectories(stateDirectory.toPath());
+    try (Writer writer = Files.newBufferedWriter(stateFile.toPath(), UTF_8)) {
+      writer.write(HEADER);
+      writer.write('\n');
+      writer.write(INPUTS_KEY + inputsFingerprint());
+      writer.write('\n');
+      for (File generatedFile : generatedFiles) {
+        writer.write(sizeAndLastModifiedOf(generatedFile) + SEPARATOR + generatedFile.getAbsolutePath());
+        writer.write('\n');
+      }
+    }
+  }
+
+  private String inputsFingerprint() {
+    if (inputsFingerprint == null) inputsFingerprint = hasher.hash().toString();
+    return inputsFingerprint;
+  }
+
+  private static String sizeAndLastModifiedOf(File file) {
+    return String.valueOf(file.length()) + SEPARATOR + file.lastModified();
+  }
+}
@@ -0,0 +1,124 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * Copyright 2012-2017 the original author or authors.
+ */
+package org.assertj.maven.generator;
+
+import static com.google.common.io.Files.asByteSource;
+import static java.util.Collections.newSetFromMap;
+import static org.apache.commons.lang3.StringUtils.isEmpty;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.assertj.assertions.generator.AssertionsEntryPointType;
+import org.assertj.assertions.generator.description.ClassDescription;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+/**
+ * Writes the assertions content rendered in memory to the same files {@link org.assertj.assertions.generator.BaseAssertionGenerator}
+ * would have written, but leaves untouched the files whose content has not changed so that they keep their timestamp
+ * and don't get recompiled.
+ */
+class AssertionsFileWriter {
+
+  // same rules as BaseAssertionGenerator to find where files are generated
+  private static final Pattern CLASS_NAME_PATTERN = Pattern.compile("(?m)^public class[\\s]+(?<CLASSNAME>\\p{javaJavaIdentifierStart}\\p{javaJavaIdentifierPart}*)\\b");
+  private static final Comparator<String> ORDER_BY_INCREASING_LENGTH = new Comparator<String>() {
+    @Override
+    public int compare(final String s1, final String s2) {
+      return s1.length() - s2.length();
+    }
+  };
+  private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+  // BaseAssertionGenerator writes files with the platform encoding
+  private static final Charset CHARSET = Charset.defaultCharset();
+
+  private final File targetBaseDirectory;
+  private final String generatedAssertionsPackage;
+  // directories known to exist, a package directory is created on the first write of one of its files
+  private final Set<File> createdDirectories = newSetFromMap(new ConcurrentHashMap<File, Boolean>());
+
+  AssertionsFileWriter(File targetBaseDirectory, String generatedAssertionsPackage) {
+    this.targetBaseDirectory = targetBaseDirectory;
+    this.generatedAssertionsPackage = generatedAssertionsPackage;
+  }
+
+  File assertClassFileFor(ClassDescription classDescription) {
+    return new File(directoryOf(packageOf(classDescription)), classDescription.getAssertClassFilename());
+  }
+
+  File abstractAssertClassFileFor(ClassDescription classDescription) {
+    return new File(directoryOf(packageOf(classDescription)), classDescription.getAbstractAssertClassFilename());
+  }
+
+  File entryPointClassFileFor(Set<ClassDescription> classDescriptions, AssertionsEntryPointType type,
+                              String entryPointClassPackage, String entryPointClassContent) {
+    String entryPointPackage = isEmpty(entryPointClassPackage)
+        ? bestEntryPointClassPackageFor(classDescriptions)
+        : entryPointClassPackage;
+    Matcher classNameMatcher = CLASS_NAME_PATTERN.matcher(entryPointClassContent);
+    String fileName = classNameMatcher.find() ? classNameMatcher.group("CLASSNAME") + ".java" : type.getFileName();
+    return new File(directoryOf(entryPointPackage), fileName);
+  }
+
+  /**
+   * Writes the given content in the given file unless it already has this exact content, files are first compared by
+   * size then by content hash.
+   *
+   * @return true if the file was written, false if it was left unchanged.
+   */
+  boolean writeIfChanged(File file, String content) throws IOException {
+    byte[] bytes = content.getBytes(CHARSET);
+    if (hasContent(file, bytes)) return false;
+    File directory = file.getParentFile();
+    if (!createdDirectories.contains(directory)) {
+      // concurrent creations of the same directories are fine, it is only marked as created once it is
+      Files.createDirectories(directory.toPath());
+      createdDirectories.add(directory);
+    }
+    Files.write(file.toPath(), bytes);
+    return true;
+  }
+
+  private static boolean hasContent(File file, byte[] bytes) throws IOException {
+    if (!file.isFile() || file.length() != bytes.length) return false;
+    return asByteSource(file).hash(HASH_FUNCTION).equals(HASH_FUNCTION.hashBytes(bytes));
+  }
+
+  private String packageOf(ClassDescription classDescription) {
+    return generatedAssertionsPackage == null ? classDescription.getPackageName() : generatedAssertionsPackage;
+  }
+
+  private String bestEntryPointClassPackageFor(Set<ClassDescription> classDescriptions) {
+    if (generatedAssertionsPackage != null) return generatedAssertionsPackage;
+    SortedSet<String> packages = new TreeSet<>(ORDER_BY_INCREASING_LENGTH);
+    for (ClassDescription classDescription : classDescriptions) {
+      packages.add(classDescription.getPackageName());
+    }
+    return packages.first();
+  }
+
+  private File directoryOf(String packageName) {
+    return new File(targetBaseDirectory + File.separator + packageName.replace('.', File.separatorChar));
+  }
+}
@@ -12,29 +12,63 @@
  */
 package org.assertj.maven.generator;
 
+import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static org.assertj.maven.generator.GenerationPhase.ASSERT_CLASSES_REMOVAL;
+import static org.assertj.maven.generator.GenerationPhase.CLASS_COLLECTION;
+import static org.assertj.maven.generator.GenerationPhase.DESCRIPTION_CONVERSION;
+import static org.assertj.maven.generator.GenerationPhase.ENTRY_POINT_GENERATION;
+import static org.assertj.maven.generator.GenerationPhase.FILE_WRITES;
+import static org.assertj.maven.generator.GenerationPhase.FINGERPRINTING;
+import static org.assertj.maven.generator.GenerationPhase.INCLUDE_EXCLUDE_FILTERING;
+import static org.assertj.maven.generator.GenerationPhase.PLANNING;
+import static org.assertj.maven.generator.GenerationPhase.RENDERING;
 import static com.google.common.collect.Sets.newLinkedHashSet;
-import static org.apache.commons.collections.CollectionUtils.subtract;
 import static org.apache.commons.lang3.ArrayUtils.addAll;
-import static org.assertj.assertions.generator.util.ClassUtil.collectClasses;
+import static org.apache.commons.lang3.StringUtils.isEmpty;
 import static org.assertj.core.util.Arrays.isNullOrEmpty;
 import static org.assertj.core.util.Sets.newHashSet;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.regex.Pattern;
 
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import com.google.common.reflect.TypeToken;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.maven.plugin.logging.Log;
 import org.assertj.assertions.generator.AssertionsEntryPointType;
 import org.assertj.assertions.generator.BaseAssertionGenerator;
 import org.assertj.assertions.generator.Template;
 import org.assertj.assertions.generator.description.ClassDescription;
-import org.assertj.assertions.generator.description.converter.ClassToClassDescriptionConverter;
 import org.assertj.core.util.VisibleForTesting;
+import org.assertj.maven.NoLog;
 import org.assertj.maven.Templates;
+import org.assertj.maven.generator.AssertionsGeneratorReport.PhaseTime;
 
 /**
  * Is able to generate AssertJ assertions classes from packages.
@@ -42,21 +76,40 @@ import org.assertj.maven.Templates;
 public class AssertionsGenerator {
 
   private static final Pattern INCLUDE_EVERYTHING = Pattern.compile(".*");
-  private ClassToClassDescriptionConverter converter;
+  // number of classes rendered in memory by a dry run to estimate the size and time of the whole generation
+  private static final int PLAN_SAMPLE_SIZE = 10;
+  private static final ThreadFactory GENERATOR_THREAD_FACTORY = new ThreadFactoryBuilder().setDaemon(true)
+                                                                                          .setNameFormat("assertj-assertions-generator-%d")
+                                                                                          .build();
   private ClassLoader classLoader;
   private BaseAssertionGenerator generator;
   private Pattern[] includePatterns;
   private Pattern[] excludePatterns;
   private Log log;
   private Set<AssertionsEntryPointType> assertionsEntryPointToGenerate;
+  private boolean generateAssertionsForAllFields;
+  private String generatedAssertionsPackage;
+  private File incrementalStateFile;
+  private boolean writeOnlyChangedFiles;
+  private boolean pruneStaleFiles;
+  private boolean entryPointsPerPackage;
+  private boolean entryPointsFacade;
+  private int threads = 1;
+  private int writeQueueSize;
+  private boolean dryRun;
+  private File jarIndexCacheDirectory;
+  private JarIndexes sharedJarIndexes;
+  private List<File> generatorCodeFiles = new ArrayList<>();
+  private Set<String> changedClassNames;
+  private final Map<GenerationPhase, PhaseTime> phaseTimesBeforeGeneration = new EnumMap<>(GenerationPhase.class);
 
   public AssertionsGenerator(ClassLoader classLoader) throws IOException {
     this.generator = new BaseAssertionGenerator();
-    this.converter = new ClassToClassDescriptionConverter();
     this.classLoader = classLoader;
     this.includePatterns = new Pattern[] { INCLUDE_EVERYTHING };
     this.excludePatterns = new Pattern[0];
     this.assertionsEntryPointToGenerate = newHashSet();
+    this.log = new NoLog();
   }
 
   public void setIncludePatterns(String[] includeRegexs) {
@@ -98,62 +151,584 @@ public class AssertionsGenerator {
     generator.setDirectoryWhereAssertionFilesAreGenerated(new File(destDir));
     AssertionsGeneratorReport report = new AssertionsGeneratorReport();
     report.setDirectoryPathWhereAssertionFilesAreGenerated(destDir);
-    registerUserTemplates(userTemplates, report);
-    Set<ClassDescription> classDescriptions = new HashSet<>();
+    List<Template> templates = registerUserTemplates(userTemplates, report);
+    // sorted once for all the entry point classes
+    SortedSet<ClassDescription> classDescriptions = new TreeSet<>();
     report.setInputPackages(inputPackages);
     report.setInputClasses(inputClassNames);
+    for (Map.Entry<GenerationPhase, PhaseTime> phaseTime : phaseTimesBeforeGeneration.entrySet()) {
+      report.reportPhaseTime(phaseTime.getKey(), phaseTime.getValue().getWallTimeNanos(),
+                             phaseTime.getValue().getCpuTimeNanos());
+    }
+    resetHeapPeakUsage();
     try {
-      Set<TypeToken<?>> classes = collectClasses(classLoader, includePackagePrivateClasses, addAll(inputPackages, inputClassNames));
-      report.reportInputClassesNotFound(classes, inputClassNames);
-      Set<TypeToken<?>> filteredClasses = removeAssertClasses(classes);
-      removeClassesAccordingToIncludeAndExcludePatterns(filteredClasses);
-      report.setExcludedClassesFromAssertionGeneration(subtract(classes, filteredClasses));
-      if (hierarchical) {
-        for (TypeToken<?> clazz : filteredClasses) {
-          ClassDescription classDescription = converter.convertToClassDescription(clazz);
-          File[] generatedCustomAssertionFiles = generator.generateHierarchicalCustomAssertionFor(classDescription,
-                                                                                                  filteredClasses);
-          report.addGeneratedAssertionFile(generatedCustomAssertionFiles[0]);
-          report.addGeneratedAssertionFile(generatedCustomAssertionFiles[1]);
-          classDescriptions.add(classDescription);
+      PhaseTimer timer = PhaseTimer.start();
+      // classes are filtered from their class file before being loaded, the excluded ones are never loaded
+      JarIndexCache jarIndexCache = jarIndexCacheDirectory == null && sharedJarIndexes == null ? null
+          : new JarIndexCache(jarIndexCacheDirectory, sharedJarIndexes);
+      ClassFileScanner classFileScanner = new ClassFileScanner(classLoader, jarIndexCache);
+      String configurationFingerprint = configurationFingerprint(hierarchical, templates);
+      IncrementalGenerationState previousState = loadIncrementalState(destDir, configurationFingerprint);
+      boolean onlyChangedClasses = changedClassNames != null && previousState != null
+                                   && previousState.hasSameConfiguration();
+      Set<String> classNames = onlyChangedClasses
+          ? classNamesAfterChanges(classFileScanner, previousState, includePackagePrivateClasses,
+                                   addAll(inputPackages, inputClassNames))
+          : classFileScanner.collectClassNames(includePackagePrivateClasses, addAll(inputPackages, inputClassNames));
+      if (jarIndexCache != null) {
+        report.reportJarIndexCache(jarIndexCache.getReusedIndexesCount(), jarIndexCache.getBuiltIndexesCount(),
+                                   jarIndexCache.getSavedMillis());
+      }
+      report.reportInputClassNamesNotFound(classNames, inputClassNames);
+      report.setFoundClassesCount(classNames.size());
+      reportPhaseTime(report, CLASS_COLLECTION, timer);
+      Set<String> filteredClassNames = removeAssertClasses(classNames);
+      reportPhaseTime(report, ASSERT_CLASSES_REMOVAL, timer);
+      removeClassesAccordingToIncludeAndExcludePatterns(filteredClassNames);
+      report.setExcludedClassNamesFromAssertionGeneration(excludedClassNames(classNames, filteredClassNames));
+      reportPhaseTime(report, INCLUDE_EXCLUDE_FILTERING, timer);
+      Set<TypeToken<?>> filteredClasses = loadClasses(filteredClassNames);
+      reportPhaseTime(report, CLASS_COLLECTION, timer);
+      HierarchyIndex hierarchyIndex = new HierarchyIndex(filteredClasses);
+      IncrementalGenerationState currentState = new IncrementalGenerationState(new File(destDir),
+                                                                               configurationFingerprint);
+      ClassFingerprinter fingerprinter = new ClassFingerprinter(classLoader);
+      AssertionsFileWriter fileWriter = writeOnlyChangedFiles
+          ? new AssertionsFileWriter(new File(destDir), generatedAssertionsPackage)
+          : null;
+      List<TypeToken<?>> classesToGenerate = new ArrayList<>(filteredClasses.size());
+      List<String> fingerprints = new ArrayList<>(filteredClasses.size());
+      for (TypeToken<?> clazz : filteredClasses) {
+        String className = clazz.getRawType().getName();
+        // the classes depending on a changed class are the ones whose fingerprint may have changed
+        boolean unchanged = onlyChangedClasses && !fingerprinter.dependsOnOneOf(clazz, changedClassNames)
+                            && previousState.isUpToDate(className);
+        String fingerprint = previousState == null || unchanged ? null
+            : fingerprinter.fingerprintOf(clazz, hierarchyIndex, hierarchical);
+        if (unchanged || previousState != null && previousState.isUpToDate(className, fingerprint)) {
+          // entry points only need the class names, no need to introspect the class again
+          classDescriptions.add(new EntryPointClassDescription(clazz));
+          currentState.copy(className, previousState);
+          report.reportUpToDateClass();
+          continue;
         }
-      } else {
-        for (TypeToken<?> clazz : filteredClasses) {
-          ClassDescription classDescription = converter.convertToClassDescription(clazz);
-          File generatedCustomAssertionFile = generator.generateCustomAssertionFor(classDescription);
-          report.addGeneratedAssertionFile(generatedCustomAssertionFile);
-          classDescriptions.add(classDescription);
+        classesToGenerate.add(clazz);
+        fingerprints.add(fingerprint);
+      }
+      if (previousState != null) reportPhaseTime(report, FINGERPRINTING, timer);
+      if (dryRun) {
+        planGeneration(filteredClassNames, classesToGenerate, fingerprints, classDescriptions, hierarchyIndex,
+                       hierarchical, previousState, currentState, new File(destDir), entryPointFilePackage, report);
+        reportPhaseTime(report, PLANNING, timer);
+        report.setPeakHeapUsedBytes(heapPeakUsage());
+        return report;
+      }
+      CachingClassDescriptionConverter converter = new CachingClassDescriptionConverter();
+      AsyncAssertionsFileWriter asyncFileWriter = fileWriter != null && writeQueueSize > 0
+          ? new AsyncAssertionsFileWriter(fileWriter, writeQueueSize)
+          : null;
+      try {
+        List<GeneratedCustomAssertion> generatedCustomAssertions = generateCustomAssertionsFor(classesToGenerate,
+                                                                                               converter,
+                                                                                               hierarchyIndex,
+                                                                                               hierarchical,
+                                                                                               fileWriter,
+                                                                                               asyncFileWriter);
+        // results are processed in the classes order whatever the number of threads used to generate them
+        for (int i = 0; i < generatedCustomAssertions.size(); i++) {
+          GeneratedCustomAssertion generatedCustomAssertion = generatedCustomAssertions.get(i);
+          generatedCustomAssertion.awaitWrites();
+          for (int j = 0; j < generatedCustomAssertion.files.length; j++) {
+            if (generatedCustomAssertion.written[j]) report.addGeneratedAssertionFile(generatedCustomAssertion.files[j]);
+            else report.addUnchangedAssertionFile(generatedCustomAssertion.files[j]);
+          }
+          classDescriptions.add(new EntryPointClassDescription(classesToGenerate.get(i)));
+          long classGenerationTime = 0;
+          for (Map.Entry<GenerationPhase, PhaseTime> phaseTime : generatedCustomAssertion.phaseTimes.entrySet()) {
+            report.reportPhaseTime(phaseTime.getKey(), phaseTime.getValue().getWallTimeNanos(),
+                                   phaseTime.getValue().getCpuTimeNanos());
+            classGenerationTime += phaseTime.getValue().getWallTimeNanos();
+          }
+          report.reportClassGenerationTime(classesToGenerate.get(i).getRawType().getName(), classGenerationTime);
+          if (previousState != null) {
+            currentState.record(classesToGenerate.get(i).getRawType().getName(), fingerprints.get(i),
+                                generatedCustomAssertion.files);
+            report.reportRegeneratedClass();
+          }
+        }
+        if (asyncFileWriter != null) {
+          report.reportPhaseTime(FILE_WRITES, asyncFileWriter.getWallTimeNanos(), asyncFileWriter.getCpuTimeNanos());
         }
+      } finally {
+        if (asyncFileWriter != null) asyncFileWriter.close();
       }
-
-      for (AssertionsEntryPointType assertionsEntryPointType : assertionsEntryPointToGenerate) {
-        File assertionsEntryPointFile = generator.generateAssertionsEntryPointClassFor(classDescriptions,
-                                                                                       assertionsEntryPointType,
-                                                                                       entryPointFilePackage);
-        report.reportEntryPointGeneration(assertionsEntryPointType, assertionsEntryPointFile);
+      report.reportDescriptionCache(converter.getReusedDescriptionsCount(), converter.getBuiltDescriptionsCount());
+      timer.restart();
+      List<EntryPointClass> entryPointClasses = entryPointsPerPackage
+          ? entryPointClassesPerPackageFor(classDescriptions, entryPointFilePackage)
+          : entryPointClassesFor(classDescriptions, entryPointFilePackage);
+      generateAssertionsEntryPointClasses(entryPointClasses, fileWriter, report);
+      reportPhaseTime(report, ENTRY_POINT_GENERATION, timer);
+      if (previousState != null) {
+        report.setRemovedClassesCount(removedClassesCount(previousState, currentState));
+        if (pruneStaleFiles) pruneStaleFiles(previousState, currentState, new File(destDir), report);
+        currentState.save(incrementalStateFile);
       }
     } catch (Exception e) {
       report.setException(e);
     }
+    report.setPeakHeapUsedBytes(heapPeakUsage());
     return report;
   }
 
-  private void registerUserTemplates(Templates userTemplates, AssertionsGeneratorReport report) {
-    if (userTemplates == null) return;
+  /**
+   * Reports what the generation would do without generating, writing nor deleting anything: the classes assertions
+   * would be generated for, the files that would be created, generated again or deleted and an estimate of the
+   * generation extrapolated from a few classes rendered in memory.
+   */
+  private void planGeneration(Set<String> filteredClassNames, List<TypeToken<?>> classesToGenerate,
+                              List<String> fingerprints, SortedSet<ClassDescription> classDescriptions,
+                              HierarchyIndex hierarchyIndex, boolean hierarchical,
+                              IncrementalGenerationState previousState, IncrementalGenerationState currentState,
+                              File destDir, String entryPointFilePackage,
+                              AssertionsGeneratorReport report) throws IOException {
+    report.reportGenerationPlan(new ArrayList<>(filteredClassNames));
+    // only used to locate files, the same ones the base generator writes to
+    AssertionsFileWriter fileLocator = new AssertionsFileWriter(destDir, generatedAssertionsPackage);
+    for (int i = 0; i < classesToGenerate.size(); i++) {
+      TypeToken<?> clazz = classesToGenerate.get(i);
+      EntryPointClassDescription classDescription = new EntryPointClassDescription(clazz);
+      File[] files = hierarchical
+          ? new File[] { fileLocator.abstractAssertClassFileFor(classDescription),
+                         fileLocator.assertClassFileFor(classDescription) }
+          : new File[] { fileLocator.assertClassFileFor(classDescription) };
+      for (File file : files) {
+        report.reportPlannedFile(file);
+      }
+      classDescriptions.add(classDescription);
+      if (previousState != null) currentState.record(clazz.getRawType().getName(), fingerprints.get(i), files);
+    }
+    List<EntryPointClass> entryPointClasses = entryPointsPerPackage
+        ? entryPointClassesPerPackageFor(classDescriptions, entryPointFilePackage)
+        : entryPointClassesFor(classDescriptions, entryPointFilePackage);
+    for (EntryPointClass entryPointClass : entryPointClasses) {
+      if (entryPointClass.classDescriptions.isEmpty()) continue;
+      // without rendering, entry points are expected to have the default name of their type
+      report.reportPlannedFile(fileLocator.entryPointClassFileFor(entryPointClass.classDescriptions,
+                                                                  entryPointClass.type,
+                                                                  entryPointClass.entryPointPackage, ""));
+    }
+    if (previousState != null) {
+      report.setRemovedClassesCount(removedClassesCount(previousState, currentState));
+      if (pruneStaleFiles) {
+        for (File staleFile : staleFilesOf(previousState, currentState, destDir)) {
+          report.reportPlannedDeletion(staleFile);
+        }
+      }
+    }
+    estimateGeneration(classesToGenerate, hierarchyIndex, hierarchical, report);
+  }
+
+  /**
+   * Renders in memory up to {@link #PLAN_SAMPLE_SIZE} classes evenly spread over the classes to generate and
+   * extrapolates the size of the generated sources and the time to convert and render all the classes.
+   */
+  private void estimateGeneration(List<TypeToken<?>> classesToGenerate, HierarchyIndex hierarchyIndex,
+                                  boolean hierarchical, AssertionsGeneratorReport report) {
+    if (classesToGenerate.isEmpty()) return;
+    int sampleSize = Math.min(PLAN_SAMPLE_SIZE, classesToGenerate.size());
+    CachingClassDescriptionConverter converter = new CachingClassDescriptionConverter();
+    long sampledChars = 0;
+    PhaseTimer timer = PhaseTimer.start();
+    for (int i = 0; i < sampleSize; i++) {
+      TypeToken<?> clazz = classesToGenerate.get((int) ((long) i * classesToGenerate.size() / sampleSize));
+      ClassDescription classDescription = converter.convertToClassDescription(clazz);
+      if (hierarchical) {
+        Set<TypeToken<?>> generatedSuperType = hierarchyIndex.generatedSuperTypeOf(clazz.getRawType());
+        for (String content : generator.generateHierarchicalCustomAssertionContentFor(classDescription,
+                                                                                      generatedSuperType)) {
+          sampledChars += content.length();
+        }
+      } else {
+        sampledChars += generator.generateCustomAssertionContentFor(classDescription).length();
+      }
+    }
+    long sampledMillis = timer.wallTimeNanos() / 1_000_000;
+    report.reportGenerationEstimate(sampleSize, sampledChars * classesToGenerate.size() / sampleSize,
+                                    sampledMillis * classesToGenerate.size() / sampleSize);
+  }
+
+  private static void resetHeapPeakUsage() {
+    for (MemoryPoolMXBean memoryPool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (memoryPool.getType() == MemoryType.HEAP && memoryPool.isValid()) memoryPool.resetPeakUsage();
+    }
+  }
+
+  /**
+   * Sum of the heap memory pools peak usages, an upper bound of the actual peak as pools may peak at different times.
+   */
+  private static long heapPeakUsage() {
+    long heapPeakUsage = 0;
+    for (MemoryPoolMXBean memoryPool : ManagementFactory.getMemoryPoolMXBeans()) {
+      MemoryUsage peakUsage = memoryPool.getType() == MemoryType.HEAP ? memoryPool.getPeakUsage() : null;
+      if (peakUsage != null) heapPeakUsage += peakUsage.getUsed();
+    }
+    return heapPeakUsage;
+  }
+
+  /**
+   * Converts and renders the given classes using the configured number of threads, the returned list follows the
+   * order of the given classes.
+   */
+  private List<GeneratedCustomAssertion> generateCustomAssertionsFor(List<TypeToken<?>> classesToGenerate,
+                                                                     final CachingClassDescriptionConverter converter,
+                                                                     final HierarchyIndex hierarchyIndex,
+                                                                     final boolean hierarchical,
+                                                                     final AssertionsFileWriter fileWriter,
+                                                                     final AsyncAssertionsFileWriter asyncFileWriter) throws Exception {
+    ExecutorService executor = threads > 1 ? newFixedThreadPool(threads, GENERATOR_THREAD_FACTORY)
+        : newDirectExecutorService();
+    try {
+      List<Future<GeneratedCustomAssertion>> futures = new ArrayList<>(classesToGenerate.size());
+      for (final TypeToken<?> clazz : classesToGenerate) {
+        futures.add(executor.submit(new Callable<GeneratedCustomAssertion>() {
+          @Override
+          public GeneratedCustomAssertion call() throws Exception {
+            Map<GenerationPhase, PhaseTime> phaseTimes = new EnumMap<>(GenerationPhase.class);
+            PhaseTimer timer = PhaseTimer.start();
+            ClassDescription classDescription = converter.convertToClassDescription(clazz);
+            recordPhaseTime(phaseTimes, DESCRIPTION_CONVERSION, timer);
+            Set<TypeToken<?>> generatedSuperType = hierarchyIndex.generatedSuperTypeOf(clazz.getRawType());
+            return generateCustomAssertionFilesFor(classDescription, generatedSuperType, hierarchical, fileWriter,
+                                                   asyncFileWriter, phaseTimes, timer);
+          }
+        }));
+      }
+      List<GeneratedCustomAssertion> generatedCustomAssertions = new ArrayList<>(futures.size());
+      for (Future<GeneratedCustomAssertion> future : futures) {
+        generatedCustomAssertions.add(resultOf(future));
+      }
+      return generatedCustomAssertions;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static <T> T resultOf(Future<T> future) throws Exception {
+    try {
+      return future.get();
+    } catch (ExecutionException e) {
+      // report the original error as if the generation had been done in the current thread
+      Throwable cause = e.getCause();
+      if (cause instanceof Exception) throw (Exception) cause;
+      if (cause instanceof Error) throw (Error) cause;
+      throw e;
+    }
+  }
+
+  private GeneratedCustomAssertion generateCustomAssertionFilesFor(ClassDescription classDescription,
+                                                                   Set<TypeToken<?>> generatedSuperType,
+                                                                   boolean hierarchical,
+                                                                   AssertionsFileWriter fileWriter,
+                                                                   AsyncAssertionsFileWriter asyncFileWriter,
+                                                                   Map<GenerationPhase, PhaseTime> phaseTimes,
+                                                                   PhaseTimer timer) throws IOException,
+                                                                                     InterruptedException {
+    if (fileWriter == null) {
+      File[] generatedCustomAssertionFiles = hierarchical
+          ? generator.generateHierarchicalCustomAssertionFor(classDescription, generatedSuperType)
+          : new File[] { generator.generateCustomAssertionFor(classDescription) };
+      // the base generator writes the files as it renders them
+      recordPhaseTime(phaseTimes, RENDERING, timer);
+      return new GeneratedCustomAssertion(generatedCustomAssertionFiles, phaseTimes);
+    }
+    if (hierarchical) {
+      String[] contents = generator.generateHierarchicalCustomAssertionContentFor(classDescription,
+                                                                                  generatedSuperType);
+      recordPhaseTime(phaseTimes, RENDERING, timer);
+      File[] files = { fileWriter.abstractAssertClassFileFor(classDescription),
+                       fileWriter.assertClassFileFor(classDescription) };
+      return write(files, contents, fileWriter, asyncFileWriter, phaseTimes, timer);
+    }
+    String content = generator.generateCustomAssertionContentFor(classDescription);
+    recordPhaseTime(phaseTimes, RENDERING, timer);
+    File[] files = { fileWriter.assertClassFileFor(classDescription) };
+    return write(files, new String[] { content }, fileWriter, asyncFileWriter, phaseTimes, timer);
+  }
+
+  /**
+   * Writes the rendered contents in the current thread or hands them over to the writer stage when there is one.
+   */
+  private static GeneratedCustomAssertion write(File[] files, String[] contents, AssertionsFileWriter fileWriter,
+                                                AsyncAssertionsFileWriter asyncFileWriter,
+                                                Map<GenerationPhase, PhaseTime> phaseTimes,
+                                                PhaseTimer timer) throws IOException, InterruptedException {
+    if (asyncFileWriter != null) {
+      List<Future<Boolean>> pendingWrites = new ArrayList<>(files.length);
+      for (int i = 0; i < files.length; i++) {
+        pendingWrites.add(asyncFileWriter.writeIfChanged(files[i], contents[i]));
+      }
+      // the writes are timed by the writer stage
+      timer.restart();
+      return new GeneratedCustomAssertion(files, pendingWrites, phaseTimes);
+    }
+    boolean[] written = new boolean[files.length];
+    for (int i = 0; i < files.length; i++) {
+      written[i] = fileWriter.writeIfChanged(files[i], contents[i]);
+    }
+    recordPhaseTime(phaseTimes, FILE_WRITES, timer);
+    return new GeneratedCustomAssertion(files, written, phaseTimes);
+  }
+
+  private static void recordPhaseTime(Map<GenerationPhase, PhaseTime> phaseTimes, GenerationPhase phase,
+                                      PhaseTimer timer) {
+    phaseTimes.put(phase, new PhaseTime(timer.wallTimeNanos(), timer.cpuTimeNanos()));
+    timer.restart();
+  }
+
+  private static void reportPhaseTime(AssertionsGeneratorReport report, GenerationPhase phase, PhaseTimer timer) {
+    report.reportPhaseTime(phase, timer.wallTimeNanos(), timer.cpuTimeNanos());
+    timer.restart();
+  }
+
+  private List<EntryPointClass> entryPointClassesFor(SortedSet<ClassDescription> classDescriptions,
+                                                    String entryPointFilePackage) {
+    List<EntryPointClass> entryPointClasses = new ArrayList<>();
+    for (AssertionsEntryPointType assertionsEntryPointType : assertionsEntryPointToGenerate) {
+      entryPointClasses.add(new EntryPointClass(classDescriptions, assertionsEntryPointType, entryPointFilePackage,
+                                                false));
+    }
+    return entryPointClasses;
+  }
+
+  /**
+   * Entry point classes of each package from the classes of this package only, so that a change in a package only
+   * leads to generate and compile its own entry points again.
+   * <p>
+   * The optional facade is the usual entry point class for all the classes, generated in the entry point package; it
+   * also serves as the entry point of this package classes.
+   */
+  private List<EntryPointClass> entryPointClassesPerPackageFor(SortedSet<ClassDescription> classDescriptions,
+                                                              String entryPointFilePackage) {
+    List<EntryPointClass> entryPointClasses = new ArrayList<>();
+    if (classDescriptions.isEmpty()) return entryPointClasses;
+    String facadePackage = entryPointsFacade ? facadePackageOf(classDescriptions, entryPointFilePackage) : null;
+    Map<String, SortedSet<ClassDescription>> classDescriptionsByPackage = new TreeMap<>();
+    for (ClassDescription classDescription : classDescriptions) {
+      String assertionsPackage = generatedAssertionsPackage == null ? classDescription.getPackageName()
+          : generatedAssertionsPackage;
+      SortedSet<ClassDescription> packageClassDescriptions = classDescriptionsByPackage.get(assertionsPackage);
+      if (packageClassDescriptions == null) {
+        packageClassDescriptions = new TreeSet<>();
+        classDescriptionsByPackage.put(assertionsPackage, packageClassDescriptions);
+      }
+      packageClassDescriptions.add(classDescription);
+    }
+    for (AssertionsEntryPointType assertionsEntryPointType : assertionsEntryPointToGenerate) {
+      if (facadePackage != null) {
+        entryPointClasses.add(new EntryPointClass(classDescriptions, assertionsEntryPointType, facadePackage, false));
+      }
+      for (Map.Entry<String, SortedSet<ClassDescription>> packageClassDescriptions : classDescriptionsByPackage.entrySet()) {
+        if (packageClassDescriptions.getKey().equals(facadePackage)) continue;
+        entryPointClasses.add(new EntryPointClass(packageClassDescriptions.getValue(), assertionsEntryPointType,
+                                                  packageClassDescriptions.getKey(), true));
+      }
+    }
+    return entryPointClasses;
+  }
+
+  /**
+   * The given entry point package if any, the package of all the generated assertions if set or the shortest package of
+   * the given classes.
+   */
+  private String facadePackageOf(Set<ClassDescription> classDescriptions, String entryPointFilePackage) {
+    if (!isEmpty(entryPointFilePackage)) return entryPointFilePackage;
+    if (generatedAssertionsPackage != null) return generatedAssertionsPackage;
+    String facadePackage = null;
+    for (ClassDescription classDescription : classDescriptions) {
+      String packageName = classDescription.getPackageName();
+      if (facadePackage == null || packageName.length() < facadePackage.length()
+          || (packageName.length() == facadePackage.length() && packageName.compareTo(facadePackage) < 0)) {
+        facadePackage = packageName;
+      }
+    }
+    return facadePackage;
+  }
+
+  /**
+   * Renders and writes the given entry point classes with the configured number of threads, they are independent from
+   * each other and share the same sorted class descriptions. They are reported in the given order.
+   */
+  private void generateAssertionsEntryPointClasses(List<EntryPointClass> entryPointClasses,
+                                                   final AssertionsFileWriter fileWriter,
+                                                   AssertionsGeneratorReport report) throws Exception {
+    ExecutorService executor = threads > 1 && entryPointClasses.size() > 1
+        ? newFixedThreadPool(Math.min(threads, entryPointClasses.size()), GENERATOR_THREAD_FACTORY)
+        : newDirectExecutorService();
+    try {
+      List<Future<File>> futures = new ArrayList<>(entryPointClasses.size());
+      for (final EntryPointClass entryPointClass : entryPointClasses) {
+        futures.add(executor.submit(new Callable<File>() {
+          @Override
+          public File call() throws Exception {
+            return generateAssertionsEntryPointClassFor(entryPointClass, fileWriter);
+          }
+        }));
+      }
+      for (int i = 0; i < futures.size(); i++) {
+        EntryPointClass entryPointClass = entryPointClasses.get(i);
+        File assertionsEntryPointFile = resultOf(futures.get(i));
+        if (assertionsEntryPointFile == null) continue;
+        if (entryPointClass.packageEntryPoint) {
+          if (entryPointClass.written) report.reportPackageEntryPointGeneration(assertionsEntryPointFile);
+          else report.reportUnchangedPackageEntryPoint(assertionsEntryPointFile);
+        } else if (entryPointClass.written) {
+          report.reportEntryPointGeneration(entryPointClass.type, assertionsEntryPointFile);
+        } else {
+          report.reportUnchangedEntryPoint(entryPointClass.type, assertionsEntryPointFile);
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private File generateAssertionsEntryPointClassFor(EntryPointClass entryPointClass,
+                                                    AssertionsFileWriter fileWriter) throws IOException {
+    if (fileWriter == null) {
+      entryPointClass.written = true;
+      return generator.generateAssertionsEntryPointClassFor(entryPointClass.classDescriptions, entryPointClass.type,
+                                                            entryPointClass.entryPointPackage);
+    }
+    if (entryPointClass.classDescriptions.isEmpty()) return null;
+    String content = generator.generateAssertionsEntryPointClassContentFor(entryPointClass.classDescriptions,
+                                                                           entryPointClass.type,
+                                                                           entryPointClass.entryPointPackage);
+    File assertionsEntryPointFile = fileWriter.entryPointClassFileFor(entryPointClass.classDescriptions,
+                                                                      entryPointClass.type,
+                                                                      entryPointClass.entryPointPackage, content);
+    entryPointClass.written = fileWriter.writeIfChanged(assertionsEntryPointFile, content);
+    return assertionsEntryPointFile;
+  }
+
+  private IncrementalGenerationState loadIncrementalState(String destDir, String configurationFingerprint) {
+    if (incrementalStateFile == null) return null;
+    return IncrementalGenerationState.load(incrementalStateFile, new File(destDir), configurationFingerprint);
+  }
+
+  /**
+   * Fingerprints everything besides the classes themselves that has an impact on the generated assertions, if any of
+   * it changes all assertions have to be generated again.
+   */
+  private String configurationFingerprint(boolean hierarchical, List<Template> templates) {
+    Hasher hasher = Hashing.murmur3_128().newHasher();
+    hasher.putString(String.valueOf(BaseAssertionGenerator.class.getPackage().getImplementationVersion()), UTF_8);
+    hasher.putString(String.valueOf(AssertionsGenerator.class.getPackage().getImplementationVersion()), UTF_8);
+    for (File generatorCodeFile : generatorCodeFiles) {
+      hasher.putString(generatorCodeFile.getAbsolutePath(), UTF_8).putLong(generatorCodeFile.length())
+            .putLong(generatorCodeFile.lastModified());
+    }
+    hasher.putBoolean(hierarchical);
+    hasher.putBoolean(generateAssertionsForAllFields);
+    hasher.putString(String.valueOf(generatedAssertionsPackage), UTF_8);
+    for (Template template : templates) {
+      hasher.putString(template.getType().name(), UTF_8);
+      hasher.putString(template.getContent(), UTF_8);
+    }
+    return hasher.hash().toString();
+  }
+
+  /**
+   * The classes of the previous generation, minus the changed ones that are not found anymore, plus the changed ones
+   * that are found, only reading the class files of the changed classes.
+   */
+  private Set<String> classNamesAfterChanges(ClassFileScanner classFileScanner,
+                                             IncrementalGenerationState previousState,
+                                             boolean includePackagePrivateClasses,
+                                             String... packagesOrClasses) throws IOException {
+    Set<String> classNames = newLinkedHashSet(previousState.getClassNames());
+    classNames.removeAll(changedClassNames);
+    classNames.addAll(classFileScanner.collectChangedClassNames(changedClassNames, includePackagePrivateClasses,
+                                                                packagesOrClasses));
+    return classNames;
+  }
+
+  private static int removedClassesCount(IncrementalGenerationState previousState,
+                                         IncrementalGenerationState currentState) {
+    int removedClassesCount = 0;
+    for (String className : previousState.getClassNames()) {
+      if (!currentState.getClassNames().contains(className)) removedClassesCount++;
+    }
+    return removedClassesCount;
+  }
+
+  /**
+   * Deletes the files generated by the previous generation that the current one has not generated, along with the
+   * directories left empty, the other files are left untouched.
+   */
+  private void pruneStaleFiles(IncrementalGenerationState previousState, IncrementalGenerationState currentState,
+                               File destDir, AssertionsGeneratorReport report) throws IOException {
+    Path destDirPath = destDir.getAbsoluteFile().toPath().normalize();
+    for (File staleFile : staleFilesOf(previousState, currentState, destDir)) {
+      if (!staleFile.delete()) {
+        log.warn("Fail to remove stale assertions file " + staleFile);
+        continue;
+      }
+      report.addPrunedAssertionFile(staleFile);
+      File directory = staleFile.getAbsoluteFile().getParentFile();
+      while (directory != null && !directory.toPath().normalize().equals(destDirPath) && directory.delete()) {
+        // File.delete only deletes empty directories
+        directory = directory.getParentFile();
+      }
+    }
+  }
+
+  /**
+   * The existing files generated by the previous generation that the current one does not generate, in the target
+   * directory only whatever the state file content.
+   */
+  private static List<File> staleFilesOf(IncrementalGenerationState previousState,
+                                         IncrementalGenerationState currentState, File destDir) {
+    Path destDirPath = destDir.getAbsoluteFile().toPath().normalize();
+    List<File> staleFiles = new ArrayList<>();
+    for (File staleFile : previousState.staleFilesComparedTo(currentState)) {
+      if (staleFile.getAbsoluteFile().toPath().normalize().startsWith(destDirPath) && staleFile.isFile()) {
+        staleFiles.add(staleFile);
+      }
+    }
+    return staleFiles;
+  }
+
+  private List<Template> registerUserTemplates(Templates userTemplates, AssertionsGeneratorReport report) {
+    List<Template> templates = new ArrayList<>();
+    if (userTemplates == null) return templates;
     for (Template template : userTemplates.getTemplates(report)) {
       generator.register(template);
+      templates.add(template);
     }
+    return templates;
   }
 
-  private void removeClassesAccordingToIncludeAndExcludePatterns(Set<TypeToken<?>> filteredClasses) {
-    for (Iterator<TypeToken<?>> it = filteredClasses.iterator(); it.hasNext();) {
-      TypeToken<?> element = it.next();
-      if (!isIncluded(element) || isExcluded(element)) it.remove();
+  private Set<TypeToken<?>> loadClasses(Set<String> classNames) {
+    Set<TypeToken<?>> classes = newLinkedHashSet();
+    for (String className : classNames) {
+      try {
+        classes.add(TypeToken.of(Class.forName(className, false, classLoader)));
+      } catch (ClassNotFoundException | LinkageError e) {
+        log.warn("Won't generate assertions for " + className + " as it can't be loaded : " + e);
+      }
     }
+    return classes;
   }
 
-  private boolean isIncluded(TypeToken<?> element) {
-    String className = element.getRawType().getName();
+  private void removeClassesAccordingToIncludeAndExcludePatterns(Set<String> filteredClassNames) {
+    for (Iterator<String> it = filteredClassNames.iterator(); it.hasNext();) {
+      String className = it.next();
+      if (!isIncluded(className) || isExcluded(className)) it.remove();
+    }
+  }
+
+  private boolean isIncluded(String className) {
     for (Pattern includePattern : includePatterns) {
       if (includePattern.matcher(className).matches()) return true;
     }
@@ -161,8 +736,7 @@ public class AssertionsGenerator {
     return false;
   }
 
-  private boolean isExcluded(TypeToken<?> element) {
-    String className = element.getRawType().getName();
+  private boolean isExcluded(String className) {
     for (Pattern excludePattern : excludePatterns) {
       if (excludePattern.matcher(className).matches()) {
         log.debug("Won't generate assertions for " + className + " as it matches exclude regex : " + excludePattern);
@@ -172,15 +746,32 @@ public class AssertionsGenerator {
     return false;
   }
 
-  private Set<TypeToken<?>> removeAssertClasses(Set<TypeToken<?>> classList) {
-    Set<TypeToken<?>> filteredClassList = newLinkedHashSet();
-    for (TypeToken<?> clazz : classList) {
-      String classSimpleName = clazz.getRawType().getSimpleName();
+  private Set<String> removeAssertClasses(Set<String> classNames) {
+    Set<String> filteredClassNames = newLinkedHashSet();
+    for (String className : classNames) {
+      String classSimpleName = simpleNameOf(className);
       if (!classSimpleName.endsWith("Assert") && !classSimpleName.endsWith("Assertions")) {
-        filteredClassList.add(clazz);
+        filteredClassNames.add(className);
       }
     }
-    return filteredClassList;
+    return filteredClassNames;
+  }
+
+  /**
+   * Returns the class names that are not in the filtered ones, in their original order, with hash lookups as
+   * {@code CollectionUtils.subtract} removes them one by one from a list, which is quadratic.
+   */
+  private static List<String> excludedClassNames(Set<String> classNames, Set<String> filteredClassNames) {
+    List<String> excludedClassNames = new ArrayList<>(classNames.size() - filteredClassNames.size());
+    for (String className : classNames) {
+      if (!filteredClassNames.contains(className)) excludedClassNames.add(className);
+    }
+    return excludedClassNames;
+  }
+
+  private static String simpleNameOf(String binaryClassName) {
+    String classSimpleName = binaryClassName.substring(binaryClassName.lastIndexOf('.') + 1);
+    return classSimpleName.substring(classSimpleName.lastIndexOf('$') + 1);
   }
 
   @VisibleForTesting
@@ -197,10 +788,193 @@ public class AssertionsGenerator {
   }
 
   public void generateAssertionsForAllFields(boolean generateAssertionsForAllFields) {
+    this.generateAssertionsForAllFields = generateAssertionsForAllFields;
     this.generator.setGenerateAssertionsForAllFields(generateAssertionsForAllFields);
   }
 
   public void setGeneratedAssertionsPackage(String generateAssertionsInPackage) {
+    this.generatedAssertionsPackage = generateAssertionsInPackage;
     this.generator.setGeneratedAssertionsPackage(generateAssertionsInPackage);
   }
+
+  /**
+   * Enables incremental generation: the fingerprint of each class assertions are generated for is saved in the given
+   * file and the next generation only converts and renders the classes whose fingerprint has changed.
+   *
+   * @param incrementalStateFile the file where the incremental generation state is kept, <code>null</code> to
+   *          disable incremental generation.
+   */
+  public void setIncrementalStateFile(File incrementalStateFile) {
+    this.incrementalStateFile = incrementalStateFile;
+  }
+
+  /**
+   * Sets the files of the code generating assertions (plugin and generator jars or class directories): all assertions
+   * are generated again by an incremental generation when they change, their version may not (snapshots).
+   */
+  public void setGeneratorCodeFiles(List<File> generatorCodeFiles) {
+    this.generatorCodeFiles = new ArrayList<>(generatorCodeFiles);
+  }
+
+  /**
+   * Restricts an incremental generation to the given classes, changed (or deleted) since the previous generation, and
+   * to the classes having one of them in their type hierarchy or in the one of their properties value types: the other
+   * classes are neither scanned nor fingerprinted again, they are kept as the previous generation state records them.
+   * <p>
+   * All the classes are scanned when the previous state is missing or was generated with another configuration.
+   *
+   * @param changedClassNames the binary names of the changed classes, <code>null</code> to scan all the classes.
+   */
+  public void setChangedClassNames(Set<String> changedClassNames) {
+    this.changedClassNames = changedClassNames == null ? null : new HashSet<>(changedClassNames);
+  }
+
+  /**
+   * When enabled with incremental generation, the files generated by the previous generation that are not generated
+   * anymore (for classes that have been removed or excluded since) are deleted, see
+   * {@link #setIncrementalStateFile(File)}.
+   */
+  public void setPruneStaleFiles(boolean pruneStaleFiles) {
+    this.pruneStaleFiles = pruneStaleFiles;
+  }
+
+  /**
+   * When enabled, entry point classes are generated in each package for the classes of this package instead of a
+   * single entry point class for all the classes.
+   */
+  public void setEntryPointsPerPackage(boolean entryPointsPerPackage) {
+    this.entryPointsPerPackage = entryPointsPerPackage;
+  }
+
+  /**
+   * When entry points are generated per package, also generate the usual entry point classes for all the classes so
+   * that tests can keep using a single entry point, see {@link #setEntryPointsPerPackage(boolean)}.
+   */
+  public void setEntryPointsFacade(boolean entryPointsFacade) {
+    this.entryPointsFacade = entryPointsFacade;
+  }
+
+  /**
+   * When enabled, assertions are rendered in memory and only written if their content differs from the existing
+   * file, unchanged files keep their timestamp and are not needlessly recompiled.
+   */
+  public void setWriteOnlyChangedFiles(boolean writeOnlyChangedFiles) {
+    this.writeOnlyChangedFiles = writeOnlyChangedFiles;
+  }
+
+  /**
+   * Sets the number of threads used to convert classes to descriptions, render and write their assertions, the
+   * default is to do everything in the calling thread.
+   * <p>
+   * The generated files and the report are the same whatever the number of threads.
+   */
+  public void setThreads(int threads) {
+    checkArgument(threads > 0, "The number of threads must be greater than 0 but was %s", threads);
+    this.threads = threads;
+  }
+
+  /**
+   * Sets the number of rendered files that can wait to be written by the writer stage, 0 (the default) to write files
+   * in the threads rendering them.
+   * <p>
+   * With a writer stage, rendering goes on while files are written, which pays off when writes are slow (network file
+   * systems ...); the queue size bounds the memory held by rendered contents. Only used when only changed files are
+   * written as the base generator otherwise writes files while rendering them.
+   */
+  public void setWriteQueueSize(int writeQueueSize) {
+    checkArgument(writeQueueSize >= 0, "The write queue size must not be negative but was %s", writeQueueSize);
+    this.writeQueueSize = writeQueueSize;
+  }
+
+  /**
+   * When enabled, the generation is only planned: classes are collected, filtered and fingerprinted and the report
+   * lists the files that would be created, generated again or deleted along with an estimate of the generation size
+   * and time, nothing is written, deleted nor saved in the incremental state file.
+   */
+  public void setDryRun(boolean dryRun) {
+    this.dryRun = dryRun;
+  }
+
+  /**
+   * Enables caching the classes found in each jar of the classpath in the given directory, jars are then only scanned
+   * again when their path, size or last modification time change.
+   *
+   * @param jarIndexCacheDirectory the directory where jar indexes are kept, <code>null</code> to always scan jars.
+   */
+  public void setJarIndexCacheDirectory(File jarIndexCacheDirectory) {
+    this.jarIndexCacheDirectory = jarIndexCacheDirectory;
+  }
+
+  /**
+   * Shares the classes found in jars with the other generations using the same {@link JarIndexes}, jars already
+   * indexed by one of them are neither scanned again nor read from the jar index cache directory.
+   */
+  public void setSharedJarIndexes(JarIndexes sharedJarIndexes) {
+    this.sharedJarIndexes = sharedJarIndexes;
+  }
+
+  /**
+   * Reports the time spent in a phase done before calling the generator, like building the class loader.
+   */
+  public void addPhaseTime(GenerationPhase phase, long wallTimeNanos, long cpuTimeNanos) {
+    phaseTimesBeforeGeneration.put(phase, new PhaseTime(wallTimeNanos, cpuTimeNanos));
+  }
+
+  /**
+   * An entry point class to generate; the class descriptions are sorted so that the generator sorts them in linear time.
+   */
+  private static class EntryPointClass {
+    private final SortedSet<ClassDescription> classDescriptions;
+    private final AssertionsEntryPointType type;
+    private final String entryPointPackage;
+    private final boolean packageEntryPoint;
+    // set by the generation thread, read once its future is done
+    private volatile boolean written;
+
+    EntryPointClass(SortedSet<ClassDescription> classDescriptions, AssertionsEntryPointType type,
+                    String entryPointPackage, boolean packageEntryPoint) {
+      this.classDescriptions = classDescriptions;
+      this.type = type;
+      this.entryPointPackage = entryPointPackage;
+      this.packageEntryPoint = packageEntryPoint;
+    }
+  }
+
+  /**
+   * Assertions generated for a class: the files, whether they were written or left unchanged and the time it took.
+   */
+  private static class GeneratedCustomAssertion {
+    private final File[] files;
+    private boolean[] written;
+    // writes handed over to the writer stage, null when the files were written by the rendering thread
+    private final List<Future<Boolean>> pendingWrites;
+    private final Map<GenerationPhase, PhaseTime> phaseTimes;
+
+    GeneratedCustomAssertion(File[] files, Map<GenerationPhase, PhaseTime> phaseTimes) {
+      this(files, new boolean[files.length], phaseTimes);
+      Arrays.fill(written, true);
+    }
+
+    GeneratedCustomAssertion(File[] files, boolean[] written, Map<GenerationPhase, PhaseTime> phaseTimes) {
+      this.files = files;
+      this.written = written;
+      this.pendingWrites = null;
+      this.phaseTimes = phaseTimes;
+    }
+
+    GeneratedCustomAssertion(File[] files, List<Future<Boolean>> pendingWrites,
+                             Map<GenerationPhase, PhaseTime> phaseTimes) {
+      this.files = files;
+      this.pendingWrites = pendingWrites;
+      this.phaseTimes = phaseTimes;
+    }
+
+    void awaitWrites() throws Exception {
+      if (pendingWrites == null) return;
+      written = new boolean[pendingWrites.size()];
+      for (int i = 0; i < written.length; i++) {
+        written[i] = resultOf(pendingWrites.get(i));
+      }
+    }
+  }
 }
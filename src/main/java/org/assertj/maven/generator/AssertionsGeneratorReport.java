@@ -13,42 +13,95 @@
 package org.assertj.maven.generator;
 
 import static com.google.common.collect.Maps.newTreeMap;
+import static com.google.common.collect.Sets.newHashSet;
 import static com.google.common.collect.Sets.newTreeSet;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static org.apache.commons.collections.CollectionUtils.isNotEmpty;
 import static org.apache.commons.lang3.ArrayUtils.isNotEmpty;
 import static org.apache.commons.lang3.StringUtils.remove;
-import static org.apache.commons.lang3.exception.ExceptionUtils.getStackTrace;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Serializable;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.SortedSet;
 
+import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.reflect.TypeToken;
 import org.assertj.assertions.generator.AssertionsEntryPointType;
 
-public class AssertionsGeneratorReport {
+/**
+ * Serializable to be sent back by a forked generation, see {@code org.assertj.maven.ForkedGeneration}.
+ */
+public class AssertionsGeneratorReport implements Serializable {
 
+  private static final long serialVersionUID = 1L;
   private static final String INDENT = "- ";
   private static final String SECTION_START = "--- ";
   private static final String SECTION_END = " ---\n";
+  private static final int SLOWEST_CLASSES_COUNT = 10;
+  private static final Comparator<ClassGenerationTime> FASTEST_FIRST = new FastestFirst();
+  public static final String TIMINGS_SECTION_TITLE = "Timings";
+  public static final int ALL_FILE_NAMES = -1;
   private String directoryPathWhereAssertionFilesAreGenerated;
-  private Set<String> generatedCustomAssertionFileNames;
+  private final SortedNames generatedCustomAssertionFileNames = new SortedNames();
+  private final SortedNames unchangedCustomAssertionFileNames = new SortedNames();
+  private final SortedNames prunedCustomAssertionFileNames = new SortedNames();
+  private Set<AssertionsEntryPointType> unchangedAssertionsEntryPoints;
   private Map<AssertionsEntryPointType, File> assertionsEntryPointFilesByType;
+  private final SortedNames packageEntryPointFileNames = new SortedNames();
+  private final SortedNames unchangedPackageEntryPointFileNames = new SortedNames();
   private String[] inputPackages;
   private String[] inputClasses;
   private Exception exception;
-  private Collection<TypeToken<?>> excludedClassesFromAssertionGeneration;
+  private Collection<String> excludedClassesFromAssertionGeneration;
   private Set<String> inputClassesNotFound;
   private List<String> userTemplates;
+  private boolean incrementalGeneration;
+  private int regeneratedClassesCount;
+  private int upToDateClassesCount;
+  private int removedClassesCount;
+  private boolean jarIndexCacheUsed;
+  private int reusedJarIndexesCount;
+  private int builtJarIndexesCount;
+  private long jarScanTimeSavedMillis;
+  private int reusedDescriptionsCount;
+  private int builtDescriptionsCount;
+  private int foundClassesCount;
+  private int generatedClassesCount;
+  private long peakHeapUsedBytes = -1;
+  private boolean dryRun;
+  private Collection<String> plannedClassNames = Collections.emptyList();
+  private final SortedNames plannedCreatedFileNames = new SortedNames();
+  private final SortedNames plannedRegeneratedFileNames = new SortedNames();
+  private final SortedNames plannedDeletedFileNames = new SortedNames();
+  private int sampledClassesCount;
+  private long estimatedSourcesSizeBytes;
+  private long estimatedGenerationMillis;
+  // canonical paths of the directories of the reported files, the files of a package share the same directory
+  private final Map<File, String> canonicalDirectoryPaths = new HashMap<>();
+  private final Map<GenerationPhase, PhaseTime> phaseTimes = new EnumMap<>(GenerationPhase.class);
+  // only the slowest classes are kept, the fastest of them being the head of the queue
+  private final PriorityQueue<ClassGenerationTime> slowestClasses = new PriorityQueue<>(SLOWEST_CLASSES_COUNT + 1,
+                                                                                        FASTEST_FIRST);
 
   public AssertionsGeneratorReport() {
 	assertionsEntryPointFilesByType = newTreeMap();
-	generatedCustomAssertionFileNames = newTreeSet();
+	unchangedAssertionsEntryPoints = newTreeSet();
 	inputClassesNotFound = newTreeSet();
 	directoryPathWhereAssertionFilesAreGenerated = "no directory set";
     userTemplates = new ArrayList<>();
@@ -58,133 +111,285 @@ public class AssertionsGeneratorReport {
 	this.directoryPathWhereAssertionFilesAreGenerated = directory;
   }
 
+  public String getDirectoryPathWhereAssertionFilesAreGenerated() {
+    return directoryPathWhereAssertionFilesAreGenerated;
+  }
+
   public void addGeneratedAssertionFile(File generatedCustomAssertionFile) throws IOException {
-	generatedCustomAssertionFileNames.add(generatedCustomAssertionFile.getCanonicalPath());
+	generatedCustomAssertionFileNames.add(canonicalPathOf(generatedCustomAssertionFile));
+  }
+
+  public void addUnchangedAssertionFile(File unchangedCustomAssertionFile) throws IOException {
+    unchangedCustomAssertionFileNames.add(canonicalPathOf(unchangedCustomAssertionFile));
+  }
+
+  public void addPrunedAssertionFile(File prunedCustomAssertionFile) throws IOException {
+    prunedCustomAssertionFileNames.add(canonicalPathOf(prunedCustomAssertionFile));
   }
 
   public String getReportContent() {
-    StringBuilder reportBuilder = new StringBuilder(System.lineSeparator());
-    reportBuilder.append(System.lineSeparator());
-	reportBuilder.append("====================================\n");
-	reportBuilder.append("AssertJ assertions generation report\n");
-	reportBuilder.append("====================================\n");
-	buildGeneratorParametersReport(reportBuilder);
-    reportBuilder.append(System.lineSeparator());
-	reportBuilder.append(SECTION_START).append("Generator results").append(SECTION_END);
+    StringWriter reportContent = new StringWriter();
+    try {
+      writeReportContent(reportContent);
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to build the assertions generation report", e);
+    }
+    return reportContent.toString();
+  }
+
+  /**
+   * Writes the same content as {@link #getReportContent()} to the given writer, without building the whole report in
+   * memory.
+   */
+  public void writeReportContent(Writer writer) throws IOException {
+    writeReportContent(writer, ALL_FILE_NAMES);
+  }
+
+  /**
+   * Writes the report content to the given writer, listing at most {@code maxReportedFileNames} file names per section
+   * (generated files, unchanged files ...), the other ones are only counted. A negative value lists all of them.
+   */
+  public void writeReportContent(Writer writer, int maxReportedFileNames) throws IOException {
+    ReportWriter reportWriter = new ReportWriter(writer, maxReportedFileNames);
+    reportWriter.append(System.lineSeparator());
+    reportWriter.append(System.lineSeparator());
+	reportWriter.append("====================================\n");
+	reportWriter.append("AssertJ assertions generation report\n");
+	reportWriter.append("====================================\n");
+	buildGeneratorParametersReport(reportWriter);
+    reportWriter.append(System.lineSeparator());
+	reportWriter.append(SECTION_START).append("Generator results").append(SECTION_END);
 	if (generationError()) {
-	  buildGeneratorReportError(reportBuilder);
+	  buildGeneratorReportError(reportWriter);
+	} else if (dryRun) {
+	  buildGenerationPlanReport(reportWriter);
 	} else if (nothingGenerated()) {
-	  buildGeneratorReportWhenNothingWasGenerated(reportBuilder);
+	  buildGeneratorReportWhenNothingWasGenerated(reportWriter);
 	} else {
-	  buildGeneratorReportSuccess(reportBuilder);
+	  buildGeneratorReportSuccess(reportWriter);
 	}
-	return reportBuilder.toString();
+	buildTimingsReport(reportWriter);
   }
 
-  private void buildGeneratorReportSuccess(StringBuilder reportBuilder) {
-    reportBuilder.append(System.lineSeparator());
-	reportBuilder.append("Directory where custom assertions files have been generated:\n");
-    reportBuilder.append(INDENT).append(directoryPathWhereAssertionFilesAreGenerated).append(System.lineSeparator());
-    reportBuilder.append(System.lineSeparator());
-	reportBuilder.append("Custom assertions files generated:\n");
-	for (String fileName : generatedCustomAssertionFileNames) {
-      reportBuilder.append(INDENT).append(fileName).append(System.lineSeparator());
+  private void buildGeneratorReportSuccess(ReportWriter reportWriter) throws IOException {
+    reportWriter.append(System.lineSeparator());
+	reportWriter.append("Directory where custom assertions files have been generated:\n");
+    reportWriter.append(INDENT).append(directoryPathWhereAssertionFilesAreGenerated).append(System.lineSeparator());
+    reportWriter.append(System.lineSeparator());
+	reportWriter.append("Custom assertions files generated:\n");
+	reportWriter.names(generatedCustomAssertionFileNames.sorted(), "files");
+	if (!unchangedCustomAssertionFileNames.isEmpty()) {
+      reportWriter.append(System.lineSeparator());
+      reportWriter.append("Custom assertions files left unchanged as their content is the same:\n");
+      reportWriter.names(unchangedCustomAssertionFileNames.sorted(), "files");
+	}
+	if (incrementalGeneration) {
+      reportWriter.append(System.lineSeparator());
+      reportWriter.append("Incremental generation:\n");
+      reportWriter.append(INDENT).append(regeneratedClassesCount).append(" classes regenerated")
+                   .append(System.lineSeparator());
+      reportWriter.append(INDENT).append(upToDateClassesCount).append(" classes skipped as up to date")
+                   .append(System.lineSeparator());
+      reportWriter.append(INDENT).append(removedClassesCount).append(" classes removed since previous generation")
+                   .append(System.lineSeparator());
+	}
+	if (!prunedCustomAssertionFileNames.isEmpty()) {
+      reportWriter.append(System.lineSeparator());
+      reportWriter.append("Stale custom assertions files removed as they are not generated anymore:\n");
+      reportWriter.names(prunedCustomAssertionFileNames.sorted(), "files");
+	}
+	if (jarIndexCacheUsed) {
+      reportWriter.append(System.lineSeparator());
+      reportWriter.append("Jar index cache:\n");
+      reportWriter.append(INDENT).append(reusedJarIndexesCount).append(" jar indexes reused")
+                   .append(System.lineSeparator());
+      reportWriter.append(INDENT).append(builtJarIndexesCount).append(" jars scanned and indexed")
+                   .append(System.lineSeparator());
+      reportWriter.append(INDENT).append(jarScanTimeSavedMillis).append(" ms saved by not scanning jars again")
+                   .append(System.lineSeparator());
+	}
+	if (builtDescriptionsCount > 0) {
+      reportWriter.append(System.lineSeparator());
+      reportWriter.append("Getter and field descriptions cache:\n");
+      reportWriter.append(INDENT).append(reusedDescriptionsCount).append(" descriptions reused from shared super types")
+                   .append(System.lineSeparator());
+      reportWriter.append(INDENT).append(builtDescriptionsCount).append(" descriptions built")
+                   .append(System.lineSeparator());
+      reportWriter.append(INDENT).append(getDescriptionCacheHitRatePercent()).append("% hit rate")
+                   .append(System.lineSeparator());
 	}
 	if (!inputClassesNotFound.isEmpty()) {
-      reportBuilder.append(System.lineSeparator());
-	  reportBuilder.append("No custom assertions files generated for the following input classes as they were not found:\n");
+      reportWriter.append(System.lineSeparator());
+	  reportWriter.append("No custom assertions files generated for the following input classes as they were not found:\n");
 	  for (String inputClassNotFound : inputClassesNotFound) {
-        reportBuilder.append(INDENT).append(inputClassNotFound).append(System.lineSeparator());
+        reportWriter.append(INDENT).append(inputClassNotFound).append(System.lineSeparator());
 	  }
 	}
-	reportEntryPointClassesGeneration(reportBuilder);
+	reportEntryPointClassesGeneration(reportWriter);
   }
 
-  private void reportEntryPointClassesGeneration(StringBuilder reportBuilder) {
+  private void reportEntryPointClassesGeneration(ReportWriter reportWriter) throws IOException {
+	if (!packageEntryPointFileNames.isEmpty()) {
+      reportWriter.append(System.lineSeparator());
+      reportWriter.append("Package entry point classes generated:\n");
+      reportWriter.names(packageEntryPointFileNames.sorted(), "files");
+	}
+	if (!unchangedPackageEntryPointFileNames.isEmpty()) {
+      reportWriter.append(System.lineSeparator());
+      reportWriter.append("Package entry point classes left unchanged as their content is the same:\n");
+      reportWriter.names(unchangedPackageEntryPointFileNames.sorted(), "files");
+	}
 	for (AssertionsEntryPointType type : assertionsEntryPointFilesByType.keySet()) {
 	  if (assertionsEntryPointFilesByType.get(type) != null) {
 		String entryPointClassName = remove(type.getFileName(), ".java");
-        reportBuilder.append(System.lineSeparator())
-		             .append(entryPointClassName).append(" entry point class has been generated in file:\n")
+		String entryPointClassStatus = unchangedAssertionsEntryPoints.contains(type)
+		    ? " entry point class is unchanged in file:\n"
+		    : " entry point class has been generated in file:\n";
+        reportWriter.append(System.lineSeparator())
+		             .append(entryPointClassName).append(entryPointClassStatus)
                      .append(INDENT).append(assertionsEntryPointFilesByType.get(type).getAbsolutePath())
                      .append(System.lineSeparator());
 	  }
 	}
   }
 
-  private void buildGeneratorReportWhenNothingWasGenerated(StringBuilder reportBuilder) {
-    reportBuilder.append(System.lineSeparator());
-	reportBuilder.append("No assertions generated as no classes have been found from given classes/packages.\n");
+  private void buildGenerationPlanReport(ReportWriter reportWriter) throws IOException {
+    reportWriter.append(System.lineSeparator());
+    reportWriter.append("Dry run: nothing has been generated nor deleted, here is what the generation would do.\n");
+    reportWriter.append(System.lineSeparator());
+    reportWriter.append("Classes to generate assertions for:\n");
+    reportWriter.names(plannedClassNames, "classes");
+    if (incrementalGeneration) {
+      reportWriter.append(INDENT).append(upToDateClassesCount).append(" of them skipped as up to date")
+                  .append(System.lineSeparator());
+    }
+    if (!plannedCreatedFileNames.isEmpty()) {
+      reportWriter.append(System.lineSeparator());
+      reportWriter.append("Files that would be created:\n");
+      reportWriter.names(plannedCreatedFileNames.sorted(), "files");
+    }
+    if (!plannedRegeneratedFileNames.isEmpty()) {
+      reportWriter.append(System.lineSeparator());
+      reportWriter.append("Existing files that would be generated again (and left unchanged if their content is the same):\n");
+      reportWriter.names(plannedRegeneratedFileNames.sorted(), "files");
+    }
+    if (!plannedDeletedFileNames.isEmpty()) {
+      reportWriter.append(System.lineSeparator());
+      reportWriter.append("Stale files that would be removed as they would not be generated anymore:\n");
+      reportWriter.names(plannedDeletedFileNames.sorted(), "files");
+    }
+    if (sampledClassesCount > 0) {
+      reportWriter.append(System.lineSeparator());
+      reportWriter.append("Estimate from ").append(sampledClassesCount)
+                  .append(" sampled classes (assertions classes only, in a single thread, file writes excluded):\n");
+      reportWriter.append(INDENT).append(estimatedSourcesSizeBytes / 1024).append(" KB of generated sources")
+                  .append(System.lineSeparator());
+      reportWriter.append(INDENT).append(estimatedGenerationMillis).append(" ms of conversion and rendering")
+                  .append(System.lineSeparator());
+    }
+  }
+
+  private void buildGeneratorReportWhenNothingWasGenerated(ReportWriter reportWriter) throws IOException {
+    reportWriter.append(System.lineSeparator());
+	reportWriter.append("No assertions generated as no classes have been found from given classes/packages.\n");
 	if (isNotEmpty(inputClasses)) {
-	  reportBuilder.append(INDENT).append("Given classes : ").append(Arrays.toString(inputClasses));
-      reportBuilder.append(System.lineSeparator());
+	  reportWriter.append(INDENT).append("Given classes : ").append(Arrays.toString(inputClasses));
+      reportWriter.append(System.lineSeparator());
 	}
 	if (isNotEmpty(inputPackages)) {
-	  reportBuilder.append(INDENT).append("Given packages : ").append(Arrays.toString(inputPackages));
-      reportBuilder.append(System.lineSeparator());
+	  reportWriter.append(INDENT).append("Given packages : ").append(Arrays.toString(inputPackages));
+      reportWriter.append(System.lineSeparator());
 	}
 	if (isNotEmpty(excludedClassesFromAssertionGeneration)) {
-	  reportBuilder.append(INDENT).append("Excluded classes : ").append(excludedClassesFromAssertionGeneration);
+	  reportWriter.append(INDENT).append("Excluded classes : ").append(excludedClassesFromAssertionGeneration);
 	}
   }
 
-  private void buildGeneratorReportError(StringBuilder reportBuilder) {
-    reportBuilder.append(System.lineSeparator());
-	reportBuilder.append("Assertions failed with error : ").append(exception.getMessage());
-    reportBuilder.append(System.lineSeparator());
+  private void buildTimingsReport(ReportWriter reportWriter) throws IOException {
+    if (phaseTimes.isEmpty()) return;
+    reportWriter.append(System.lineSeparator());
+    reportWriter.append(SECTION_START).append(TIMINGS_SECTION_TITLE).append(SECTION_END);
+    reportWriter.append(System.lineSeparator());
+    reportWriter.append("Phases wall clock / CPU time (per class phases are summed over generation threads):\n");
+    for (Map.Entry<GenerationPhase, PhaseTime> phaseTime : phaseTimes.entrySet()) {
+      reportWriter.append(INDENT).append(phaseTime.getKey().getDescription()).append(" : ")
+                   .append(NANOSECONDS.toMillis(phaseTime.getValue().wallTimeNanos)).append(" ms / ")
+                   .append(NANOSECONDS.toMillis(phaseTime.getValue().cpuTimeNanos)).append(" ms")
+                   .append(System.lineSeparator());
+    }
+    if (peakHeapUsedBytes >= 0) {
+      reportWriter.append(System.lineSeparator());
+      reportWriter.append("Peak heap used: ").append(peakHeapUsedBytes / (1024 * 1024)).append(" MB")
+                   .append(System.lineSeparator());
+    }
+    if (slowestClasses.isEmpty()) return;
+    reportWriter.append(System.lineSeparator());
+    reportWriter.append("Slowest classes to generate assertions for:\n");
+    for (ClassGenerationTime classGenerationTime : getSlowestClasses()) {
+      reportWriter.append(INDENT).append(classGenerationTime.className).append(" : ")
+                   .append(NANOSECONDS.toMillis(classGenerationTime.wallTimeNanos)).append(" ms")
+                   .append(System.lineSeparator());
+    }
+  }
+
+  private void buildGeneratorReportError(ReportWriter reportWriter) throws IOException {
+    reportWriter.append(System.lineSeparator());
+	reportWriter.append("Assertions failed with error : ").append(exception.getMessage());
+    reportWriter.append(System.lineSeparator());
 	if (isNotEmpty(inputClasses)) {
-	  reportBuilder.append(INDENT).append("Given classes were : ").append(Arrays.toString(inputClasses));
-      reportBuilder.append(System.lineSeparator());
+	  reportWriter.append(INDENT).append("Given classes were : ").append(Arrays.toString(inputClasses));
+      reportWriter.append(System.lineSeparator());
 	}
 	if (isNotEmpty(inputPackages)) {
-	  reportBuilder.append(INDENT).append("Given packages were : ").append(Arrays.toString(inputPackages));
-      reportBuilder.append(System.lineSeparator());
+	  reportWriter.append(INDENT).append("Given packages were : ").append(Arrays.toString(inputPackages));
+      reportWriter.append(System.lineSeparator());
 	}
-    reportBuilder.append(System.lineSeparator());
-	reportBuilder.append("Full error stack : ").append(getStackTrace(exception));
+    reportWriter.append(System.lineSeparator());
+	reportWriter.append("Full error stack : ").stackTrace(exception);
   }
 
-  private void buildGeneratorParametersReport(StringBuilder reportBuilder) {
-    reportBuilder.append(System.lineSeparator());
-    reportBuilder.append(SECTION_START).append("Generator input parameters").append(SECTION_END)
+  private void buildGeneratorParametersReport(ReportWriter reportWriter) throws IOException {
+    reportWriter.append(System.lineSeparator());
+    reportWriter.append(SECTION_START).append("Generator input parameters").append(SECTION_END)
                  .append(System.lineSeparator());
     if (isNotEmpty(userTemplates)) {
-      reportBuilder.append("The following templates will replace the ones provided by AssertJ when generating AssertJ assertions :\n");
+      reportWriter.append("The following templates will replace the ones provided by AssertJ when generating AssertJ assertions :\n");
       for (String inputPackage : userTemplates) {
-        reportBuilder.append(INDENT).append(inputPackage).append(System.lineSeparator());
+        reportWriter.append(INDENT).append(inputPackage).append(System.lineSeparator());
 	  }
-      reportBuilder.append(System.lineSeparator());
+      reportWriter.append(System.lineSeparator());
 	}
     if (isNotEmpty(inputPackages)) {
-      reportBuilder.append("Generating AssertJ assertions for classes in following packages and subpackages:\n");
+      reportWriter.append("Generating AssertJ assertions for classes in following packages and subpackages:\n");
       for (String inputPackage : inputPackages) {
-        reportBuilder.append(INDENT).append(inputPackage).append(System.lineSeparator());
+        reportWriter.append(INDENT).append(inputPackage).append(System.lineSeparator());
       }
     }
 	if (isNotEmpty(inputClasses)) {
 	  if (isNotEmpty(inputPackages)) {
-        reportBuilder.append(System.lineSeparator());
+        reportWriter.append(System.lineSeparator());
 	  }
-	  reportBuilder.append("Generating AssertJ assertions for classes:\n");
+	  reportWriter.append("Generating AssertJ assertions for classes:\n");
 	  for (String inputClass : inputClasses) {
-        reportBuilder.append(INDENT).append(inputClass).append(System.lineSeparator());
+        reportWriter.append(INDENT).append(inputClass).append(System.lineSeparator());
 	  }
 	}
 	if (isNotEmpty(excludedClassesFromAssertionGeneration)) {
-      reportBuilder.append(System.lineSeparator());
-	  reportBuilder.append("Input classes excluded from assertions generation:\n");
-	  for (TypeToken<?> excludedClass : excludedClassesFromAssertionGeneration) {
-        reportBuilder.append(INDENT).append(excludedClass.getRawType().getName()).append(System.lineSeparator());
+      reportWriter.append(System.lineSeparator());
+	  reportWriter.append("Input classes excluded from assertions generation:\n");
+	  for (String excludedClass : excludedClassesFromAssertionGeneration) {
+        reportWriter.append(INDENT).append(excludedClass).append(System.lineSeparator());
 	  }
 	}
   }
 
-  private boolean generationError() {
+  boolean generationError() {
 	return exception != null;
   }
 
-  private boolean nothingGenerated() {
-	return generatedCustomAssertionFileNames.isEmpty();
+  boolean nothingGenerated() {
+	return generatedCustomAssertionFileNames.isEmpty() && unchangedCustomAssertionFileNames.isEmpty()
+	       && upToDateClassesCount == 0;
   }
 
   public void reportEntryPointGeneration(AssertionsEntryPointType assertionsEntryPointType,
@@ -192,6 +397,48 @@ public class AssertionsGeneratorReport {
 	this.assertionsEntryPointFilesByType.put(assertionsEntryPointType, assertionsEntryPointFile);
   }
 
+  public void reportUnchangedEntryPoint(AssertionsEntryPointType assertionsEntryPointType,
+                                        File assertionsEntryPointFile) {
+    reportEntryPointGeneration(assertionsEntryPointType, assertionsEntryPointFile);
+    unchangedAssertionsEntryPoints.add(assertionsEntryPointType);
+  }
+
+  public void reportPackageEntryPointGeneration(File packageEntryPointFile) throws IOException {
+    if (packageEntryPointFile != null) packageEntryPointFileNames.add(canonicalPathOf(packageEntryPointFile));
+  }
+
+  public void reportUnchangedPackageEntryPoint(File packageEntryPointFile) throws IOException {
+    unchangedPackageEntryPointFileNames.add(canonicalPathOf(packageEntryPointFile));
+  }
+
+  public Set<String> getGeneratedCustomAssertionFileNames() {
+    return generatedCustomAssertionFileNames.sorted();
+  }
+
+  public Set<String> getUnchangedCustomAssertionFileNames() {
+    return unchangedCustomAssertionFileNames.sorted();
+  }
+
+  public Set<String> getPrunedCustomAssertionFileNames() {
+    return prunedCustomAssertionFileNames.sorted();
+  }
+
+  public Map<AssertionsEntryPointType, File> getAssertionsEntryPointFilesByType() {
+    return assertionsEntryPointFilesByType;
+  }
+
+  public Set<AssertionsEntryPointType> getUnchangedAssertionsEntryPoints() {
+    return unchangedAssertionsEntryPoints;
+  }
+
+  public Set<String> getPackageEntryPointFileNames() {
+    return packageEntryPointFileNames.sorted();
+  }
+
+  public Set<String> getUnchangedPackageEntryPointFileNames() {
+    return unchangedPackageEntryPointFileNames.sorted();
+  }
+
   public void setInputPackages(String[] packages) {
 	this.inputPackages = packages;
   }
@@ -200,6 +447,14 @@ public class AssertionsGeneratorReport {
 	this.inputClasses = classes;
   }
 
+  public String[] getInputPackages() {
+    return inputPackages;
+  }
+
+  public String[] getInputClasses() {
+    return inputClasses;
+  }
+
   public void setException(Exception exception) {
 	this.exception = exception;
   }
@@ -209,7 +464,34 @@ public class AssertionsGeneratorReport {
   }
 
   public void setExcludedClassesFromAssertionGeneration(Collection<TypeToken<?>> excludedClassSet) {
-	this.excludedClassesFromAssertionGeneration = excludedClassSet;
+    setExcludedClassNamesFromAssertionGeneration(namesOf(excludedClassSet));
+  }
+
+  public void setExcludedClassNamesFromAssertionGeneration(Collection<String> excludedClassNames) {
+    this.excludedClassesFromAssertionGeneration = excludedClassNames;
+  }
+
+  public Collection<String> getExcludedClassNamesFromAssertionGeneration() {
+    return excludedClassesFromAssertionGeneration == null ? Collections.<String> emptyList()
+        : excludedClassesFromAssertionGeneration;
+  }
+
+  public void setFoundClassesCount(int foundClassesCount) {
+    this.foundClassesCount = foundClassesCount;
+  }
+
+  /**
+   * @return the number of classes found from the input packages and classes, before any exclusion.
+   */
+  public int getFoundClassesCount() {
+    return foundClassesCount;
+  }
+
+  /**
+   * @return the number of classes assertions were generated for, i.e. not skipped as up to date.
+   */
+  public int getGeneratedClassesCount() {
+    return generatedClassesCount;
   }
 
   public Set<String> getInputClassesNotFound() {
@@ -217,10 +499,11 @@ public class AssertionsGeneratorReport {
   }
 
   public void reportInputClassesNotFound(Set<TypeToken<?>> classes, String[] inputClassNames) {
-	Set<String> classesFound = newTreeSet();
-	for (TypeToken<?> clazz : classes) {
-	  classesFound.add(clazz.getRawType().getName());
-	}
+    reportInputClassNamesNotFound(newHashSet(namesOf(classes)), inputClassNames);
+  }
+
+  public void reportInputClassNamesNotFound(Collection<String> classesFound, String[] inputClassNames) {
+    if (!(classesFound instanceof Set)) classesFound = newHashSet(classesFound);
 	for (String inputClass : inputClassNames) {
 	  if (!classesFound.contains(inputClass)) {
 		inputClassesNotFound.add(inputClass);
@@ -235,4 +518,328 @@ public class AssertionsGeneratorReport {
   public List<String> getUserTemplates() {
     return userTemplates;
   }
+
+  public void reportRegeneratedClass() {
+    incrementalGeneration = true;
+    regeneratedClassesCount++;
+  }
+
+  public void reportUpToDateClass() {
+    incrementalGeneration = true;
+    upToDateClassesCount++;
+  }
+
+  public void setRemovedClassesCount(int removedClassesCount) {
+    incrementalGeneration = true;
+    this.removedClassesCount = removedClassesCount;
+  }
+
+  public int getRegeneratedClassesCount() {
+    return regeneratedClassesCount;
+  }
+
+  public int getUpToDateClassesCount() {
+    return upToDateClassesCount;
+  }
+
+  public int getRemovedClassesCount() {
+    return removedClassesCount;
+  }
+
+  public boolean isIncrementalGeneration() {
+    return incrementalGeneration;
+  }
+
+  public boolean isJarIndexCacheUsed() {
+    return jarIndexCacheUsed;
+  }
+
+  public void reportJarIndexCache(int reusedJarIndexesCount, int builtJarIndexesCount, long jarScanTimeSavedMillis) {
+    jarIndexCacheUsed = true;
+    this.reusedJarIndexesCount = reusedJarIndexesCount;
+    this.builtJarIndexesCount = builtJarIndexesCount;
+    this.jarScanTimeSavedMillis = jarScanTimeSavedMillis;
+  }
+
+  public int getReusedJarIndexesCount() {
+    return reusedJarIndexesCount;
+  }
+
+  public int getBuiltJarIndexesCount() {
+    return builtJarIndexesCount;
+  }
+
+  public long getJarScanTimeSavedMillis() {
+    return jarScanTimeSavedMillis;
+  }
+
+  /**
+   * Reports how many getter and field descriptions were reused from the ones of other classes sharing the same super
+   * types and how many had to be built.
+   */
+  public void reportDescriptionCache(int reusedDescriptionsCount, int builtDescriptionsCount) {
+    this.reusedDescriptionsCount = reusedDescriptionsCount;
+    this.builtDescriptionsCount = builtDescriptionsCount;
+  }
+
+  public int getReusedDescriptionsCount() {
+    return reusedDescriptionsCount;
+  }
+
+  public int getBuiltDescriptionsCount() {
+    return builtDescriptionsCount;
+  }
+
+  public int getDescriptionCacheHitRatePercent() {
+    int descriptionsCount = reusedDescriptionsCount + builtDescriptionsCount;
+    return descriptionsCount == 0 ? 0 : reusedDescriptionsCount * 100 / descriptionsCount;
+  }
+
+  /**
+   * Adds the given times to the ones already reported for the given phase.
+   */
+  public void reportPhaseTime(GenerationPhase phase, long wallTimeNanos, long cpuTimeNanos) {
+    PhaseTime phaseTime = phaseTimes.get(phase);
+    phaseTimes.put(phase, phaseTime == null ? new PhaseTime(wallTimeNanos, cpuTimeNanos)
+        : new PhaseTime(phaseTime.wallTimeNanos + wallTimeNanos, phaseTime.cpuTimeNanos + cpuTimeNanos));
+  }
+
+  public Map<GenerationPhase, PhaseTime> getPhaseTimes() {
+    return Collections.unmodifiableMap(phaseTimes);
+  }
+
+  /**
+   * Reports the time taken to generate the assertions of a class, called once per generated class.
+   */
+  public void reportClassGenerationTime(String className, long wallTimeNanos) {
+    generatedClassesCount++;
+    slowestClasses.add(new ClassGenerationTime(className, wallTimeNanos));
+    if (slowestClasses.size() > SLOWEST_CLASSES_COUNT) slowestClasses.poll();
+  }
+
+  /**
+   * @return the slowest classes to generate assertions for, the slowest first.
+   */
+  public List<ClassGenerationTime> getSlowestClasses() {
+    List<ClassGenerationTime> classGenerationTimes = new ArrayList<>(slowestClasses);
+    Collections.sort(classGenerationTimes, Collections.reverseOrder(FASTEST_FIRST));
+    return classGenerationTimes;
+  }
+
+  /**
+   * Marks this report as the plan of a dry run, the given classes being the ones assertions would be generated for.
+   */
+  public void reportGenerationPlan(Collection<String> plannedClassNames) {
+    this.dryRun = true;
+    this.plannedClassNames = plannedClassNames;
+  }
+
+  /**
+   * Reports a file a dry run would generate, as a file that would be created or generated again whether it exists.
+   */
+  public void reportPlannedFile(File plannedFile) throws IOException {
+    if (plannedFile.exists()) plannedRegeneratedFileNames.add(canonicalPathOf(plannedFile));
+    else plannedCreatedFileNames.add(canonicalPathOf(plannedFile));
+  }
+
+  public void reportPlannedDeletion(File staleFile) throws IOException {
+    plannedDeletedFileNames.add(canonicalPathOf(staleFile));
+  }
+
+  public void reportGenerationEstimate(int sampledClassesCount, long estimatedSourcesSizeBytes,
+                                       long estimatedGenerationMillis) {
+    this.sampledClassesCount = sampledClassesCount;
+    this.estimatedSourcesSizeBytes = estimatedSourcesSizeBytes;
+    this.estimatedGenerationMillis = estimatedGenerationMillis;
+  }
+
+  public boolean isDryRun() {
+    return dryRun;
+  }
+
+  public Collection<String> getPlannedClassNames() {
+    return plannedClassNames;
+  }
+
+  public Set<String> getPlannedCreatedFileNames() {
+    return plannedCreatedFileNames.sorted();
+  }
+
+  public Set<String> getPlannedRegeneratedFileNames() {
+    return plannedRegeneratedFileNames.sorted();
+  }
+
+  public Set<String> getPlannedDeletedFileNames() {
+    return plannedDeletedFileNames.sorted();
+  }
+
+  /**
+   * @return the number of classes rendered to estimate the generation, 0 if no estimate was made.
+   */
+  public int getSampledClassesCount() {
+    return sampledClassesCount;
+  }
+
+  public long getEstimatedSourcesSizeBytes() {
+    return estimatedSourcesSizeBytes;
+  }
+
+  public long getEstimatedGenerationMillis() {
+    return estimatedGenerationMillis;
+  }
+
+  public void setPeakHeapUsedBytes(long peakHeapUsedBytes) {
+    this.peakHeapUsedBytes = peakHeapUsedBytes;
+  }
+
+  /**
+   * @return the peak heap used during the generation, -1 if unknown. It includes the memory used by other threads of
+   *         the JVM, like other modules generating assertions in parallel.
+   */
+  public long getPeakHeapUsedBytes() {
+    return peakHeapUsedBytes;
+  }
+
+  /**
+   * Returns the canonical path of the given file, resolving its directory only once for all the files of the directory
+   * rather than once per file.
+   */
+  private String canonicalPathOf(File file) throws IOException {
+    File directory = file.getParentFile();
+    if (directory == null) return file.getCanonicalPath();
+    String canonicalDirectoryPath = canonicalDirectoryPaths.get(directory);
+    if (canonicalDirectoryPath == null) {
+      canonicalDirectoryPath = directory.getCanonicalPath();
+      canonicalDirectoryPaths.put(directory, canonicalDirectoryPath);
+    }
+    return canonicalDirectoryPath + File.separator + file.getName();
+  }
+
+  private static List<String> namesOf(Collection<TypeToken<?>> classes) {
+    List<String> classNames = new ArrayList<>(classes.size());
+    for (TypeToken<?> clazz : classes) {
+      classNames.add(clazz.getRawType().getName());
+    }
+    return classNames;
+  }
+
+  /**
+   * Writes the report content to a writer, listing a capped number of file names per section.
+   */
+  private static class ReportWriter {
+
+    private final Writer writer;
+    private final int maxFileNames;
+
+    ReportWriter(Writer writer, int maxFileNames) {
+      this.writer = writer;
+      this.maxFileNames = maxFileNames;
+    }
+
+    ReportWriter append(String value) throws IOException {
+      writer.write(String.valueOf(value));
+      return this;
+    }
+
+    ReportWriter append(long value) throws IOException {
+      return append(Long.toString(value));
+    }
+
+    ReportWriter append(Object value) throws IOException {
+      return append(String.valueOf(value));
+    }
+
+    void names(Collection<String> names, String namedThings) throws IOException {
+      int count = 0;
+      for (String name : names) {
+        if (maxFileNames >= 0 && count == maxFileNames) {
+          append(INDENT).append("... and ").append(names.size() - count).append(" more ").append(namedThings)
+                        .append(System.lineSeparator());
+          return;
+        }
+        append(INDENT).append(name).append(System.lineSeparator());
+        count++;
+      }
+    }
+
+    void stackTrace(Throwable throwable) {
+      PrintWriter printWriter = new PrintWriter(writer);
+      throwable.printStackTrace(printWriter);
+      printWriter.flush();
+    }
+  }
+
+  /**
+   * Names collected in any order and sorted once when they are read rather than on each addition.
+   */
+  private static class SortedNames implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Set<String> names = new HashSet<>();
+    private transient SortedSet<String> sortedNames;
+
+    void add(String name) {
+      if (names.add(name)) sortedNames = null;
+    }
+
+    boolean isEmpty() {
+      return names.isEmpty();
+    }
+
+    SortedSet<String> sorted() {
+      if (sortedNames == null) sortedNames = ImmutableSortedSet.copyOf(names);
+      return sortedNames;
+    }
+  }
+
+  public static class PhaseTime implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private final long wallTimeNanos;
+    private final long cpuTimeNanos;
+
+    PhaseTime(long wallTimeNanos, long cpuTimeNanos) {
+      this.wallTimeNanos = wallTimeNanos;
+      this.cpuTimeNanos = cpuTimeNanos;
+    }
+
+    public long getWallTimeNanos() {
+      return wallTimeNanos;
+    }
+
+    public long getCpuTimeNanos() {
+      return cpuTimeNanos;
+    }
+  }
+
+  public static class ClassGenerationTime implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private final String className;
+    private final long wallTimeNanos;
+
+    ClassGenerationTime(String className, long wallTimeNanos) {
+      this.className = className;
+      this.wallTimeNanos = wallTimeNanos;
+    }
+
+    public String getClassName() {
+      return className;
+    }
+
+    public long getWallTimeNanos() {
+      return wallTimeNanos;
+    }
+  }
+
+  // a named class as the comparator is serialized along with the slowest classes queue
+  private static class FastestFirst implements Comparator<ClassGenerationTime>, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public int compare(ClassGenerationTime time1, ClassGenerationTime time2) {
+      int comparison = Long.compare(time1.wallTimeNanos, time2.wallTimeNanos);
+      return comparison != 0 ? comparison : time2.className.compareTo(time1.className);
+    }
+  }
 }
@@ -0,0 +1,113 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * Copyright 2012-2017 the original author or authors.
+ */
+package org.assertj.maven.generator;
+
+import static java.util.concurrent.Executors.newFixedThreadPool;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Writer stage of the generation pipeline: the rendering threads hand over the rendered contents and go on rendering
+ * while the files are written by dedicated threads, virtual threads when the JVM has them (Java 21+).
+ * <p>
+ * At most {@code queueSize} contents are waiting to be written or being written, rendering threads wait for a slot
+ * beyond that, which bounds the memory held by rendered contents whatever the number of classes.
+ */
+class AsyncAssertionsFileWriter implements Closeable {
+
+  // without virtual threads, writes are done by a few platform threads whatever the queue size
+  private static final int MAX_PLATFORM_WRITER_THREADS = 4;
+  private static final ThreadFactory WRITER_THREAD_FACTORY = new ThreadFactoryBuilder().setDaemon(true)
+                                                                                       .setNameFormat("assertj-assertions-writer-%d")
+                                                                                       .build();
+
+  private final AssertionsFileWriter fileWriter;
+  private final Semaphore queueSlots;
+  private final ExecutorService executor;
+  private final AtomicLong wallTimeNanos = new AtomicLong();
+  private final AtomicLong cpuTimeNanos = new AtomicLong();
+
+  AsyncAssertionsFileWriter(AssertionsFileWriter fileWriter, int queueSize) {
+    this.fileWriter = fileWriter;
+    this.queueSlots = new Semaphore(queueSize);
+    this.executor = newWriterExecutor(queueSize);
+  }
+
+  /**
+   * Queues the write of the given content, waiting for a queue slot if the queue is full.
+   *
+   * @return the future result of {@link AssertionsFileWriter#writeIfChanged(File, String)}.
+   */
+  Future<Boolean> writeIfChanged(final File file, final String content) throws InterruptedException {
+    queueSlots.acquire();
+    try {
+      return executor.submit(new Callable<Boolean>() {
+        @Override
+        public Boolean call() throws Exception {
+          PhaseTimer timer = PhaseTimer.start();
+          try {
+            return fileWriter.writeIfChanged(file, content);
+          } finally {
+            wallTimeNanos.addAndGet(timer.wallTimeNanos());
+            cpuTimeNanos.addAndGet(timer.cpuTimeNanos());
+            queueSlots.release();
+          }
+        }
+      });
+    } catch (RuntimeException e) {
+      queueSlots.release();
+      throw e;
+    }
+  }
+
+  /**
+   * @return the wall clock time spent writing files, summed over the writer threads.
+   */
+  long getWallTimeNanos() {
+    return wallTimeNanos.get();
+  }
+
+  /**
+   * @return the CPU time spent writing files, summed over the writer threads.
+   */
+  long getCpuTimeNanos() {
+    return cpuTimeNanos.get();
+  }
+
+  /**
+   * Stops the writer threads, the pending writes are abandoned: callers wait for the writes they need before closing.
+   */
+  @Override
+  public void close() {
+    executor.shutdownNow();
+  }
+
+  private static ExecutorService newWriterExecutor(int queueSize) {
+    try {
+      // looked up as the plugin is built for older JVMs, the queue slots bound the number of virtual threads
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (@SuppressWarnings("unused") ReflectiveOperationException e) {
+      return newFixedThreadPool(Math.min(queueSize, MAX_PLATFORM_WRITER_THREADS), WRITER_THREAD_FACTORY);
+    }
+  }
+}
@@ -0,0 +1,201 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * Copyright 2012-2017 the original author or authors.
+ */
+package org.assertj.maven.generator;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.assertj.assertions.generator.util.ClassUtil.declaredFieldsOf;
+import static org.assertj.assertions.generator.util.ClassUtil.declaredGetterMethodsOf;
+import static org.assertj.assertions.generator.util.ClassUtil.getterMethodsOf;
+import static org.assertj.assertions.generator.util.ClassUtil.propertyNameOf;
+import static org.assertj.assertions.generator.util.ClassUtil.safePackageName;
+import static org.assertj.assertions.generator.util.ClassUtil.visibilityOf;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.assertj.assertions.generator.GenerateAssertion;
+import org.assertj.assertions.generator.description.ClassDescription;
+import org.assertj.assertions.generator.description.FieldDescription;
+import org.assertj.assertions.generator.description.GetterDescription;
+import org.assertj.assertions.generator.description.converter.AnnotationConfiguration;
+import org.assertj.assertions.generator.description.converter.ClassDescriptionConverter;
+
+import com.google.common.reflect.TypeToken;
+
+/**
+ * Builds the same class descriptions as
+ * {@link org.assertj.assertions.generator.description.converter.ClassToClassDescriptionConverter} but remembers the
+ * getter and field descriptions during a generation, so that the members inherited from a super type shared by many
+ * classes are introspected and resolved once.
+ * <p>
+ * A member description only depends on the member, on the package of the class owning it (used to shorten type names)
+ * and on how the type variables of the class declaring the member are resolved from the owning class, this is the
+ * cache key. Members of classes in the scope of type variables that can't be resolved that way (inner classes of generic
+ * classes, classes declared in methods) are not cached.
+ * <p>
+ * Instances are thread safe and meant to be used for a single generation.
+ */
+class CachingClassDescriptionConverter implements ClassDescriptionConverter<TypeToken<?>> {
+
+  private final AnnotationConfiguration annotationConfiguration = new AnnotationConfiguration(GenerateAssertion.class);
+  private final ConcurrentMap<MemberKey, GetterDescription> getterDescriptions = new ConcurrentHashMap<>();
+  private final ConcurrentMap<MemberKey, FieldDescription> fieldDescriptions = new ConcurrentHashMap<>();
+  private final ConcurrentMap<Class<?>, List<Field>> nonStaticFieldsInHierarchy = new ConcurrentHashMap<>();
+  private final AtomicInteger reusedDescriptionsCount = new AtomicInteger();
+  private final AtomicInteger builtDescriptionsCount = new AtomicInteger();
+
+  @Override
+  public ClassDescription convertToClassDescription(TypeToken<?> type) {
+    Class<?> rawType = type.getRawType();
+    checkArgument(!rawType.isLocalClass(), "Can not support Local class %s", type);
+    ClassDescription classDescription = new ClassDescription(type);
+    Set<Class<?>> includedAnnotations = annotationConfiguration.includedAnnotations();
+    classDescription.addGetterDescriptions(getterDescriptionsOf(type, getterMethodsOf(type, includedAnnotations)));
+    classDescription.addFieldDescriptions(fieldDescriptionsOf(type, nonStaticFieldsInHierarchyOf(rawType)));
+    classDescription.addDeclaredGetterDescriptions(getterDescriptionsOf(type,
+                                                                        declaredGetterMethodsOf(type,
+                                                                                                includedAnnotations)));
+    classDescription.addDeclaredFieldDescriptions(fieldDescriptionsOf(type, declaredFieldsOf(type)));
+    classDescription.setSuperType(rawType.getSuperclass());
+    return classDescription;
+  }
+
+  int getReusedDescriptionsCount() {
+    return reusedDescriptionsCount.get();
+  }
+
+  int getBuiltDescriptionsCount() {
+    return builtDescriptionsCount.get();
+  }
+
+  private Set<GetterDescription> getterDescriptionsOf(TypeToken<?> owningType, Set<Method> getters) {
+    Set<GetterDescription> descriptions = new TreeSet<>();
+    String owningPackageName = safePackageName(owningType);
+    for (Method getter : getters) {
+      // enum getDeclaringClass() is not a property
+      if (owningType.getRawType().isEnum() && getter.getName().equals("getDeclaringClass")) continue;
+      MemberKey key = MemberKey.of(getter, owningPackageName, owningType);
+      GetterDescription description = key == null ? null : getterDescriptions.get(key);
+      if (description != null) {
+        reusedDescriptionsCount.incrementAndGet();
+      } else {
+        description = new GetterDescription(propertyNameOf(getter), owningType, getter);
+        builtDescriptionsCount.incrementAndGet();
+        if (key != null) getterDescriptions.putIfAbsent(key, description);
+      }
+      descriptions.add(description);
+    }
+    return descriptions;
+  }
+
+  private Set<FieldDescription> fieldDescriptionsOf(TypeToken<?> owningType, Collection<Field> fields) {
+    Set<FieldDescription> descriptions = new TreeSet<>();
+    String owningPackageName = safePackageName(owningType);
+    for (Field field : fields) {
+      MemberKey key = MemberKey.of(field, owningPackageName, owningType);
+      FieldDescription description = key == null ? null : fieldDescriptions.get(key);
+      if (description != null) {
+        reusedDescriptionsCount.incrementAndGet();
+      } else {
+        description = new FieldDescription(field, visibilityOf(field), owningType);
+        builtDescriptionsCount.incrementAndGet();
+        if (key != null) fieldDescriptions.putIfAbsent(key, description);
+      }
+      descriptions.add(description);
+    }
+    return descriptions;
+  }
+
+  /**
+   * Same fields as {@link org.assertj.assertions.generator.util.ClassUtil#nonStaticFieldsOf(TypeToken)}, the fields of
+   * each super class being looked up once.
+   */
+  private List<Field> nonStaticFieldsInHierarchyOf(Class<?> clazz) {
+    List<Field> fields = nonStaticFieldsInHierarchy.get(clazz);
+    if (fields != null) return fields;
+    fields = new ArrayList<>(declaredFieldsOf(TypeToken.of(clazz)));
+    Class<?> superClass = clazz.getSuperclass();
+    if (superClass != null && !superClass.equals(Object.class)) fields.addAll(nonStaticFieldsInHierarchyOf(superClass));
+    nonStaticFieldsInHierarchy.putIfAbsent(clazz, fields);
+    return fields;
+  }
+
+  private static final class MemberKey {
+
+    private final Member member;
+    private final String owningPackageName;
+    private final Type declaringType;
+
+    private MemberKey(Member member, String owningPackageName, Type declaringType) {
+      this.member = member;
+      this.owningPackageName = owningPackageName;
+      this.declaringType = declaringType;
+    }
+
+    /**
+     * Returns the key of the given member owned by the given type or null if the member description can't be cached.
+     */
+    static MemberKey of(Member member, String owningPackageName, TypeToken<?> owningType) {
+      Class<?> declaringClass = member.getDeclaringClass();
+      if (!hasTypeVariablesInScope(declaringClass)) {
+        // member types are the same whatever the owning type
+        return new MemberKey(member, owningPackageName, declaringClass);
+      }
+      boolean nested = declaringClass.getEnclosingClass() != null;
+      if (nested && !Modifier.isStatic(declaringClass.getModifiers())) return null;
+      if (declaringClass.getEnclosingMethod() != null || declaringClass.getEnclosingConstructor() != null) return null;
+      return new MemberKey(member, owningPackageName, declaringTypeOf(owningType, declaringClass));
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Type declaringTypeOf(TypeToken<?> owningType, Class<?> declaringClass) {
+      // the declaring class with its type variables resolved from the owning type, e.g. Base<String>
+      return ((TypeToken) owningType).getSupertype(declaringClass).getType();
+    }
+
+    private static boolean hasTypeVariablesInScope(Class<?> clazz) {
+      for (Class<?> c = clazz; c != null; c = c.getEnclosingClass()) {
+        if (c.getTypeParameters().length > 0) return true;
+        if (c.getEnclosingMethod() != null || c.getEnclosingConstructor() != null) return true;
+        if (Modifier.isStatic(c.getModifiers())) return false;
+      }
+      return false;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) return true;
+      if (!(obj instanceof MemberKey)) return false;
+      MemberKey other = (MemberKey) obj;
+      return member.equals(other.member) && Objects.equals(owningPackageName, other.owningPackageName)
+             && declaringType.equals(other.declaringType);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(member, owningPackageName, declaringType);
+    }
+  }
+}
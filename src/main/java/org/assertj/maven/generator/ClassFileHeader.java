@@ -0,0 +1,194 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * Copyright 2012-2017 the original author or authors.
+ */
+package org.assertj.maven.generator;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Modifier;
+
+/**
+ * What we need to know about a class to decide whether to generate assertions for it, read straight from its class
+ * file so that the class does not have to be loaded.
+ * <p>
+ * Besides the header (access flags, name, super class) the InnerClasses attribute is read to know whether the class
+ * is a nested, anonymous or local one, nested classes access flags are taken from there as javac does not store them
+ * in the header.
+ */
+class ClassFileHeader {
+
+  private static final int MAGIC = 0xCAFEBABE;
+  private static final String INNER_CLASSES_ATTRIBUTE = "InnerClasses";
+  // constant pool tags
+  private static final int UTF8 = 1;
+  private static final int INTEGER = 3;
+  private static final int FLOAT = 4;
+  private static final int LONG = 5;
+  private static final int DOUBLE = 6;
+  private static final int CLASS = 7;
+  private static final int STRING = 8;
+  private static final int FIELD_REF = 9;
+  private static final int METHOD_REF = 10;
+  private static final int INTERFACE_METHOD_REF = 11;
+  private static final int NAME_AND_TYPE = 12;
+  private static final int METHOD_HANDLE = 15;
+  private static final int METHOD_TYPE = 16;
+  private static final int DYNAMIC = 17;
+  private static final int INVOKE_DYNAMIC = 18;
+  private static final int MODULE = 19;
+  private static final int PACKAGE = 20;
+
+  private final String className;
+  private final String superClassName;
+  private final int accessFlags;
+  private final boolean nested;
+  private final boolean anonymousOrLocal;
+
+  private ClassFileHeader(String className, String superClassName, int accessFlags, boolean nested,
+                          boolean anonymousOrLocal) {
+    this.className = className;
+    this.superClassName = superClassName;
+    this.accessFlags = accessFlags;
+    this.nested = nested;
+    this.anonymousOrLocal = anonymousOrLocal;
+  }
+
+  static ClassFileHeader read(InputStream classFile) throws IOException {
+    DataInputStream input = new DataInputStream(new BufferedInputStream(classFile));
+    if (input.readInt() != MAGIC) throw new IOException("Not a class file");
+    input.readUnsignedShort(); // minor version
+    input.readUnsignedShort(); // major version
+    int constantPoolCount = input.readUnsignedShort();
+    String[] utf8Constants = new String[constantPoolCount];
+    int[] classConstants = new int[constantPoolCount];
+    for (int i = 1; i < constantPoolCount; i++) {
+      int tag = input.readUnsignedByte();
+      switch (tag) {
+      case UTF8:
+        utf8Constants[i] = input.readUTF();
+        break;
+      case CLASS:
+        classConstants[i] = input.readUnsignedShort();
+        break;
+      case STRING:
+      case METHOD_TYPE:
+      case MODULE:
+      case PACKAGE:
+        skip(input, 2);
+        break;
+      case METHOD_HANDLE:
+        skip(input, 3);
+        break;
+      case INTEGER:
+      case FLOAT:
+      case FIELD_REF:
+      case METHOD_REF:
+      case INTERFACE_METHOD_REF:
+      case NAME_AND_TYPE:
+      case DYNAMIC:
+      case INVOKE_DYNAMIC:
+        skip(input, 4);
+        break;
+      case LONG:
+      case DOUBLE:
+        skip(input, 8);
+        i++; // takes two constant pool entries
+        break;
+      default:
+        throw new IOException("Unknown constant pool tag " + tag);
+      }
+    }
+    int accessFlags = input.readUnsignedShort();
+    int thisClass = input.readUnsignedShort();
+    int superClass = input.readUnsignedShort();
+    String className = classNameAt(thisClass, utf8Constants, classConstants);
+    String superClassName = superClass == 0 ? null : classNameAt(superClass, utf8Constants, classConstants);
+    skip(input, 2 * input.readUnsignedShort()); // interfaces
+    skipMembers(input); // fields
+    skipMembers(input); // methods
+    int attributesCount = input.readUnsignedShort();
+    for (int i = 0; i < attributesCount; i++) {
+      String attributeName = utf8Constants[input.readUnsignedShort()];
+      int attributeLength = input.readInt();
+      if (!INNER_CLASSES_ATTRIBUTE.equals(attributeName)) {
+        skip(input, attributeLength);
+        continue;
+      }
+      int innerClassesCount = input.readUnsignedShort();
+      for (int j = 0; j < innerClassesCount; j++) {
+        int innerClass = input.readUnsignedShort();
+        int outerClass = input.readUnsignedShort();
+        int innerName = input.readUnsignedShort();
+        int innerAccessFlags = input.readUnsignedShort();
+        if (innerClass == thisClass) {
+          boolean anonymousOrLocal = outerClass == 0 || innerName == 0;
+          return new ClassFileHeader(className, superClassName, innerAccessFlags, true, anonymousOrLocal);
+        }
+      }
+    }
+    return new ClassFileHeader(className, superClassName, accessFlags, false, false);
+  }
+
+  private static String classNameAt(int index, String[] utf8Constants, int[] classConstants) {
+    return utf8Constants[classConstants[index]].replace('/', '.');
+  }
+
+  private static void skipMembers(DataInputStream input) throws IOException {
+    int membersCount = input.readUnsignedShort();
+    for (int i = 0; i < membersCount; i++) {
+      skip(input, 6); // access flags, name and descriptor
+      int attributesCount = input.readUnsignedShort();
+      for (int j = 0; j < attributesCount; j++) {
+        skip(input, 2);
+        skip(input, input.readInt());
+      }
+    }
+  }
+
+  private static void skip(DataInputStream input, int byteCount) throws IOException {
+    int skipped = 0;
+    while (skipped < byteCount) {
+      int skippedNow = input.skipBytes(byteCount - skipped);
+      if (skippedNow <= 0) throw new IOException("Truncated class file");
+      skipped += skippedNow;
+    }
+  }
+
+  /**
+   * @return the binary name of the class, e.g. <code>com.nba.Player$Stats</code> for a nested class.
+   */
+  String getClassName() {
+    return className;
+  }
+
+  String getSuperClassName() {
+    return superClassName;
+  }
+
+  boolean isPublic() {
+    return Modifier.isPublic(accessFlags);
+  }
+
+  boolean isNested() {
+    return nested;
+  }
+
+  boolean isAnonymousOrLocal() {
+    return anonymousOrLocal;
+  }
+
+  boolean isPackageInfo() {
+    return className.endsWith("package-info") || className.endsWith("module-info");
+  }
+}
@@ -0,0 +1,303 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * Copyright 2012-2017 the original author or authors.
+ */
+package org.assertj.maven.generator;
+
+import static com.google.common.collect.Maps.newLinkedHashMap;
+import static com.google.common.collect.Sets.newLinkedHashSet;
+import static java.util.Collections.singletonMap;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+
+/**
+ * Finds the classes to generate assertions for by reading class files headers from the class loader directories and
+ * jars, classes are never loaded (let alone initialized) so that the ones that are going to be filtered out don't cost
+ * anything.
+ * <p>
+ * The classes found are the same as {@link org.assertj.assertions.generator.util.ClassUtil#collectClasses(ClassLoader, boolean, String...)} :
+ * <ul>
+ * <li>a given class is kept if it is public (or package private when allowed) and neither anonymous nor local,
+ * otherwise it is considered as a package</li>
+ * <li>a package gives its public classes and the ones of its sub packages, public nested classes are only taken from
+ * directories</li>
+ * </ul>
+ */
+class ClassFileScanner {
+
+  private static final String CLASS_FILE_EXTENSION = ".class";
+
+  private final ClassLoader classLoader;
+  private final JarIndexCache jarIndexCache;
+
+  ClassFileScanner(ClassLoader classLoader) {
+    this(classLoader, null);
+  }
+
+  /**
+   * @param jarIndexCache the cache of the classes found in jars, <code>null</code> to always scan jars.
+   */
+  ClassFileScanner(ClassLoader classLoader, JarIndexCache jarIndexCache) {
+    this.classLoader = classLoader;
+    this.jarIndexCache = jarIndexCache;
+  }
+
+  /**
+   * Returns the binary names of the classes found for the given classes or packages, in the order they were given.
+   */
+  Set<String> collectClassNames(boolean includePackagePrivateClasses, String... packagesOrClasses) throws IOException {
+    Map<String, Set<String>> classNamesByPackageOrClass = newLinkedHashMap();
+    Map<String, Set<String>> classNamesByPackagePath = newLinkedHashMap();
+    Set<File> jars = newLinkedHashSet();
+    for (String packageOrClass : packagesOrClasses) {
+      if (classNamesByPackageOrClass.containsKey(packageOrClass)) continue;
+      Set<String> classNames = newLinkedHashSet();
+      ClassFileHeader classFileHeader = classFileHeaderOf(packageOrClass);
+      if (classFileHeader != null && isCandidate(classFileHeader, includePackagePrivateClasses)) {
+        classNames.add(classFileHeader.getClassName());
+      } else {
+        String packagePath = packageOrClass.replace('.', '/');
+        collectClassNamesInDirectories(packagePath, classNames, jars);
+        classNamesByPackagePath.put(packagePath.isEmpty() ? packagePath : packagePath + "/", classNames);
+      }
+      classNamesByPackageOrClass.put(packageOrClass, classNames);
+    }
+    if (!classNamesByPackagePath.isEmpty()) {
+      jars.addAll(classpathJars());
+      collectClassNamesInJars(jars, classNamesByPackagePath);
+    }
+    Set<String> classNames = newLinkedHashSet();
+    for (Set<String> classNamesOfPackageOrClass : classNamesByPackageOrClass.values()) {
+      classNames.addAll(classNamesOfPackageOrClass);
+    }
+    return classNames;
+  }
+
+  /**
+   * Returns the binary names of the given changed classes that {@link #collectClassNames(boolean, String...)} would
+   * find for the given classes or packages, only reading their own class files: the deleted ones are not returned.
+   */
+  Set<String> collectChangedClassNames(Set<String> changedClassNames, boolean includePackagePrivateClasses,
+                                       String... packagesOrClasses) throws IOException {
+    Set<String> classNames = newLinkedHashSet();
+    Set<String> packages = newLinkedHashSet();
+    Set<String> classes = newLinkedHashSet();
+    for (String packageOrClass : packagesOrClasses) {
+      ClassFileHeader classFileHeader = classFileHeaderOf(packageOrClass);
+      if (classFileHeader != null && isCandidate(classFileHeader, includePackagePrivateClasses)) {
+        classes.add(packageOrClass);
+      } else {
+        packages.add(packageOrClass);
+      }
+    }
+    for (String changedClassName : changedClassNames) {
+      ClassFileHeader classFileHeader = classFileHeaderOf(changedClassName);
+      if (classFileHeader == null) continue;
+      // like when scanning packages, only public classes are found in a package
+      if (classes.contains(changedClassName) && isCandidate(classFileHeader, includePackagePrivateClasses)
+          || isInOneOf(packages, changedClassName) && isCandidate(classFileHeader, false)) {
+        classNames.add(classFileHeader.getClassName());
+      }
+    }
+    return classNames;
+  }
+
+  private static boolean isInOneOf(Set<String> packages, String className) {
+    for (String packageName : packages) {
+      if (packageName.isEmpty() || className.startsWith(packageName + ".")) return true;
+    }
+    return false;
+  }
+
+  private ClassFileHeader classFileHeaderOf(String className) throws IOException {
+    URL classFile = classLoader.getResource(className.replace('.', '/') + CLASS_FILE_EXTENSION);
+    if (classFile == null) return null;
+    URLConnection connection = classFile.openConnection();
+    // don't let the JDK keep the jar opened once we are done
+    connection.setUseCaches(false);
+    try (InputStream input = connection.getInputStream()) {
+      return ClassFileHeader.read(input);
+    }
+  }
+
+  /**
+   * Scans the package directories, the jars containing the package are added to the given ones to be scanned later
+   * all at once.
+   */
+  private void collectClassNamesInDirectories(String packagePath, Set<String> classNames,
+                                              Set<File> jars) throws IOException {
+    Enumeration<URL> packageResources = classLoader.getResources(packagePath);
+    while (packageResources.hasMoreElements()) {
+      URL packageResource = packageResources.nextElement();
+      File packageLocation = fileOf(packageResource);
+      if (packageLocation == null) continue;
+      if (packageLocation.isDirectory()) collectClassNamesInDirectory(packageLocation, classNames);
+      else jars.add(packageLocation);
+    }
+  }
+
+  private static void collectClassNamesInDirectory(File directory, Set<String> classNames) throws IOException {
+    File[] files = directory.listFiles();
+    if (files == null) return;
+    Arrays.sort(files);
+    for (File file : files) {
+      if (file.isDirectory()) {
+        collectClassNamesInDirectory(file, classNames);
+      } else if (file.getName().endsWith(CLASS_FILE_EXTENSION)) {
+        ClassFileHeader classFileHeader = readClassFileHeader(new FileInputStream(file));
+        if (classFileHeader != null && isCandidate(classFileHeader, false)) classNames.add(classFileHeader.getClassName());
+      }
+    }
+  }
+
+  /**
+   * Jars are scanned once for all the packages, only the class files of the requested packages are read unless the
+   * jars index is cached, in which case the whole jar is indexed once.
+   */
+  private void collectClassNamesInJars(Set<File> jars,
+                                       Map<String, Set<String>> classNamesByPackagePath) throws IOException {
+    for (File jar : jars) {
+      if (jarIndexCache == null) {
+        collectClassNamesInJar(jar, classNamesByPackagePath);
+        continue;
+      }
+      for (String className : jarIndexCache.classNamesOf(jar)) {
+        for (Set<String> classNames : classNamesOfPackagesContaining(className.replace('.', '/'),
+                                                                     classNamesByPackagePath)) {
+          classNames.add(className);
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the binary names of all the classes that can be found in the given jar whatever their package.
+   */
+  static List<String> topLevelClassNamesIn(File jar) throws IOException {
+    Set<String> classNames = newLinkedHashSet();
+    collectClassNamesInJar(jar, singletonMap("", classNames));
+    return new ArrayList<>(classNames);
+  }
+
+  private static void collectClassNamesInJar(File jar,
+                                             Map<String, Set<String>> classNamesByPackagePath) throws IOException {
+    try (JarFile jarFile = new JarFile(jar)) {
+      Enumeration<JarEntry> entries = jarFile.entries();
+      while (entries.hasMoreElements()) {
+        JarEntry entry = entries.nextElement();
+        String entryName = entry.getName();
+        // like guava ClassPath, only top level classes are taken from jars
+        if (!entryName.endsWith(CLASS_FILE_EXTENSION) || entryName.indexOf('$') >= 0) continue;
+        List<Set<String>> classNamesOfMatchingPackages = classNamesOfPackagesContaining(entryName,
+                                                                                         classNamesByPackagePath);
+        if (classNamesOfMatchingPackages.isEmpty()) continue;
+        ClassFileHeader classFileHeader = readClassFileHeader(jarFile.getInputStream(entry));
+        if (classFileHeader == null || !isCandidate(classFileHeader, false)) continue;
+        for (Set<String> classNames : classNamesOfMatchingPackages) {
+          classNames.add(classFileHeader.getClassName());
+        }
+      }
+    }
+  }
+
+  private static List<Set<String>> classNamesOfPackagesContaining(String entryName,
+                                                                  Map<String, Set<String>> classNamesByPackagePath) {
+    List<Set<String>> classNamesOfMatchingPackages = new ArrayList<>(1);
+    for (Map.Entry<String, Set<String>> classNamesOfPackage : classNamesByPackagePath.entrySet()) {
+      if (entryName.startsWith(classNamesOfPackage.getKey())) classNamesOfMatchingPackages.add(classNamesOfPackage.getValue());
+    }
+    return classNamesOfMatchingPackages;
+  }
+
+  /**
+   * The jars of the class loader hierarchy, including the ones referenced by their manifest Class-Path.
+   */
+  private Set<File> classpathJars() {
+    Set<File> jars = newLinkedHashSet();
+    for (ClassLoader loader = classLoader; loader != null; loader = loader.getParent()) {
+      if (!(loader instanceof URLClassLoader)) continue;
+      for (URL url : ((URLClassLoader) loader).getURLs()) {
+        addJar(fileOf(url), jars);
+      }
+    }
+    return jars;
+  }
+
+  private static void addJar(File file, Set<File> jars) {
+    if (file == null || !file.isFile() || !jars.add(file)) return;
+    String manifestClassPath;
+    try (JarFile jarFile = new JarFile(file)) {
+      Manifest manifest = jarFile.getManifest();
+      if (manifest == null) return;
+      manifestClassPath = manifest.getMainAttributes().getValue(Attributes.Name.CLASS_PATH);
+    } catch (IOException e) {
+      // not a jar
+      jars.remove(file);
+      return;
+    }
+    if (manifestClassPath == null) return;
+    for (String classPathEntry : manifestClassPath.trim().split("\\s+")) {
+      if (classPathEntry.isEmpty()) continue;
+      try {
+        addJar(fileOf(new URL(file.toURI().toURL(), classPathEntry)), jars);
+      } catch (MalformedURLException e) {
+        // ignore invalid manifest entries as the JDK does
+      }
+    }
+  }
+
+  private static File fileOf(URL url) {
+    try {
+      if ("jar".equals(url.getProtocol())) return fileOf(((JarURLConnection) url.openConnection()).getJarFileURL());
+      if (!"file".equals(url.getProtocol())) return null;
+      return new File(url.toURI());
+    } catch (URISyntaxException | IOException | IllegalArgumentException e) {
+      return new File(url.getPath());
+    }
+  }
+
+  /**
+   * Reads and closes the given class file, returns null if it can't be read so that it is skipped as a class that
+   * can't be loaded would be.
+   */
+  private static ClassFileHeader readClassFileHeader(InputStream classFile) {
+    try (InputStream input = classFile) {
+      return ClassFileHeader.read(input);
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  private static boolean isCandidate(ClassFileHeader classFileHeader, boolean includePackagePrivateClasses) {
+    return !classFileHeader.isPackageInfo()
+           && (includePackagePrivateClasses || classFileHeader.isPublic())
+           && !classFileHeader.isAnonymousOrLocal();
+  }
+}
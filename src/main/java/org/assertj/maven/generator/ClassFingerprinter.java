@@ -0,0 +1,200 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * Copyright 2012-2017 the original author or authors.
+ */
+package org.assertj.maven.generator;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.collect.Maps.newHashMap;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.MalformedParameterizedTypeException;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import com.google.common.reflect.TypeToken;
+
+/**
+ * Computes a fingerprint of a class to generate assertions for from its bytecode and the bytecode of its whole type
+ * hierarchy, since inherited properties end up in the generated assertions too.
+ * <p>
+ * The generated assertions also depend on the type hierarchy of the properties and fields value types and of their
+ * type arguments (a value type becoming iterable gets iterable assertions), their bytecode is part of the fingerprint
+ * too, JDK classes aside.
+ * <p>
+ * In hierarchical mode the generated assertions also depend on which super types assertions are generated for, this
+ * is part of the fingerprint as well.
+ */
+class ClassFingerprinter {
+
+  private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+  private final ClassLoader classLoader;
+  private final Map<Class<?>, HashCode> bytecodeHashes;
+  private final Map<Class<?>, Set<Class<?>>> valueTypesHierarchies;
+
+  ClassFingerprinter(ClassLoader classLoader) {
+    this.classLoader = classLoader;
+    this.bytecodeHashes = newHashMap();
+    this.valueTypesHierarchies = newHashMap();
+  }
+
+  String fingerprintOf(TypeToken<?> type, HierarchyIndex hierarchyIndex, boolean hierarchical) {
+    Hasher hasher = HASH_FUNCTION.newHasher();
+    for (TypeToken<?> superType : type.getTypes()) {
+      Class<?> rawSuperType = superType.getRawType();
+      hasher.putString(rawSuperType.getName(), UTF_8);
+      hasher.putBytes(bytecodeHashOf(rawSuperType).asBytes());
+      if (hierarchical) hasher.putBoolean(hierarchyIndex.isGenerated(rawSuperType));
+    }
+    for (Class<?> valueType : valueTypesHierarchyOf(type.getRawType())) {
+      hasher.putString(valueType.getName(), UTF_8);
+      hasher.putBytes(bytecodeHashOf(valueType).asBytes());
+    }
+    return hasher.hash().toString();
+  }
+
+  /**
+   * Returns true if the generated assertions of the given class depend on one of the given classes, through its type
+   * hierarchy or the one of its properties and fields value types, without reading any bytecode.
+   */
+  boolean dependsOnOneOf(TypeToken<?> type, Set<String> classNames) {
+    for (TypeToken<?> superType : type.getTypes()) {
+      if (classNames.contains(superType.getRawType().getName())) return true;
+    }
+    for (Class<?> valueType : valueTypesHierarchyOf(type.getRawType())) {
+      if (classNames.contains(valueType.getName())) return true;
+    }
+    return false;
+  }
+
+  /**
+   * The classes, JDK ones aside, of the type hierarchies of the value types of the methods without parameters (getters
+   * are a subset of them) and of the fields declared in the hierarchy of the given class, along with their type
+   * arguments, array components and bounds, in a stable order.
+   */
+  private Set<Class<?>> valueTypesHierarchyOf(Class<?> clazz) {
+    Set<Class<?>> valueTypesHierarchy = valueTypesHierarchies.get(clazz);
+    if (valueTypesHierarchy != null) return valueTypesHierarchy;
+    Set<Class<?>> valueTypes = new LinkedHashSet<>();
+    Set<Type> visitedTypes = new HashSet<>();
+    for (TypeToken<?> superType : TypeToken.of(clazz).getTypes()) {
+      Class<?> rawSuperType = superType.getRawType();
+      if (rawSuperType.getClassLoader() == null) continue;
+      try {
+        for (Method method : sortedByName(rawSuperType.getDeclaredMethods())) {
+          if (method.getParameterTypes().length == 0) collectClasses(method.getGenericReturnType(), valueTypes,
+                                                                     visitedTypes);
+        }
+        for (Field field : sortedByName(rawSuperType.getDeclaredFields())) {
+          collectClasses(field.getGenericType(), valueTypes, visitedTypes);
+        }
+      } catch (LinkageError | TypeNotPresentException | MalformedParameterizedTypeException e) {
+        // the generation will report it, the class is generated again meanwhile
+        valueTypes.add(rawSuperType);
+      }
+    }
+    valueTypesHierarchy = new LinkedHashSet<>();
+    for (Class<?> valueType : valueTypes) {
+      try {
+        for (TypeToken<?> valueSuperType : TypeToken.of(valueType).getTypes()) {
+          Class<?> rawValueSuperType = valueSuperType.getRawType();
+          if (rawValueSuperType.getClassLoader() != null) valueTypesHierarchy.add(rawValueSuperType);
+        }
+      } catch (LinkageError | TypeNotPresentException e) {
+        if (valueType.getClassLoader() != null) valueTypesHierarchy.add(valueType);
+      }
+    }
+    valueTypesHierarchies.put(clazz, valueTypesHierarchy);
+    return valueTypesHierarchy;
+  }
+
+  private static void collectClasses(Type type, Set<Class<?>> classes, Set<Type> visitedTypes) {
+    if (!visitedTypes.add(type)) return;
+    if (type instanceof Class) {
+      Class<?> clazz = (Class<?>) type;
+      if (clazz.isArray()) collectClasses(clazz.getComponentType(), classes, visitedTypes);
+      else if (!clazz.isPrimitive()) classes.add(clazz);
+    } else if (type instanceof ParameterizedType) {
+      collectClasses(((ParameterizedType) type).getRawType(), classes, visitedTypes);
+      for (Type typeArgument : ((ParameterizedType) type).getActualTypeArguments()) {
+        collectClasses(typeArgument, classes, visitedTypes);
+      }
+    } else if (type instanceof GenericArrayType) {
+      collectClasses(((GenericArrayType) type).getGenericComponentType(), classes, visitedTypes);
+    } else if (type instanceof WildcardType) {
+      for (Type bound : ((WildcardType) type).getUpperBounds()) {
+        collectClasses(bound, classes, visitedTypes);
+      }
+      for (Type bound : ((WildcardType) type).getLowerBounds()) {
+        collectClasses(bound, classes, visitedTypes);
+      }
+    } else if (type instanceof TypeVariable) {
+      for (Type bound : ((TypeVariable<?>) type).getBounds()) {
+        collectClasses(bound, classes, visitedTypes);
+      }
+    }
+  }
+
+  // reflection gives members in no particular order, the fingerprint must not depend on it
+  private static <T extends Member> List<T> sortedByName(T[] members) {
+    List<T> sortedMembers = new ArrayList<>(Arrays.asList(members));
+    Collections.sort(sortedMembers, new Comparator<T>() {
+      @Override
+      public int compare(T member1, T member2) {
+        return member1.toString().compareTo(member2.toString());
+      }
+    });
+    return sortedMembers;
+  }
+
+  private HashCode bytecodeHashOf(Class<?> clazz) {
+    HashCode bytecodeHash = bytecodeHashes.get(clazz);
+    if (bytecodeHash == null) {
+      bytecodeHash = HASH_FUNCTION.hashBytes(bytecodeOf(clazz));
+      bytecodeHashes.put(clazz, bytecodeHash);
+    }
+    return bytecodeHash;
+  }
+
+  private byte[] bytecodeOf(Class<?> clazz) {
+    // JDK classes are loaded by the bootstrap class loader, their name is a good enough fingerprint.
+    if (clazz.getClassLoader() == null) return new byte[0];
+    String classFile = clazz.getName().replace('.', '/') + ".class";
+    try (InputStream bytecode = classLoader.getResourceAsStream(classFile)) {
+      return bytecode == null ? new byte[0] : ByteStreams.toByteArray(bytecode);
+    } catch (IOException e) {
+      // can't read the bytecode, use a fingerprint that won't match any previous one to regenerate the assertions.
+      return String.valueOf(System.nanoTime()).getBytes(UTF_8);
+    }
+  }
+}
@@ -0,0 +1,54 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * Copyright 2012-2017 the original author or authors.
+ */
+package org.assertj.maven.generator;
+
+import org.assertj.assertions.generator.description.ClassDescription;
+
+import com.google.common.reflect.TypeToken;
+
+/**
+ * Description of a class as needed by entry point classes, i.e. only its names, computed once.
+ * <p>
+ * Each entry point flavor (standard, BDD, soft ...) sorts the classes and renders a method per class from their class
+ * and assert class names, these are computed from the class type each time they are asked for by a plain
+ * {@link ClassDescription}, they are computed once here for all the flavors.
+ */
+class EntryPointClassDescription extends ClassDescription {
+
+  private final String fullyQualifiedClassName;
+  private final String fullyQualifiedAssertClassName;
+  private final String packageName;
+
+  EntryPointClassDescription(TypeToken<?> type) {
+    super(type);
+    // first as the assert class name is built from it
+    packageName = super.getPackageName();
+    fullyQualifiedClassName = super.getFullyQualifiedClassName();
+    fullyQualifiedAssertClassName = super.getFullyQualifiedAssertClassName();
+  }
+
+  @Override
+  public String getFullyQualifiedClassName() {
+    return fullyQualifiedClassName;
+  }
+
+  @Override
+  public String getFullyQualifiedAssertClassName() {
+    return fullyQualifiedAssertClassName;
+  }
+
+  @Override
+  public String getPackageName() {
+    return packageName;
+  }
+}
@@ -0,0 +1,40 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * Copyright 2012-2017 the original author or authors.
+ */
+package org.assertj.maven.generator;
+
+/**
+ * The phases of an assertions generation whose duration is reported.
+ */
+public enum GenerationPhase {
+
+  CLASS_LOADER_BUILD("class loader build"),
+  CLASS_COLLECTION("class collection"),
+  ASSERT_CLASSES_REMOVAL("Assert classes removal"),
+  INCLUDE_EXCLUDE_FILTERING("include/exclude filtering"),
+  FINGERPRINTING("incremental fingerprinting"),
+  DESCRIPTION_CONVERSION("description conversion"),
+  RENDERING("rendering"),
+  FILE_WRITES("file writes"),
+  ENTRY_POINT_GENERATION("entry point generation"),
+  PLANNING("dry run planning");
+
+  private final String description;
+
+  GenerationPhase(String description) {
+    this.description = description;
+  }
+
+  public String getDescription() {
+    return description;
+  }
+}
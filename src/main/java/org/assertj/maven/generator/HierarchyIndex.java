@@ -0,0 +1,64 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * Copyright 2012-2017 the original author or authors.
+ */
+package org.assertj.maven.generator;
+
+import static java.util.Collections.emptySet;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.reflect.TypeToken;
+
+/**
+ * Super class of each class assertions are generated for, when assertions are generated for it too, built once per
+ * generation.
+ * <p>
+ * Hierarchical assertions of a class only depend on whether assertions are generated for its super class: instead of
+ * giving the whole set of generated classes to the generator for each class, it is given the (at most one element)
+ * set of its generated super class, found in constant time.
+ */
+class HierarchyIndex {
+
+  private static final Set<TypeToken<?>> NO_GENERATED_SUPER_TYPE = emptySet();
+
+  private final Map<Class<?>, Set<TypeToken<?>>> generatedSuperTypes;
+
+  HierarchyIndex(Collection<TypeToken<?>> generatedTypes) {
+    generatedSuperTypes = new HashMap<>(generatedTypes.size() * 2);
+    for (TypeToken<?> generatedType : generatedTypes) {
+      generatedSuperTypes.put(generatedType.getRawType(), NO_GENERATED_SUPER_TYPE);
+    }
+    for (TypeToken<?> generatedType : generatedTypes) {
+      Class<?> rawType = generatedType.getRawType();
+      Class<?> superClass = rawType.getSuperclass();
+      if (superClass == null || !generatedSuperTypes.containsKey(superClass)) continue;
+      generatedSuperTypes.put(rawType, Collections.<TypeToken<?>> singleton(TypeToken.of(superClass)));
+    }
+  }
+
+  boolean isGenerated(Class<?> clazz) {
+    return generatedSuperTypes.containsKey(clazz);
+  }
+
+  /**
+   * Returns the super class of the given class if assertions are generated for it, as a set to be given to the
+   * hierarchical generation in place of all the generated classes.
+   */
+  Set<TypeToken<?>> generatedSuperTypeOf(Class<?> clazz) {
+    Set<TypeToken<?>> generatedSuperType = generatedSuperTypes.get(clazz);
+    return generatedSuperType == null ? NO_GENERATED_SUPER_TYPE : generatedSuperType;
+  }
+}
@@ -0,0 +1,196 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * Copyright 2012-2017 the original author or authors.
+ */
+package org.assertj.maven.generator;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.collect.Maps.newTreeMap;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Remembers, for each class assertions were generated for, the fingerprint of its bytecode and the files generated
+ * from it.
+ * <p>
+ * The state is persisted between builds so that the next generation only has to convert and render the classes whose
+ * fingerprint has changed (or whose generated files have disappeared).
+ */
+class IncrementalGenerationState {
+
+  private static final String HEADER = "# AssertJ assertions generator incremental state - do not edit";
+  private static final String CONFIGURATION_KEY = "@configuration";
+  private static final String SEPARATOR = ",";
+
+  private final File baseDirectory;
+  private final String configurationFingerprint;
+  private String previousConfigurationFingerprint;
+  private final Map<String, ClassState> classStates;
+
+  IncrementalGenerationState(File baseDirectory, String configurationFingerprint) {
+    this.baseDirectory = baseDirectory;
+    this.configurationFingerprint = configurationFingerprint;
+    this.classStates = newTreeMap();
+  }
+
+  /**
+   * Loads the state previously saved in the given file, if the state was saved with a different configuration
+   * fingerprint no class is considered up to date, if it can't be read an empty state is returned, both forcing to
+   * generate everything again.
+   */
+  static IncrementalGenerationState load(File stateFile, File baseDirectory, String configurationFingerprint) {
+    IncrementalGenerationState state = new IncrementalGenerationState(baseDirectory, configurationFingerprint);
+    if (!stateFile.isFile()) return state;
+    try (BufferedReader reader = Files.newBufferedReader(stateFile.toPath(), UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.isEmpty() || line.startsWith("#")) continue;
+        int keyEnd = line.indexOf('=');
+        if (keyEnd < 0) continue;
+        String key = line.substring(0, keyEnd);
+        String[] values = line.substring(keyEnd + 1).split(SEPARATOR);
+        if (CONFIGURATION_KEY.equals(key)) {
+          state.previousConfigurationFingerprint = values[0];
+          continue;
+        }
+        List<String> generatedFiles = new ArrayList<>();
+        for (int i = 1; i < values.length; i++) {
+          generatedFiles.add(values[i]);
+        }
+        state.classStates.put(key, new ClassState(values[0], generatedFiles));
+      }
+    } catch (IOException | RuntimeException e) {
+      // best effort : an unreadable state only means everything gets generated again.
+      state.classStates.clear();
+    }
+    return state;
+  }
+
+  void save(File stateFile) throws IOException {
+    File stateDirectory = stateFile.getParentFile();
+    if (stateDirectory != null) Files.createDirectories(stateDirectory.toPath());
+    try (Writer writer = Files.newBufferedWriter(stateFile.toPath(), UTF_8)) {
+      writer.write(HEADER);
+      writer.write('\n');
+      writer.write(CONFIGURATION_KEY + "=" + configurationFingerprint);
+      writer.write('\n');
+      for (Map.Entry<String, ClassState> classState : classStates.entrySet()) {
+        writer.write(classState.getKey());
+        writer.write('=');
+        writer.write(classState.getValue().fingerprint);
+        for (String generatedFile : classState.getValue().generatedFiles) {
+          writer.write(SEPARATOR);
+          writer.write(generatedFile);
+        }
+        writer.write('\n');
+      }
+    }
+  }
+
+  /**
+   * Returns true if the given class was generated with the same fingerprint and all its generated files still exist.
+   */
+  boolean isUpToDate(String className, String fingerprint) {
+    ClassState classState = classStates.get(className);
+    return classState != null && classState.fingerprint.equals(fingerprint) && isUpToDate(className);
+  }
+
+  /**
+   * Returns true if the given class, known to be unchanged, was generated with the same configuration and all its
+   * generated files still exist.
+   */
+  boolean isUpToDate(String className) {
+    if (!hasSameConfiguration() || !classStates.containsKey(className)) return false;
+    for (File generatedFile : generatedFilesOf(className)) {
+      if (!generatedFile.isFile()) return false;
+    }
+    return true;
+  }
+
+  /**
+   * Returns true if the state was saved with the same configuration fingerprint it was loaded with.
+   */
+  boolean hasSameConfiguration() {
+    return configurationFingerprint.equals(previousConfigurationFingerprint);
+  }
+
+  void record(String className, String fingerprint, File... generatedFiles) {
+    List<String> relativePaths = new ArrayList<>(generatedFiles.length);
+    for (File generatedFile : generatedFiles) {
+      relativePaths.add(relativePathOf(generatedFile));
+    }
+    classStates.put(className, new ClassState(fingerprint, relativePaths));
+  }
+
+  void copy(String className, IncrementalGenerationState otherState) {
+    classStates.put(className, otherState.classStates.get(className));
+  }
+
+  List<File> generatedFilesOf(String className) {
+    ClassState classState = classStates.get(className);
+    if (classState == null) return Collections.emptyList();
+    List<File> generatedFiles = new ArrayList<>(classState.generatedFiles.size());
+    for (String relativePath : classState.generatedFiles) {
+      generatedFiles.add(new File(baseDirectory, relativePath));
+    }
+    return generatedFiles;
+  }
+
+  Set<String> getClassNames() {
+    return classStates.keySet();
+  }
+
+  /**
+   * Returns the files generated according to this state that are not generated anymore according to the given state,
+   * i.e. the files of the classes that have been removed or excluded since, or that are not generated anymore for the
+   * remaining classes (like abstract assertions when hierarchical generation is disabled).
+   */
+  Set<File> staleFilesComparedTo(IncrementalGenerationState currentState) {
+    Set<String> currentFiles = new HashSet<>();
+    for (ClassState classState : currentState.classStates.values()) {
+      currentFiles.addAll(classState.generatedFiles);
+    }
+    Set<File> staleFiles = new TreeSet<>();
+    for (ClassState classState : classStates.values()) {
+      for (String generatedFile : classState.generatedFiles) {
+        if (!currentFiles.contains(generatedFile)) staleFiles.add(new File(baseDirectory, generatedFile));
+      }
+    }
+    return staleFiles;
+  }
+
+  private String relativePathOf(File generatedFile) {
+    String relativePath = baseDirectory.getAbsoluteFile().toPath()
+                                       .relativize(generatedFile.getAbsoluteFile().toPath()).toString();
+    return relativePath.replace(File.separatorChar, '/');
+  }
+
+  private static class ClassState {
+    private final String fingerprint;
+    private final List<String> generatedFiles;
+
+    ClassState(String fingerprint, List<String> generatedFiles) {
+      this.fingerprint = fingerprint;
+      this.generatedFiles = generatedFiles;
+    }
+  }
+}
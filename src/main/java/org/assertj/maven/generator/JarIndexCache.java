@@ -0,0 +1,156 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * Copyright 2012-2017 the original author or authors.
+ */
+package org.assertj.maven.generator;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.Collections.unmodifiableList;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.common.hash.Hashing;
+import org.assertj.maven.generator.JarIndexes.JarIndex;
+
+/**
+ * Keeps on disk, for each jar, the names of the classes {@link ClassFileScanner} can find in it so that jars are only
+ * scanned again when their path, size or last modification time change.
+ * <p>
+ * The cache directory can be shared by several modules and builds, even running concurrently: index files are written
+ * in a temporary file then moved in place and a jar is only scanned again if its index can't be read.
+ * <p>
+ * Indexes can also be kept in memory with {@link JarIndexes} shared by the generations of a build.
+ */
+class JarIndexCache {
+
+  private static final String HEADER = "# AssertJ assertions generator jar index - do not edit";
+  private static final String KEY = "@key=";
+  private static final String SCAN_TIME = "@scanTime=";
+  private static final String INDEX_FILE_EXTENSION = ".idx";
+
+  private final File cacheDirectory;
+  private final JarIndexes sharedJarIndexes;
+  private int reusedIndexesCount;
+  private int builtIndexesCount;
+  private long savedNanos;
+
+  /**
+   * @param cacheDirectory the directory where indexes are saved, <code>null</code> to only keep them in memory.
+   * @param sharedJarIndexes the indexes kept in memory, <code>null</code> to only keep them on disk.
+   */
+  JarIndexCache(File cacheDirectory, JarIndexes sharedJarIndexes) {
+    this.cacheDirectory = cacheDirectory;
+    this.sharedJarIndexes = sharedJarIndexes;
+  }
+
+  /**
+   * Returns the binary names of the public top level classes of the given jar, from its cached index if it is still
+   * valid, otherwise the jar is scanned and its index saved.
+   */
+  List<String> classNamesOf(File jar) throws IOException {
+    long start = System.nanoTime();
+    String key = keyOf(jar);
+    JarIndex jarIndex = sharedJarIndexes == null ? null : sharedJarIndexes.get(key);
+    if (jarIndex == null && cacheDirectory != null) {
+      jarIndex = load(indexFileOf(jar), key);
+      if (jarIndex != null && sharedJarIndexes != null) sharedJarIndexes.put(key, jarIndex);
+    }
+    if (jarIndex != null) {
+      reusedIndexesCount++;
+      savedNanos += Math.max(0, jarIndex.scanNanos - (System.nanoTime() - start));
+      return jarIndex.classNames;
+    }
+    List<String> classNames = unmodifiableList(ClassFileScanner.topLevelClassNamesIn(jar));
+    builtIndexesCount++;
+    jarIndex = new JarIndex(System.nanoTime() - start, classNames);
+    if (sharedJarIndexes != null) sharedJarIndexes.put(key, jarIndex);
+    if (cacheDirectory != null) save(indexFileOf(jar), key, jarIndex);
+    return classNames;
+  }
+
+  int getReusedIndexesCount() {
+    return reusedIndexesCount;
+  }
+
+  int getBuiltIndexesCount() {
+    return builtIndexesCount;
+  }
+
+  /**
+   * @return an estimate of the time saved by not scanning the jars whose index was reused.
+   */
+  long getSavedMillis() {
+    return NANOSECONDS.toMillis(savedNanos);
+  }
+
+  private static String keyOf(File jar) {
+    return jar.getAbsolutePath() + File.pathSeparator + jar.length() + File.pathSeparator + jar.lastModified();
+  }
+
+  private File indexFileOf(File jar) {
+    return new File(cacheDirectory, Hashing.murmur3_128().hashString(jar.getAbsolutePath(), UTF_8)
+                                    + INDEX_FILE_EXTENSION);
+  }
+
+  private static JarIndex load(File indexFile, String key) {
+    if (!indexFile.isFile()) return null;
+    try (BufferedReader reader = Files.newBufferedReader(indexFile.toPath(), UTF_8)) {
+      if (!HEADER.equals(reader.readLine()) || !(KEY + key).equals(reader.readLine())) return null;
+      String scanTime = reader.readLine();
+      if (scanTime == null || !scanTime.startsWith(SCAN_TIME)) return null;
+      long scanNanos = Long.parseLong(scanTime.substring(SCAN_TIME.length()));
+      List<String> classNames = new ArrayList<>();
+      String className;
+      while ((className = reader.readLine()) != null) {
+        if (!className.isEmpty()) classNames.add(className);
+      }
+      return new JarIndex(scanNanos, unmodifiableList(classNames));
+    } catch (IOException | RuntimeException e) {
+      // best effort : the jar is scanned again
+      return null;
+    }
+  }
+
+  private void save(File indexFile, String key, JarIndex jarIndex) {
+    File temporaryIndexFile = null;
+    try {
+      Files.createDirectories(cacheDirectory.toPath());
+      temporaryIndexFile = File.createTempFile(indexFile.getName(), ".tmp", cacheDirectory);
+      try (Writer writer = Files.newBufferedWriter(temporaryIndexFile.toPath(), UTF_8)) {
+        writer.write(HEADER + "\n");
+        writer.write(KEY + key + "\n");
+        writer.write(SCAN_TIME + jarIndex.scanNanos + "\n");
+        for (String className : jarIndex.classNames) {
+          writer.write(className);
+          writer.write('\n');
+        }
+      }
+      try {
+        Files.move(temporaryIndexFile.toPath(), indexFile.toPath(), REPLACE_EXISTING, ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temporaryIndexFile.toPath(), indexFile.toPath(), REPLACE_EXISTING);
+      }
+    } catch (IOException e) {
+      // best effort : the jar will be scanned again next time
+      if (temporaryIndexFile != null) temporaryIndexFile.delete();
+    }
+  }
+}
@@ -0,0 +1,51 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * Copyright 2012-2017 the original author or authors.
+ */
+package org.assertj.maven.generator;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * In memory jar indexes that can be shared by several generations, possibly running concurrently, to avoid scanning
+ * the same jars (or reading their cached index) again.
+ */
+public class JarIndexes {
+
+  private final ConcurrentMap<String, JarIndex> jarIndexesByKey = new ConcurrentHashMap<>();
+
+  JarIndex get(String jarKey) {
+    return jarIndexesByKey.get(jarKey);
+  }
+
+  void put(String jarKey, JarIndex jarIndex) {
+    jarIndexesByKey.put(jarKey, jarIndex);
+  }
+
+  public void clear() {
+    jarIndexesByKey.clear();
+  }
+
+  /**
+   * The classes found in a jar and the time it took to find them.
+   */
+  static class JarIndex {
+    final long scanNanos;
+    final List<String> classNames;
+
+    JarIndex(long scanNanos, List<String> classNames) {
+      this.scanNanos = scanNanos;
+      this.classNames = classNames;
+    }
+  }
+}
@@ -0,0 +1,231 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * Copyright 2012-2017 the original author or authors.
+ */
+package org.assertj.maven.generator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+import org.assertj.assertions.generator.AssertionsEntryPointType;
+import org.assertj.maven.generator.AssertionsGeneratorReport.ClassGenerationTime;
+import org.assertj.maven.generator.AssertionsGeneratorReport.PhaseTime;
+
+/**
+ * Writes an {@link AssertionsGeneratorReport} as JSON for tools like CI dashboards.
+ * <p>
+ * The report is streamed to the given writer, file names and class names are written one by one without building the
+ * whole document in memory.
+ */
+public class JsonReportWriter {
+
+  private final Writer writer;
+  // whether the current object or array already has an element, i.e. whether the next one must be preceded by a comma
+  private boolean hasElement;
+
+  private JsonReportWriter(Writer writer) {
+    this.writer = writer;
+  }
+
+  public static void write(AssertionsGeneratorReport report, Writer writer) throws IOException {
+    new JsonReportWriter(writer).writeReport(report);
+  }
+
+  private void writeReport(AssertionsGeneratorReport report) throws IOException {
+    writer.write('{');
+    hasElement = false;
+    field("status", statusOf(report));
+    if (report.generationError()) field("error", String.valueOf(report.getReportedException().getMessage()));
+    field("targetDirectory", report.getDirectoryPathWhereAssertionFilesAreGenerated());
+    array("inputPackages", asList(report.getInputPackages()));
+    array("inputClasses", asList(report.getInputClasses()));
+
+    startObject("classes");
+    field("found", report.getFoundClassesCount());
+    field("excluded", report.getExcludedClassNamesFromAssertionGeneration().size());
+    field("notFound", report.getInputClassesNotFound().size());
+    field("generated", report.getGeneratedClassesCount());
+    field("upToDate", report.getUpToDateClassesCount());
+    field("removed", report.getRemovedClassesCount());
+    endObject();
+
+    startObject("files");
+    field("written", report.getGeneratedCustomAssertionFileNames().size());
+    field("unchanged", report.getUnchangedCustomAssertionFileNames().size());
+    field("pruned", report.getPrunedCustomAssertionFileNames().size());
+    endObject();
+
+    startArray("entryPoints");
+    for (Map.Entry<AssertionsEntryPointType, File> entryPoint : report.getAssertionsEntryPointFilesByType().entrySet()) {
+      startObject(null);
+      field("type", entryPoint.getKey().name());
+      field("file", entryPoint.getValue().getAbsolutePath());
+      field("unchanged", report.getUnchangedAssertionsEntryPoints().contains(entryPoint.getKey()));
+      endObject();
+    }
+    endArray();
+    array("packageEntryPoints", report.getPackageEntryPointFileNames());
+    array("unchangedPackageEntryPoints", report.getUnchangedPackageEntryPointFileNames());
+
+    if (report.isJarIndexCacheUsed()) {
+      startObject("jarIndexCache");
+      field("reused", report.getReusedJarIndexesCount());
+      field("built", report.getBuiltJarIndexesCount());
+      field("savedMillis", report.getJarScanTimeSavedMillis());
+      endObject();
+    }
+
+    startObject("descriptionCache");
+    field("reused", report.getReusedDescriptionsCount());
+    field("built", report.getBuiltDescriptionsCount());
+    field("hitRatePercent", report.getDescriptionCacheHitRatePercent());
+    endObject();
+
+    startObject("phases");
+    for (Map.Entry<GenerationPhase, PhaseTime> phaseTime : report.getPhaseTimes().entrySet()) {
+      startObject(phaseTime.getKey().name());
+      field("wallTimeNanos", phaseTime.getValue().getWallTimeNanos());
+      field("cpuTimeNanos", phaseTime.getValue().getCpuTimeNanos());
+      endObject();
+    }
+    endObject();
+
+    startArray("slowestClasses");
+    for (ClassGenerationTime classGenerationTime : report.getSlowestClasses()) {
+      startObject(null);
+      field("className", classGenerationTime.getClassName());
+      field("wallTimeNanos", classGenerationTime.getWallTimeNanos());
+      endObject();
+    }
+    endArray();
+
+    if (report.isDryRun()) {
+      startObject("plan");
+      array("classes", report.getPlannedClassNames());
+      array("createdFiles", report.getPlannedCreatedFileNames());
+      array("regeneratedFiles", report.getPlannedRegeneratedFileNames());
+      array("deletedFiles", report.getPlannedDeletedFileNames());
+      field("sampledClasses", report.getSampledClassesCount());
+      field("estimatedSourcesSizeBytes", report.getEstimatedSourcesSizeBytes());
+      field("estimatedGenerationMillis", report.getEstimatedGenerationMillis());
+      endObject();
+    }
+
+    field("peakHeapUsedBytes", report.getPeakHeapUsedBytes());
+    array("writtenFiles", report.getGeneratedCustomAssertionFileNames());
+    array("unchangedFiles", report.getUnchangedCustomAssertionFileNames());
+    array("prunedFiles", report.getPrunedCustomAssertionFileNames());
+    array("excludedClasses", report.getExcludedClassNamesFromAssertionGeneration());
+    array("inputClassesNotFound", report.getInputClassesNotFound());
+    writer.write("}\n");
+    writer.flush();
+  }
+
+  static String statusOf(AssertionsGeneratorReport report) {
+    if (report.generationError()) return "error";
+    if (report.isDryRun()) return "dry run";
+    return report.nothingGenerated() ? "nothing generated" : "success";
+  }
+
+  private static Collection<String> asList(String[] values) {
+    return values == null ? Collections.<String> emptyList() : Arrays.asList(values);
+  }
+
+  private void field(String name, String value) throws IOException {
+    name(name);
+    string(value);
+  }
+
+  private void field(String name, long value) throws IOException {
+    name(name);
+    writer.write(Long.toString(value));
+  }
+
+  private void field(String name, boolean value) throws IOException {
+    name(name);
+    writer.write(Boolean.toString(value));
+  }
+
+  private void array(String name, Collection<String> values) throws IOException {
+    startArray(name);
+    for (String value : values) {
+      name(null);
+      string(value);
+    }
+    endArray();
+  }
+
+  private void startObject(String name) throws IOException {
+    name(name);
+    writer.write('{');
+    hasElement = false;
+  }
+
+  private void endObject() throws IOException {
+    writer.write('}');
+    hasElement = true;
+  }
+
+  private void startArray(String name) throws IOException {
+    name(name);
+    writer.write('[');
+    hasElement = false;
+  }
+
+  private void endArray() throws IOException {
+    writer.write(']');
+    hasElement = true;
+  }
+
+  /**
+   * Starts a new element of the current object (with its name) or array (null name).
+   */
+  private void name(String name) throws IOException {
+    if (hasElement) writer.write(',');
+    hasElement = true;
+    if (name == null) return;
+    string(name);
+    writer.write(':');
+  }
+
+  private void string(String value) throws IOException {
+    writer.write('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+      case '"':
+        writer.write("\\\"");
+        break;
+      case '\\':
+        writer.write("\\\\");
+        break;
+      case '\n':
+        writer.write("\\n");
+        break;
+      case '\r':
+        writer.write("\\r");
+        break;
+      case '\t':
+        writer.write("\\t");
+        break;
+      default:
+        if (c < 0x20) writer.write(String.format("\\u%04x", (int) c));
+        else writer.write(c);
+      }
+    }
+    writer.write('"');
+  }
+}
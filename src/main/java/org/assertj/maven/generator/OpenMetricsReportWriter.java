@@ -0,0 +1,126 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * Copyright 2012-2017 the original author or authors.
+ */
+package org.assertj.maven.generator;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.Map;
+
+import org.assertj.maven.generator.AssertionsGeneratorReport.PhaseTime;
+
+/**
+ * Writes the counts and timings of an {@link AssertionsGeneratorReport} in the OpenMetrics text format so that they can
+ * be collected by metrics systems (for example with the Prometheus node exporter textfile collector).
+ * <p>
+ * Only aggregated values are written, the size of the output does not depend on the number of classes.
+ */
+public class OpenMetricsReportWriter {
+
+  private static final String PREFIX = "assertj_generator_";
+  private static final double NANOS_PER_SECOND = 1e9;
+
+  private final Writer writer;
+
+  private OpenMetricsReportWriter(Writer writer) {
+    this.writer = writer;
+  }
+
+  public static void write(AssertionsGeneratorReport report, Writer writer) throws IOException {
+    new OpenMetricsReportWriter(writer).writeReport(report);
+  }
+
+  private void writeReport(AssertionsGeneratorReport report) throws IOException {
+    family("success", "gauge", null, "1 if assertions were generated without error, 0 otherwise.");
+    sample("success", null, report.generationError() ? 0 : 1);
+
+    family("classes", "gauge", null, "Number of classes by generation outcome.");
+    sample("classes", "state=\"found\"", report.getFoundClassesCount());
+    sample("classes", "state=\"excluded\"", report.getExcludedClassNamesFromAssertionGeneration().size());
+    sample("classes", "state=\"not_found\"", report.getInputClassesNotFound().size());
+    sample("classes", "state=\"generated\"", report.getGeneratedClassesCount());
+    sample("classes", "state=\"up_to_date\"", report.getUpToDateClassesCount());
+    sample("classes", "state=\"removed\"", report.getRemovedClassesCount());
+
+    family("files", "gauge", null, "Number of assertions files by write outcome.");
+    sample("files", "state=\"written\"", report.getGeneratedCustomAssertionFileNames().size());
+    sample("files", "state=\"unchanged\"", report.getUnchangedCustomAssertionFileNames().size());
+    sample("files", "state=\"pruned\"", report.getPrunedCustomAssertionFileNames().size());
+    sample("files", "state=\"package_entry_point_written\"", report.getPackageEntryPointFileNames().size());
+    sample("files", "state=\"package_entry_point_unchanged\"", report.getUnchangedPackageEntryPointFileNames().size());
+
+    if (report.isDryRun()) {
+      family("planned_files", "gauge", null, "Number of assertions files a dry run would create, generate again or delete.");
+      sample("planned_files", "state=\"created\"", report.getPlannedCreatedFileNames().size());
+      sample("planned_files", "state=\"regenerated\"", report.getPlannedRegeneratedFileNames().size());
+      sample("planned_files", "state=\"deleted\"", report.getPlannedDeletedFileNames().size());
+      family("estimated_sources_size_bytes", "gauge", "bytes",
+             "Size of the generated assertions sources estimated by a dry run.");
+      sample("estimated_sources_size_bytes", null, report.getEstimatedSourcesSizeBytes());
+    }
+
+    if (report.isJarIndexCacheUsed()) {
+      family("jar_indexes", "gauge", null, "Number of jar indexes by origin.");
+      sample("jar_indexes", "state=\"reused\"", report.getReusedJarIndexesCount());
+      sample("jar_indexes", "state=\"built\"", report.getBuiltJarIndexesCount());
+    }
+
+    family("descriptions", "gauge", null, "Number of getter and field descriptions by origin.");
+    sample("descriptions", "origin=\"reused\"", report.getReusedDescriptionsCount());
+    sample("descriptions", "origin=\"built\"", report.getBuiltDescriptionsCount());
+
+    family("phase_wall_time_seconds", "gauge", "seconds",
+           "Wall clock time of each generation phase, summed over generation threads for per class phases.");
+    for (Map.Entry<GenerationPhase, PhaseTime> phaseTime : report.getPhaseTimes().entrySet()) {
+      sample("phase_wall_time_seconds", phaseLabel(phaseTime.getKey()),
+             phaseTime.getValue().getWallTimeNanos() / NANOS_PER_SECOND);
+    }
+    family("phase_cpu_time_seconds", "gauge", "seconds",
+           "CPU time of each generation phase, summed over generation threads for per class phases.");
+    for (Map.Entry<GenerationPhase, PhaseTime> phaseTime : report.getPhaseTimes().entrySet()) {
+      sample("phase_cpu_time_seconds", phaseLabel(phaseTime.getKey()),
+             phaseTime.getValue().getCpuTimeNanos() / NANOS_PER_SECOND);
+    }
+
+    if (report.getPeakHeapUsedBytes() >= 0) {
+      family("peak_heap_used_bytes", "gauge", "bytes", "Peak heap used during the generation.");
+      sample("peak_heap_used_bytes", null, report.getPeakHeapUsedBytes());
+    }
+    writer.write("# EOF\n");
+    writer.flush();
+  }
+
+  private static String phaseLabel(GenerationPhase phase) {
+    return "phase=\"" + phase.name().toLowerCase(Locale.ENGLISH) + "\"";
+  }
+
+  private void family(String name, String type, String unit, String help) throws IOException {
+    writer.write("# TYPE " + PREFIX + name + " " + type + "\n");
+    if (unit != null) writer.write("# UNIT " + PREFIX + name + " " + unit + "\n");
+    writer.write("# HELP " + PREFIX + name + " " + help + "\n");
+  }
+
+  private void sample(String name, String labels, long value) throws IOException {
+    sample(name, labels, Long.toString(value));
+  }
+
+  private void sample(String name, String labels, double value) throws IOException {
+    sample(name, labels, Double.toString(value));
+  }
+
+  private void sample(String name, String labels, String value) throws IOException {
+    writer.write(PREFIX + name);
+    if (labels != null) writer.write("{" + labels + "}");
+    writer.write(" " + value + "\n");
+  }
+}
@@ -0,0 +1,56 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * Copyright 2012-2017 the original author or authors.
+ */
+package org.assertj.maven.generator;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Measures the wall clock and CPU time spent by the current thread since the timer was started (or restarted).
+ * <p>
+ * CPU time is 0 when the JVM does not support (or has disabled) measuring it.
+ */
+public class PhaseTimer {
+
+  private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+  private long wallTimeStart;
+  private long cpuTimeStart;
+
+  private PhaseTimer() {
+    restart();
+  }
+
+  public static PhaseTimer start() {
+    return new PhaseTimer();
+  }
+
+  public void restart() {
+    wallTimeStart = System.nanoTime();
+    cpuTimeStart = currentThreadCpuTime();
+  }
+
+  public long wallTimeNanos() {
+    return System.nanoTime() - wallTimeStart;
+  }
+
+  public long cpuTimeNanos() {
+    return currentThreadCpuTime() - cpuTimeStart;
+  }
+
+  private static long currentThreadCpuTime() {
+    if (!THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported()) return 0;
+    // -1 when CPU time measurement is disabled
+    return Math.max(0, THREAD_MX_BEAN.getCurrentThreadCpuTime());
+  }
+}
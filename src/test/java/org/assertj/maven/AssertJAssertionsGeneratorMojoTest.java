@@ -12,27 +12,75 @@
  */
 package org.assertj.maven;
 
+import static org.assertj.assertions.generator.AssertionsEntryPointType.STANDARD;
+import static com.google.common.base.Charsets.UTF_8;
+import static org.apache.commons.io.FileUtils.listFiles;
+import static org.apache.commons.lang3.StringUtils.substringBefore;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.contentOf;
 import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
+import static org.assertj.core.api.Assertions.linesOf;
 import static org.assertj.core.util.Arrays.array;
 import static org.assertj.core.util.Files.newFile;
 import static org.assertj.core.util.Lists.newArrayList;
+import static org.assertj.core.util.Sets.newLinkedHashSet;
+import static org.assertj.maven.AssertJAssertionsGeneratorMojo.shouldBeAValidThreadCount;
 import static org.assertj.maven.AssertJAssertionsGeneratorMojo.shouldHaveNonEmptyPackagesOrClasses;
+import static org.assertj.maven.generator.AssertionsGeneratorReport.TIMINGS_SECTION_TITLE;
+import static org.assertj.maven.generator.GenerationPhase.CLASS_COLLECTION;
+import static org.assertj.maven.generator.GenerationPhase.CLASS_LOADER_BUILD;
+import static org.assertj.maven.generator.GenerationPhase.DESCRIPTION_CONVERSION;
+import static org.assertj.maven.generator.GenerationPhase.ENTRY_POINT_GENERATION;
+import static org.assertj.maven.generator.GenerationPhase.RENDERING;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
 import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.lang.ref.WeakReference;
+import java.net.InetAddress;
+import java.net.MalformedURLException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
 import java.util.List;
-
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
 import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.project.MavenProject;
 import org.assertj.assertions.generator.BaseAssertionGenerator;
 import org.assertj.assertions.generator.description.ClassDescription;
+import org.assertj.core.api.Assertions;
 import org.assertj.maven.generator.AssertionsGenerator;
 import org.assertj.maven.generator.AssertionsGeneratorReport;
 import org.assertj.maven.test.All;
@@ -41,6 +89,9 @@ import org.assertj.maven.test.Player;
 import org.assertj.maven.test.name.Name;
 import org.assertj.maven.test.name.NameService;
 import org.assertj.maven.test2.adress.Address;
+import org.assertj.maven.test3.vehicle.Car;
+import org.assertj.maven.test3.vehicle.Vehicle;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -53,6 +104,7 @@ public class AssertJAssertionsGeneratorMojoTest {
 
   private AssertJAssertionsGeneratorMojo assertjAssertionsGeneratorMojo;
   private MavenProject mavenProject;
+  private ClassLoader restoreContextClassLoader;
 
   @Before
   public void setUp() throws Exception {
@@ -62,6 +114,11 @@ public class AssertJAssertionsGeneratorMojoTest {
     assertjAssertionsGeneratorMojo.targetDir = temporaryFolder.getRoot().getAbsolutePath();
   }
 
+  @After
+  public void tearDown() {
+    if (restoreContextClassLoader != null) Thread.currentThread().setContextClassLoader(restoreContextClassLoader);
+  }
+
   @Test
   public void executing_plugin_with_classes_and_packages_parameter_only_should_pass() throws Exception {
     assertjAssertionsGeneratorMojo.packages = array("org.assertj.maven.test", "org.assertj.maven.test2");
@@ -309,6 +366,24 @@ public class AssertJAssertionsGeneratorMojoTest {
     assertThat(assertionsFileFor(Employee.class)).doesNotExist();
   }
 
+  @Test
+  public void should_report_excluded_classes_and_canonical_paths_of_generated_files() throws Exception {
+    // GIVEN
+    assertjAssertionsGeneratorMojo.packages = array("org.assertj.maven.test");
+    assertjAssertionsGeneratorMojo.targetDir = new File(temporaryFolder.newFolder("sub"), "..").getPath();
+    AssertionsGenerator generator = new AssertionsGenerator(Thread.currentThread().getContextClassLoader());
+    generator.setExcludePatterns(array(".*Employee", ".*Service"));
+    // WHEN
+    AssertionsGeneratorReport report = assertjAssertionsGeneratorMojo.executeWithAssertionGenerator(generator);
+    // THEN
+    assertThat(report.getExcludedClassNamesFromAssertionGeneration()).contains(Employee.class.getName(),
+                                                                               NameService.class.getName())
+                                                                     .doesNotContain(Name.class.getName());
+    assertThat(report.getGeneratedCustomAssertionFileNames()).contains(assertionsFileFor(Name.class).getCanonicalPath())
+                                                             .doesNotContain(assertionsFileFor(Employee.class).getCanonicalPath());
+    assertThat(newArrayList(report.getGeneratedCustomAssertionFileNames())).isSorted();
+  }
+
   @Test
   public void plugin_should_not_generate_any_assertions_as_all_package_classes_are_excluded() throws Exception {
     assertjAssertionsGeneratorMojo.packages = array("org.assertj.maven.test");
@@ -516,6 +591,1199 @@ public class AssertJAssertionsGeneratorMojoTest {
     assertThat(assertionsFileFor(PackagePrivate.class)).doesNotExist();
   }
 
+  @Test
+  public void incremental_generation_should_skip_classes_that_have_not_changed() throws Exception {
+    // GIVEN
+    assertjAssertionsGeneratorMojo.classes = array("org.assertj.maven.test.Employee", "org.assertj.maven.test.Player");
+    File stateFile = new File(temporaryFolder.newFolder("state"), "incremental-state.txt");
+    assertjAssertionsGeneratorMojo.executeWithAssertionGenerator(incrementalGenerator(stateFile));
+    File employeeAssertFile = assertionsFileFor(Employee.class);
+    File playerAssertFile = assertionsFileFor(Player.class);
+    assertThat(employeeAssertFile.delete()).isTrue();
+    long playerAssertFileLastModified = playerAssertFile.lastModified();
+    // WHEN
+    AssertionsGeneratorReport report = assertjAssertionsGeneratorMojo.executeWithAssertionGenerator(incrementalGenerator(stateFile));
+    // THEN
+    assertThat(stateFile).exists();
+    assertThat(employeeAssertFile).exists();
+    assertThat(playerAssertFile.lastModified()).isEqualTo(playerAssertFileLastModified);
+    assertThat(report.getRegeneratedClassesCount()).isEqualTo(1);
+    assertThat(report.getUpToDateClassesCount()).isEqualTo(1);
+    assertThat(report.getReportContent()).contains("1 classes skipped as up to date");
+    assertThat(contentOf(assertionsEntryPointFile("Assertions.java"))).contains("EmployeeAssert", "PlayerAssert");
+  }
+
+  @Test
+  public void incremental_generation_should_only_fingerprint_the_changed_classes_and_their_subclasses() throws Exception {
+    // GIVEN
+    assertjAssertionsGeneratorMojo.packages = array("org.assertj.maven.test3.vehicle");
+    assertjAssertionsGeneratorMojo.classes = array("org.assertj.maven.test.Employee");
+    File stateFile = new File(temporaryFolder.newFolder("state"), "incremental-state.txt");
+    assertjAssertionsGeneratorMojo.executeWithAssertionGenerator(incrementalGenerator(stateFile));
+    // fingerprints that don't match anymore, as if the classes had changed
+    String state = contentOf(stateFile);
+    state = state.replaceAll("(?m)^(org\\.assertj\\.maven\\.test\\.Employee|.*\\.Car)=[^,]*", "$1=changed");
+    FileUtils.write(stateFile, state, UTF_8);
+    AssertionsGenerator generator = incrementalGenerator(stateFile);
+    generator.setChangedClassNames(newLinkedHashSet(Vehicle.class.getName()));
+    // WHEN
+    AssertionsGeneratorReport report = assertjAssertionsGeneratorMojo.executeWithAssertionGenerator(generator);
+    // THEN Employee is not fingerprinted, Car is as a subclass of Vehicle
+    assertThat(report.getRegeneratedClassesCount()).isEqualTo(1);
+    assertThat(report.getUpToDateClassesCount()).isEqualTo(2);
+    assertThat(report.getReportedException()).isNull();
+    assertThat(contentOf(assertionsEntryPointFile("Assertions.java"))).contains("EmployeeAssert", "CarAssert",
+                                                                                "VehicleAssert");
+  }
+
+  @Test
+  public void incremental_generation_should_fingerprint_the_classes_having_a_changed_class_as_property_type() throws Exception {
+    // GIVEN
+    assertjAssertionsGeneratorMojo.classes = array("org.assertj.maven.test.Employee", "org.assertj.maven.test.Player");
+    File stateFile = new File(temporaryFolder.newFolder("state"), "incremental-state.txt");
+    assertjAssertionsGeneratorMojo.executeWithAssertionGenerator(incrementalGenerator(stateFile));
+    // fingerprints that don't match anymore, as if the classes had changed
+    String state = contentOf(stateFile);
+    state = state.replaceAll("(?m)^(org\\.assertj\\.maven\\.test\\.(Employee|Player))=[^,]*", "$1=changed");
+    FileUtils.write(stateFile, state, UTF_8);
+    AssertionsGenerator generator = incrementalGenerator(stateFile);
+    generator.setChangedClassNames(newLinkedHashSet(Address.class.getName()));
+    // WHEN
+    AssertionsGeneratorReport report = assertjAssertionsGeneratorMojo.executeWithAssertionGenerator(generator);
+    // THEN Employee is fingerprinted as it has a list of addresses, Player is not
+    assertThat(report.getRegeneratedClassesCount()).isEqualTo(1);
+    assertThat(report.getUpToDateClassesCount()).isEqualTo(1);
+    assertThat(report.getReportedException()).isNull();
+  }
+
+  @Test
+  public void should_generate_the_assertions_of_a_class_again_when_only_the_changed_type_of_its_property_is_scanned() throws Exception {
+    // GIVEN
+    File classes = temporaryFolder.newFolder("classes");
+    compile(classes, "org.assertj.maven.compiled.Players",
+            "package org.assertj.maven.compiled; public class Players {}");
+    compile(classes, "org.assertj.maven.compiled.Team",
+            "package org.assertj.maven.compiled; public class Team { public Players getPlayers() { return null; } }");
+    when(mavenProject.getCompileClasspathElements()).thenReturn(newArrayList(classes.getAbsolutePath()));
+    useMavenDefaults(assertjAssertionsGeneratorMojo, temporaryFolder.newFolder("build"));
+    assertjAssertionsGeneratorMojo.packages = array("org.assertj.maven.compiled");
+    assertjAssertionsGeneratorMojo.execute();
+    compile(classes, "org.assertj.maven.compiled.Players",
+            "package org.assertj.maven.compiled; public class Players extends java.util.ArrayList<String> {}");
+    // as the watch goal does
+    assertjAssertionsGeneratorMojo.changedClassNames = newLinkedHashSet("org.assertj.maven.compiled.Players");
+    // WHEN
+    assertjAssertionsGeneratorMojo.execute();
+    // THEN
+    assertHaveSameFiles(new File(assertjAssertionsGeneratorMojo.targetDir), cleanBuildOf(assertjAssertionsGeneratorMojo));
+  }
+
+  @Test
+  public void should_map_changed_class_files_to_class_names_or_scan_all_classes_when_a_directory_changed() throws Exception {
+    // GIVEN
+    File classes = temporaryFolder.newFolder("classes");
+    File otherClasses = temporaryFolder.newFolder("other-classes");
+    List<File> outputDirectories = newArrayList(classes, otherClasses);
+    Path innerClassFile = new File(otherClasses, "org/assertj/maven/test/Team$Player.class").toPath();
+    Path classFile = new File(classes, "org/assertj/maven/test/Employee.class").toPath();
+    Path newDirectory = new File(classes, "org/assertj/maven/test4").toPath();
+    // WHEN
+    Set<String> classNames = AssertJAssertionsWatchMojo.classNamesOf(newLinkedHashSet(classFile, innerClassFile),
+                                                                     outputDirectories);
+    Set<String> allClassNames = AssertJAssertionsWatchMojo.classNamesOf(newLinkedHashSet(classFile, newDirectory),
+                                                                        outputDirectories);
+    // THEN
+    assertThat(classNames).containsExactly("org.assertj.maven.test.Employee", "org.assertj.maven.test.Team$Player");
+    assertThat(allClassNames).isNull();
+  }
+
+  @Test
+  public void incremental_generation_should_regenerate_everything_when_configuration_changes() throws Exception {
+    // GIVEN
+    assertjAssertionsGeneratorMojo.classes = array("org.assertj.maven.test.Employee", "org.assertj.maven.test.Player");
+    File stateFile = new File(temporaryFolder.newFolder("state"), "incremental-state.txt");
+    assertjAssertionsGeneratorMojo.executeWithAssertionGenerator(incrementalGenerator(stateFile));
+    assertjAssertionsGeneratorMojo.classes = array("org.assertj.maven.test.Employee");
+    assertjAssertionsGeneratorMojo.hierarchical = true;
+    // WHEN
+    AssertionsGeneratorReport report = assertjAssertionsGeneratorMojo.executeWithAssertionGenerator(incrementalGenerator(stateFile));
+    // THEN
+    assertThat(abstractAssertionsFileFor(Employee.class)).exists();
+    assertThat(report.getRegeneratedClassesCount()).isEqualTo(1);
+    assertThat(report.getUpToDateClassesCount()).isZero();
+    assertThat(report.getRemovedClassesCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void should_generate_the_same_assertions_as_a_clean_build_with_default_parameters_and_a_cleaned_target_directory() throws Exception {
+    // GIVEN
+    useMavenDefaults(assertjAssertionsGeneratorMojo, temporaryFolder.newFolder("build"));
+    assertjAssertionsGeneratorMojo.packages = array("org.assertj.maven.test", "org.assertj.maven.test2");
+    assertjAssertionsGeneratorMojo.cleanTargetDir = true;
+    assertjAssertionsGeneratorMojo.execute();
+    File targetDir = new File(assertjAssertionsGeneratorMojo.targetDir);
+    File strayFile = new File(targetDir, "Stray.java");
+    FileUtils.write(strayFile, "not generated", UTF_8);
+    assertjAssertionsGeneratorMojo.excludes = array(".*Employee");
+    // WHEN
+    assertjAssertionsGeneratorMojo.execute();
+    // THEN
+    assertThat(strayFile).doesNotExist();
+    assertHaveSameFiles(targetDir, cleanBuildOf(assertjAssertionsGeneratorMojo));
+  }
+
+  @Test
+  public void should_generate_the_same_assertions_as_a_clean_build_with_default_parameters_and_pruned_stale_files() throws Exception {
+    // GIVEN
+    useMavenDefaults(assertjAssertionsGeneratorMojo, temporaryFolder.newFolder("build"));
+    assertjAssertionsGeneratorMojo.packages = array("org.assertj.maven.test", "org.assertj.maven.test2");
+    assertjAssertionsGeneratorMojo.pruneStaleFiles = true;
+    assertjAssertionsGeneratorMojo.execute();
+    File targetDir = new File(assertjAssertionsGeneratorMojo.targetDir);
+    File employeeAssertFile = new File(targetDir, basePathName(Employee.class) + "Assert.java");
+    assertThat(employeeAssertFile).exists();
+    assertjAssertionsGeneratorMojo.excludes = array(".*Employee");
+    // WHEN
+    assertjAssertionsGeneratorMojo.execute();
+    // THEN
+    assertThat(employeeAssertFile).doesNotExist();
+    assertHaveSameFiles(targetDir, cleanBuildOf(assertjAssertionsGeneratorMojo));
+  }
+
+  @Test
+  public void should_generate_the_same_assertions_as_a_clean_build_with_default_parameters_after_a_template_change() throws Exception {
+    // GIVEN
+    File templatesDirectory = temporaryFolder.newFolder("templates");
+    File template = new File(templatesDirectory, "has_assertion_template.txt");
+    FileUtils.copyFile(new File("src/test/resources/templates/my_has_assertion_template.txt"), template);
+    useMavenDefaults(assertjAssertionsGeneratorMojo, temporaryFolder.newFolder("incremental-build"));
+    assertjAssertionsGeneratorMojo.packages = array("org.assertj.maven.test", "org.assertj.maven.test2");
+    assertjAssertionsGeneratorMojo.templates = new Templates();
+    assertjAssertionsGeneratorMojo.templates.templatesDirectory = templatesDirectory.getPath();
+    assertjAssertionsGeneratorMojo.templates.objectAssertion = template.getName();
+    assertjAssertionsGeneratorMojo.execute();
+    // skipped as up to date
+    assertjAssertionsGeneratorMojo.execute();
+    // WHEN
+    FileUtils.write(template, contentOf(template).replace("my_has_assertion_template", "edited_has_assertion_template"),
+                    UTF_8);
+    assertjAssertionsGeneratorMojo.execute();
+    // THEN
+    File incrementalDir = new File(assertjAssertionsGeneratorMojo.targetDir);
+    assertThat(contentOf(new File(incrementalDir, basePathName("Abstract", Employee.class) + "Assert.java")))
+        .contains("edited_has_assertion_template");
+    assertHaveSameFiles(incrementalDir, cleanBuildOf(assertjAssertionsGeneratorMojo));
+  }
+
+  @Test
+  public void should_generate_the_assertions_of_a_class_again_when_the_type_of_one_of_its_properties_has_changed() throws Exception {
+    // GIVEN
+    File classes = temporaryFolder.newFolder("classes");
+    compile(classes, "org.assertj.maven.compiled.Players",
+            "package org.assertj.maven.compiled; public class Players {}");
+    compile(classes, "org.assertj.maven.compiled.Team",
+            "package org.assertj.maven.compiled; public class Team { public Players getPlayers() { return null; } }");
+    when(mavenProject.getCompileClasspathElements()).thenReturn(newArrayList(classes.getAbsolutePath()));
+    useMavenDefaults(assertjAssertionsGeneratorMojo, temporaryFolder.newFolder("build"));
+    assertjAssertionsGeneratorMojo.packages = array("org.assertj.maven.compiled");
+    assertjAssertionsGeneratorMojo.execute();
+    File teamAssertFile = new File(assertjAssertionsGeneratorMojo.targetDir,
+                                   "org/assertj/maven/compiled/AbstractTeamAssert.java");
+    String teamAssert = contentOf(teamAssertFile);
+    // WHEN only the property type changes, becoming iterable
+    compile(classes, "org.assertj.maven.compiled.Players",
+            "package org.assertj.maven.compiled; public class Players extends java.util.ArrayList<String> {}");
+    assertjAssertionsGeneratorMojo.execute();
+    // THEN
+    assertThat(contentOf(teamAssertFile)).isNotEqualTo(teamAssert);
+    assertHaveSameFiles(new File(assertjAssertionsGeneratorMojo.targetDir), cleanBuildOf(assertjAssertionsGeneratorMojo));
+  }
+
+  @Test
+  public void should_generate_all_assertions_again_with_default_parameters_when_the_plugin_has_changed() throws Exception {
+    // GIVEN
+    final File pluginJar = new File(temporaryFolder.newFolder("plugin-repository"), "plugin.jar");
+    FileUtils.write(pluginJar, "plugin", UTF_8);
+    assertjAssertionsGeneratorMojo = new AssertJAssertionsGeneratorMojo() {
+      @Override
+      List<File> pluginFiles() {
+        return newArrayList(pluginJar);
+      }
+    };
+    assertjAssertionsGeneratorMojo.project = mavenProject;
+    useMavenDefaults(assertjAssertionsGeneratorMojo, temporaryFolder.newFolder("build"));
+    assertjAssertionsGeneratorMojo.packages = array("org.assertj.maven.test");
+    assertjAssertionsGeneratorMojo.writeReportInFile = temporaryFolder.newFile("report.txt").getPath();
+    assertjAssertionsGeneratorMojo.execute();
+    File reportFile = new File(assertjAssertionsGeneratorMojo.writeReportInFile);
+    assertThat(contentOf(reportFile)).contains("0 classes skipped as up to date");
+    // WHEN
+    FileUtils.write(pluginJar, "upgraded plugin", UTF_8);
+    assertjAssertionsGeneratorMojo.execute();
+    // THEN
+    assertThat(contentOf(reportFile)).contains("0 classes skipped as up to date")
+                                     .doesNotContain(" 0 classes regenerated");
+  }
+
+  @Test
+  public void should_prune_files_of_classes_not_generated_anymore_and_keep_the_others() throws Exception {
+    // GIVEN
+    assertjAssertionsGeneratorMojo.packages = array("org.assertj.maven.test");
+    assertjAssertionsGeneratorMojo.hierarchical = true;
+    assertjAssertionsGeneratorMojo.incremental = true;
+    assertjAssertionsGeneratorMojo.pruneStaleFiles = true;
+    assertjAssertionsGeneratorMojo.stateDirectory = temporaryFolder.newFolder("state").getPath();
+    assertjAssertionsGeneratorMojo.execute();
+    File playerAssertFile = assertionsFileFor(Player.class);
+    long aLongTimeAgo = 1000000000000L;
+    assertThat(playerAssertFile.setLastModified(aLongTimeAgo)).isTrue();
+    assertjAssertionsGeneratorMojo.excludes = array(".*Employee", ".*\\.name\\..*");
+    assertjAssertionsGeneratorMojo.writeJsonReportInFile = temporaryFolder.newFile("report.json").getPath();
+    // WHEN
+    assertjAssertionsGeneratorMojo.execute();
+    // THEN
+    assertThat(assertionsFileFor(Employee.class)).doesNotExist();
+    assertThat(abstractAssertionsFileFor(Employee.class)).doesNotExist();
+    assertThat(assertionsFileFor(Name.class).getParentFile()).doesNotExist();
+    assertThat(playerAssertFile).exists();
+    assertThat(playerAssertFile.lastModified()).isEqualTo(aLongTimeAgo);
+    assertThat(abstractAssertionsFileFor(Player.class)).exists();
+    assertThat(contentOf(new File(assertjAssertionsGeneratorMojo.writeJsonReportInFile))).contains("\"pruned\":6");
+  }
+
+  @Test
+  public void should_cap_the_file_names_listed_in_the_report() throws Exception {
+    // GIVEN
+    assertjAssertionsGeneratorMojo.packages = array("org.assertj.maven.test");
+    assertjAssertionsGeneratorMojo.writeReportInFile = temporaryFolder.newFile("report.txt").getPath();
+    assertjAssertionsGeneratorMojo.maxReportedFileNames = 1;
+    // WHEN
+    assertjAssertionsGeneratorMojo.execute();
+    // THEN
+    int listedFileNames = 0;
+    for (String line : linesOf(new File(assertjAssertionsGeneratorMojo.writeReportInFile))) {
+      if (line.endsWith("Assert.java")) listedFileNames++;
+    }
+    assertThat(listedFileNames).isEqualTo(1);
+    assertThat(contentOf(new File(assertjAssertionsGeneratorMojo.writeReportInFile))).containsPattern("- \\.\\.\\. and \\d+ more files");
+  }
+
+  @Test
+  public void should_only_plan_the_generation_in_dry_run() throws Exception {
+    // GIVEN
+    assertjAssertionsGeneratorMojo.packages = array("org.assertj.maven.test");
+    assertjAssertionsGeneratorMojo.hierarchical = true;
+    assertjAssertionsGeneratorMojo.dryRun = true;
+    assertjAssertionsGeneratorMojo.writeReportInFile = temporaryFolder.newFile("report.txt").getPath();
+    assertjAssertionsGeneratorMojo.writeJsonReportInFile = temporaryFolder.newFile("report.json").getPath();
+    // WHEN
+    assertjAssertionsGeneratorMojo.execute();
+    // THEN
+    assertThat(assertionsFileFor(Employee.class)).doesNotExist();
+    assertThat(abstractAssertionsFileFor(Employee.class)).doesNotExist();
+    assertThat(assertionsEntryPointFile("Assertions.java")).doesNotExist();
+    String report = contentOf(new File(assertjAssertionsGeneratorMojo.writeReportInFile));
+    assertThat(report).contains("Dry run: nothing has been generated nor deleted",
+                                Employee.class.getName(),
+                                "Files that would be created:",
+                                assertionsFileFor(Employee.class).getCanonicalPath(),
+                                abstractAssertionsFileFor(Employee.class).getCanonicalPath(),
+                                assertionsEntryPointFile("Assertions.java").getCanonicalPath())
+                      .containsPattern("Estimate from \\d+ sampled classes")
+                      .doesNotContain("Existing files that would be generated again");
+    assertThat(contentOf(new File(assertjAssertionsGeneratorMojo.writeJsonReportInFile))).contains("\"status\":\"dry run\"",
+                                                                                                  "\"plan\":{");
+  }
+
+  @Test
+  public void should_plan_files_generated_again_and_deleted_in_dry_run_without_changing_anything() throws Exception {
+    // GIVEN
+    assertjAssertionsGeneratorMojo.packages = array("org.assertj.maven.test");
+    assertjAssertionsGeneratorMojo.incremental = true;
+    assertjAssertionsGeneratorMojo.pruneStaleFiles = true;
+    assertjAssertionsGeneratorMojo.stateDirectory = temporaryFolder.newFolder("state").getPath();
+    assertjAssertionsGeneratorMojo.execute();
+    Map<String, String> state = contentsOf(new File(assertjAssertionsGeneratorMojo.stateDirectory));
+    assertjAssertionsGeneratorMojo.excludes = array(".*Employee");
+    assertjAssertionsGeneratorMojo.cleanTargetDir = true;
+    assertjAssertionsGeneratorMojo.dryRun = true;
+    assertjAssertionsGeneratorMojo.writeReportInFile = temporaryFolder.newFile("report.txt").getPath();
+    // WHEN
+    assertjAssertionsGeneratorMojo.execute();
+    // THEN
+    assertThat(assertionsFileFor(Employee.class)).exists();
+    assertThat(contentsOf(new File(assertjAssertionsGeneratorMojo.stateDirectory))).isEqualTo(state);
+    String report = contentOf(new File(assertjAssertionsGeneratorMojo.writeReportInFile));
+    assertThat(report).contains("Existing files that would be generated again",
+                                assertionsEntryPointFile("Assertions.java").getCanonicalPath(),
+                                "Stale files that would be removed as they would not be generated anymore:",
+                                assertionsFileFor(Employee.class).getCanonicalPath())
+                      .doesNotContain("Files that would be created:");
+  }
+
+  @Test
+  public void should_skip_execution_when_nothing_has_changed_since_previous_one() throws Exception {
+    // GIVEN
+    assertjAssertionsGeneratorMojo.packages = array("org.assertj.maven.test");
+    assertjAssertionsGeneratorMojo.incremental = true;
+    assertjAssertionsGeneratorMojo.stateDirectory = temporaryFolder.newFolder("state").getPath();
+    assertjAssertionsGeneratorMojo.writeReportInFile = temporaryFolder.newFile("report.txt").getPath();
+    assertjAssertionsGeneratorMojo.execute();
+    File reportFile = new File(assertjAssertionsGeneratorMojo.writeReportInFile);
+    assertThat(reportFile.delete()).isTrue();
+    // WHEN
+    assertjAssertionsGeneratorMojo.execute();
+    // THEN
+    assertThat(reportFile).doesNotExist();
+    assertThat(assertionsFileFor(Player.class)).exists();
+    verify(mavenProject, times(2)).addTestCompileSourceRoot(assertjAssertionsGeneratorMojo.targetDir);
+  }
+
+  @Test
+  public void should_not_skip_execution_when_a_generated_file_a_parameter_or_a_class_has_changed() throws Exception {
+    // GIVEN
+    assertjAssertionsGeneratorMojo.packages = array("org.assertj.maven.test");
+    assertjAssertionsGeneratorMojo.incremental = true;
+    assertjAssertionsGeneratorMojo.stateDirectory = temporaryFolder.newFolder("state").getPath();
+    File classesDirectory = temporaryFolder.newFolder("classes");
+    File classFile = new File(classesDirectory, "Foo.class");
+    FileUtils.write(classFile, "not really a class", UTF_8);
+    when(mavenProject.getTestClasspathElements()).thenReturn(newArrayList(classesDirectory.getPath()));
+    assertjAssertionsGeneratorMojo.writeReportInFile = temporaryFolder.newFile("report.txt").getPath();
+    assertjAssertionsGeneratorMojo.execute();
+    File employeeAssertFile = assertionsFileFor(Employee.class);
+    // WHEN a generated file is deleted
+    assertThat(employeeAssertFile.delete()).isTrue();
+    assertjAssertionsGeneratorMojo.execute();
+    // THEN
+    assertThat(employeeAssertFile).exists();
+    // WHEN a parameter changes
+    assertjAssertionsGeneratorMojo.hierarchical = true;
+    assertjAssertionsGeneratorMojo.execute();
+    // THEN
+    assertThat(abstractAssertionsFileFor(Employee.class)).exists();
+    // WHEN a class changes
+    File reportFile = new File(assertjAssertionsGeneratorMojo.writeReportInFile);
+    assertThat(reportFile.delete()).isTrue();
+    assertThat(classFile.setLastModified(classFile.lastModified() - 10000)).isTrue();
+    assertjAssertionsGeneratorMojo.execute();
+    // THEN
+    assertThat(reportFile).exists();
+  }
+
+  @Test
+  public void should_not_skip_execution_when_the_plugin_has_changed() throws Exception {
+    // GIVEN
+    final File pluginJar = new File(temporaryFolder.newFolder("plugin repository"), "plugin.jar");
+    FileUtils.write(pluginJar, "plugin", UTF_8);
+    assertjAssertionsGeneratorMojo = new AssertJAssertionsGeneratorMojo() {
+      @Override
+      List<File> pluginFiles() {
+        return newArrayList(pluginJar);
+      }
+    };
+    assertjAssertionsGeneratorMojo.project = mavenProject;
+    assertjAssertionsGeneratorMojo.targetDir = temporaryFolder.getRoot().getAbsolutePath();
+    assertjAssertionsGeneratorMojo.packages = array("org.assertj.maven.test");
+    assertjAssertionsGeneratorMojo.incremental = true;
+    assertjAssertionsGeneratorMojo.stateDirectory = temporaryFolder.newFolder("state").getPath();
+    assertjAssertionsGeneratorMojo.writeReportInFile = temporaryFolder.newFile("report.txt").getPath();
+    assertjAssertionsGeneratorMojo.execute();
+    File reportFile = new File(assertjAssertionsGeneratorMojo.writeReportInFile);
+    assertThat(reportFile.delete()).isTrue();
+    assertjAssertionsGeneratorMojo.execute();
+    assertThat(reportFile).doesNotExist();
+    // WHEN
+    FileUtils.write(pluginJar, "upgraded plugin", UTF_8);
+    assertjAssertionsGeneratorMojo.execute();
+    // THEN
+    assertThat(reportFile).exists();
+  }
+
+  @Test
+  public void should_not_rewrite_generated_files_whose_content_has_not_changed() throws Exception {
+    // GIVEN
+    assertjAssertionsGeneratorMojo.classes = array("org.assertj.maven.test.Employee");
+    assertjAssertionsGeneratorMojo.hierarchical = true;
+    assertjAssertionsGeneratorMojo.writeOnlyChangedFiles = true;
+    assertjAssertionsGeneratorMojo.execute();
+    File employeeAssertFile = assertionsFileFor(Employee.class);
+    File abstractEmployeeAssertFile = abstractAssertionsFileFor(Employee.class);
+    File assertionsEntryPointFile = assertionsEntryPointFile("Assertions.java");
+    long aLongTimeAgo = 1000000000000L;
+    assertThat(employeeAssertFile.setLastModified(aLongTimeAgo)).isTrue();
+    assertThat(assertionsEntryPointFile.setLastModified(aLongTimeAgo)).isTrue();
+    assertThat(abstractEmployeeAssertFile.delete()).isTrue();
+    AssertionsGenerator generator = new AssertionsGenerator(Thread.currentThread().getContextClassLoader());
+    generator.setLog(new NoLog());
+    generator.setWriteOnlyChangedFiles(true);
+    generator.enableEntryPointClassesGenerationFor(STANDARD);
+    // WHEN
+    AssertionsGeneratorReport report = assertjAssertionsGeneratorMojo.executeWithAssertionGenerator(generator);
+    // THEN
+    assertThat(employeeAssertFile.lastModified()).isEqualTo(aLongTimeAgo);
+    assertThat(assertionsEntryPointFile.lastModified()).isEqualTo(aLongTimeAgo);
+    assertThat(abstractEmployeeAssertFile).exists();
+    assertThat(report.getUnchangedCustomAssertionFileNames()).containsExactly(employeeAssertFile.getCanonicalPath());
+    assertThat(report.getGeneratedCustomAssertionFileNames()).containsExactly(abstractEmployeeAssertFile.getCanonicalPath());
+    assertThat(report.getReportContent()).contains("Assertions entry point class is unchanged in file");
+  }
+
+  @Test
+  public void should_write_the_same_files_whether_or_not_only_changed_files_are_written() throws Exception {
+    // GIVEN
+    assertjAssertionsGeneratorMojo.packages = array("org.assertj.maven.test", "org.assertj.maven.test2");
+    assertjAssertionsGeneratorMojo.hierarchical = true;
+    assertjAssertionsGeneratorMojo.targetDir = temporaryFolder.newFolder("all-files-written").getAbsolutePath();
+    assertjAssertionsGeneratorMojo.execute();
+    File allFilesWrittenDir = new File(assertjAssertionsGeneratorMojo.targetDir);
+    assertjAssertionsGeneratorMojo.targetDir = temporaryFolder.newFolder("changed-files-written").getAbsolutePath();
+    assertjAssertionsGeneratorMojo.writeOnlyChangedFiles = true;
+    // WHEN
+    assertjAssertionsGeneratorMojo.execute();
+    // THEN
+    File changedFilesWrittenDir = new File(assertjAssertionsGeneratorMojo.targetDir);
+    assertHaveSameFiles(changedFilesWrittenDir, allFilesWrittenDir);
+  }
+
+  @Test
+  public void should_generate_the_same_assertions_and_report_whatever_the_number_of_threads() throws Exception {
+    // GIVEN
+    assertjAssertionsGeneratorMojo.packages = array("org.assertj.maven.test", "org.assertj.maven.test2");
+    assertjAssertionsGeneratorMojo.hierarchical = true;
+    assertjAssertionsGeneratorMojo.writeReportInFile = temporaryFolder.newFile("single-thread-report").getPath();
+    assertjAssertionsGeneratorMojo.targetDir = temporaryFolder.newFolder("single-thread").getAbsolutePath();
+    assertjAssertionsGeneratorMojo.execute();
+    File singleThreadDir = new File(assertjAssertionsGeneratorMojo.targetDir);
+    String singleThreadReport = contentOf(new File(assertjAssertionsGeneratorMojo.writeReportInFile));
+    assertjAssertionsGeneratorMojo.threads = "2C";
+    assertjAssertionsGeneratorMojo.writeReportInFile = temporaryFolder.newFile("multi-thread-report").getPath();
+    assertjAssertionsGeneratorMojo.targetDir = temporaryFolder.newFolder("multi-thread").getAbsolutePath();
+    // WHEN
+    assertjAssertionsGeneratorMojo.execute();
+    // THEN
+    File multiThreadDir = new File(assertjAssertionsGeneratorMojo.targetDir);
+    assertHaveSameFiles(multiThreadDir, singleThreadDir);
+    String multiThreadReport = contentOf(new File(assertjAssertionsGeneratorMojo.writeReportInFile));
+    // timings differ from one execution to another
+    assertThat(withoutTimings(multiThreadReport).replace(multiThreadDir.getPath(), "target"))
+        .isEqualTo(withoutTimings(singleThreadReport).replace(singleThreadDir.getPath(), "target"));
+  }
+
+  @Test
+  public void should_generate_the_same_assertions_and_report_with_a_writer_stage() throws Exception {
+    // GIVEN
+    assertjAssertionsGeneratorMojo.packages = array("org.assertj.maven.test", "org.assertj.maven.test2");
+    assertjAssertionsGeneratorMojo.hierarchical = true;
+    assertjAssertionsGeneratorMojo.writeOnlyChangedFiles = true;
+    assertjAssertionsGeneratorMojo.writeReportInFile = temporaryFolder.newFile("direct-writes-report").getPath();
+    assertjAssertionsGeneratorMojo.targetDir = temporaryFolder.newFolder("direct-writes").getAbsolutePath();
+    assertjAssertionsGeneratorMojo.execute();
+    File directWritesDir = new File(assertjAssertionsGeneratorMojo.targetDir);
+    String directWritesReport = contentOf(new File(assertjAssertionsGeneratorMojo.writeReportInFile));
+    assertjAssertionsGeneratorMojo.threads = "2C";
+    // a single slot makes rendering wait for each write
+    assertjAssertionsGeneratorMojo.writeQueueSize = 1;
+    assertjAssertionsGeneratorMojo.writeReportInFile = temporaryFolder.newFile("writer-stage-report").getPath();
+    assertjAssertionsGeneratorMojo.targetDir = temporaryFolder.newFolder("writer-stage").getAbsolutePath();
+    // WHEN
+    assertjAssertionsGeneratorMojo.execute();
+    // THEN
+    File writerStageDir = new File(assertjAssertionsGeneratorMojo.targetDir);
+    assertHaveSameFiles(writerStageDir, directWritesDir);
+    String writerStageReport = contentOf(new File(assertjAssertionsGeneratorMojo.writeReportInFile));
+    assertThat(withoutTimings(writerStageReport).replace(writerStageDir.getPath(), "target"))
+        .isEqualTo(withoutTimings(directWritesReport).replace(directWritesDir.getPath(), "target"));
+    assertThat(writerStageReport).contains("- file writes : ");
+  }
+
+  private static String withoutTimings(String report) {
+    return substringBefore(report, "--- " + TIMINGS_SECTION_TITLE);
+  }
+
+  @Test
+  public void hierarchical_assertions_should_extend_the_assertions_of_the_generated_super_class() throws Exception {
+    // GIVEN
+    assertjAssertionsGeneratorMojo.packages = array("org.assertj.maven.test3");
+    assertjAssertionsGeneratorMojo.hierarchical = true;
+    // WHEN
+    assertjAssertionsGeneratorMojo.execute();
+    // THEN
+    assertThat(contentOf(abstractAssertionsFileFor(Car.class))).contains("extends AbstractVehicleAssert<S, A>");
+    assertThat(contentOf(abstractAssertionsFileFor(Vehicle.class))).contains("extends AbstractObjectAssert<S, A>");
+  }
+
+  @Test
+  public void should_generate_the_same_assertions_and_report_in_a_forked_jvm() throws Exception {
+    // GIVEN
+    File testClasses = new File(Player.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+    when(mavenProject.getCompileClasspathElements()).thenReturn(newArrayList(testClasses.getAbsolutePath()));
+    assertjAssertionsGeneratorMojo.packages = array("org.assertj.maven.test", "org.assertj.maven.test2");
+    assertjAssertionsGeneratorMojo.hierarchical = true;
+    assertjAssertionsGeneratorMojo.writeOnlyChangedFiles = true;
+    assertjAssertionsGeneratorMojo.templates = new Templates();
+    assertjAssertionsGeneratorMojo.templates.templatesDirectory = "src/test/resources/templates/";
+    assertjAssertionsGeneratorMojo.templates.objectAssertion = "my_has_assertion_template.txt";
+    assertjAssertionsGeneratorMojo.writeReportInFile = temporaryFolder.newFile("in-process-report").getPath();
+    assertjAssertionsGeneratorMojo.targetDir = temporaryFolder.newFolder("in-process").getAbsolutePath();
+    assertjAssertionsGeneratorMojo.execute();
+    File inProcessDir = new File(assertjAssertionsGeneratorMojo.targetDir);
+    String inProcessReport = contentOf(new File(assertjAssertionsGeneratorMojo.writeReportInFile));
+    assertjAssertionsGeneratorMojo.fork = true;
+    assertjAssertionsGeneratorMojo.forkMaxHeap = "256m";
+    assertjAssertionsGeneratorMojo.forkJvmArgs = " -Xss1m  -XX:+UseSerialGC ";
+    assertjAssertionsGeneratorMojo.writeReportInFile = temporaryFolder.newFile("forked-report").getPath();
+    assertjAssertionsGeneratorMojo.targetDir = temporaryFolder.newFolder("forked").getAbsolutePath();
+    // WHEN
+    assertjAssertionsGeneratorMojo.execute();
+    // THEN
+    File forkedDir = new File(assertjAssertionsGeneratorMojo.targetDir);
+    assertHaveSameFiles(forkedDir, inProcessDir);
+    String forkedReport = contentOf(new File(assertjAssertionsGeneratorMojo.writeReportInFile));
+    assertThat(withoutTimings(forkedReport).replace(forkedDir.getPath(), "target"))
+        .isEqualTo(withoutTimings(inProcessReport).replace(inProcessDir.getPath(), "target"));
+    verify(mavenProject, times(2)).addTestCompileSourceRoot(any(String.class));
+  }
+
+  @Test
+  public void should_generate_the_same_assertions_in_a_worker_kept_alive_between_executions() throws Exception {
+    // GIVEN
+    File testClasses = new File(Player.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+    when(mavenProject.getCompileClasspathElements()).thenReturn(newArrayList(testClasses.getAbsolutePath()));
+    assertjAssertionsGeneratorMojo.packages = array("org.assertj.maven.test", "org.assertj.maven.test2");
+    assertjAssertionsGeneratorMojo.hierarchical = true;
+    assertjAssertionsGeneratorMojo.writeOnlyChangedFiles = true;
+    // relative paths are resolved against the build working directory, not the worker one
+    assertjAssertionsGeneratorMojo.templates = new Templates();
+    assertjAssertionsGeneratorMojo.templates.templatesDirectory = "src/test/resources/templates/";
+    assertjAssertionsGeneratorMojo.templates.objectAssertion = "my_has_assertion_template.txt";
+    assertjAssertionsGeneratorMojo.targetDir = temporaryFolder.newFolder("in-process").getAbsolutePath();
+    assertjAssertionsGeneratorMojo.execute();
+    File inProcessDir = new File(assertjAssertionsGeneratorMojo.targetDir);
+    File workerDirectory = temporaryFolder.newFolder("workers");
+    assertjAssertionsGeneratorMojo.worker = true;
+    assertjAssertionsGeneratorMojo.workerIdleTimeoutSeconds = 2;
+    assertjAssertionsGeneratorMojo.workerDirectory = workerDirectory.getPath();
+    assertjAssertionsGeneratorMojo.targetDir = temporaryFolder.newFolder("first-build").getAbsolutePath();
+    assertjAssertionsGeneratorMojo.execute();
+    File firstBuildDir = new File(assertjAssertionsGeneratorMojo.targetDir);
+    File workerFile = workerFileIn(workerDirectory);
+    String firstBuildWorker = contentOf(workerFile);
+    assertjAssertionsGeneratorMojo.targetDir = temporaryFolder.newFolder("second-build").getAbsolutePath();
+    // WHEN
+    assertjAssertionsGeneratorMojo.execute();
+    // THEN
+    assertHaveSameFiles(firstBuildDir, inProcessDir);
+    assertHaveSameFiles(new File(assertjAssertionsGeneratorMojo.targetDir), inProcessDir);
+    // the second build was served by the worker started by the first one
+    assertThat(contentOf(workerFile)).isEqualTo(firstBuildWorker);
+    // which stops once idle
+    awaitUntil(workerFile, false);
+  }
+
+  @Test
+  public void should_generate_assertions_in_maven_without_sending_the_token_when_the_worker_port_is_not_a_worker() throws Exception {
+    // GIVEN
+    File testClasses = new File(Player.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+    when(mavenProject.getCompileClasspathElements()).thenReturn(newArrayList(testClasses.getAbsolutePath()));
+    assertjAssertionsGeneratorMojo.packages = array("org.assertj.maven.test");
+    assertjAssertionsGeneratorMojo.targetDir = temporaryFolder.newFolder("in-process").getAbsolutePath();
+    assertjAssertionsGeneratorMojo.execute();
+    File inProcessDir = new File(assertjAssertionsGeneratorMojo.targetDir);
+    File workerDirectory = temporaryFolder.newFolder("workers");
+    assertjAssertionsGeneratorMojo.worker = true;
+    assertjAssertionsGeneratorMojo.workerDirectory = workerDirectory.getPath();
+    assertjAssertionsGeneratorMojo.targetDir = temporaryFolder.newFolder("worker-build").getAbsolutePath();
+    assertjAssertionsGeneratorMojo.execute();
+    // the worker file now points to another program, the replaced worker stops
+    final ServerSocket otherProgram = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+    Properties workerProperties = new Properties();
+    workerProperties.setProperty("port", String.valueOf(otherProgram.getLocalPort()));
+    workerProperties.setProperty("token", "secret");
+    try (OutputStream workerFile = new FileOutputStream(workerFileIn(workerDirectory))) {
+      workerProperties.store(workerFile, null);
+    }
+    final List<String> receivedTokens = Collections.synchronizedList(new ArrayList<String>());
+    Thread otherProgramThread = new Thread() {
+      @Override
+      public void run() {
+        try (ServerSocket serverSocket = otherProgram; Socket socket = serverSocket.accept()) {
+          ObjectOutputStream output = new ObjectOutputStream(socket.getOutputStream());
+          output.flush();
+          ObjectInputStream input = new ObjectInputStream(socket.getInputStream());
+          String challenge = input.readUTF();
+          output.writeUTF("not the proof of " + challenge);
+          output.flush();
+          receivedTokens.add(input.readUTF());
+        } catch (IOException e) {
+          // the client has hung up
+        }
+      }
+    };
+    otherProgramThread.start();
+    assertjAssertionsGeneratorMojo.targetDir = temporaryFolder.newFolder("fallback-build").getAbsolutePath();
+    // WHEN
+    assertjAssertionsGeneratorMojo.execute();
+    // THEN
+    otherProgramThread.join(10000);
+    assertThat(receivedTokens).isEmpty();
+    assertHaveSameFiles(new File(assertjAssertionsGeneratorMojo.targetDir), inProcessDir);
+  }
+
+  @Test
+  public void should_only_forward_the_log_levels_enabled_in_maven_from_a_forked_generation() throws Exception {
+    // GIVEN
+    File testClasses = new File(Player.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+    when(mavenProject.getCompileClasspathElements()).thenReturn(newArrayList(testClasses.getAbsolutePath()));
+    assertjAssertionsGeneratorMojo.packages = array("org.assertj.maven.test");
+    assertjAssertionsGeneratorMojo.excludes = array(".*Employee");
+    assertjAssertionsGeneratorMojo.fork = true;
+    Log log = mock(Log.class);
+    when(log.isInfoEnabled()).thenReturn(true);
+    assertjAssertionsGeneratorMojo.setLog(log);
+    // WHEN
+    assertjAssertionsGeneratorMojo.execute();
+    // THEN
+    verify(log, never()).debug(any(CharSequence.class));
+    assertThat(assertionsFileFor(Player.class)).exists();
+  }
+
+  @Test
+  public void should_forward_the_debug_log_of_a_forked_generation_when_enabled_in_maven() throws Exception {
+    // GIVEN
+    File testClasses = new File(Player.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+    when(mavenProject.getCompileClasspathElements()).thenReturn(newArrayList(testClasses.getAbsolutePath()));
+    assertjAssertionsGeneratorMojo.packages = array("org.assertj.maven.test");
+    assertjAssertionsGeneratorMojo.excludes = array(".*Employee");
+    assertjAssertionsGeneratorMojo.fork = true;
+    Log log = mock(Log.class);
+    when(log.isDebugEnabled()).thenReturn(true);
+    assertjAssertionsGeneratorMojo.setLog(log);
+    // WHEN
+    assertjAssertionsGeneratorMojo.execute();
+    // THEN
+    verify(log).debug("Won't generate assertions for org.assertj.maven.test.Employee as it matches exclude regex : .*Employee");
+  }
+
+  @Test
+  public void should_report_the_error_of_a_forked_generation() throws Exception {
+    // GIVEN
+    assertjAssertionsGeneratorMojo.packages = array("org.assertj.maven.test");
+    assertjAssertionsGeneratorMojo.fork = true;
+    // the target directory can't be created as it is a file
+    assertjAssertionsGeneratorMojo.targetDir = temporaryFolder.newFile("not-a-directory").getAbsolutePath();
+    assertjAssertionsGeneratorMojo.writeOnlyChangedFiles = true;
+    assertjAssertionsGeneratorMojo.writeReportInFile = temporaryFolder.newFile("report.txt").getPath();
+    File testClasses = new File(Player.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+    when(mavenProject.getCompileClasspathElements()).thenReturn(newArrayList(testClasses.getAbsolutePath()));
+    // WHEN
+    assertjAssertionsGeneratorMojo.execute();
+    // THEN
+    assertThat(contentOf(new File(assertjAssertionsGeneratorMojo.writeReportInFile))).contains("Assertions failed with error : ")
+                                                                                     .contains("java.nio.file.FileSystemException")
+                                                                                     .contains("at org.assertj.maven.generator.");
+  }
+
+  @Test
+  public void should_generate_entry_points_per_package() throws Exception {
+    // GIVEN
+    assertjAssertionsGeneratorMojo.packages = array("org.assertj.maven.test", "org.assertj.maven.test2");
+    assertjAssertionsGeneratorMojo.entryPointsPerPackage = true;
+    // WHEN
+    assertjAssertionsGeneratorMojo.execute();
+    // THEN
+    File addressAssertions = new File(assertionsFileFor(Address.class).getParentFile(), "Assertions.java");
+    File nameAssertions = new File(assertionsFileFor(Name.class).getParentFile(), "SoftAssertions.java");
+    assertThat(contentOf(assertionsEntryPointFile("Assertions.java"))).contains("EmployeeAssert assertThat(")
+                                                                       .doesNotContain("AddressAssert")
+                                                                       .doesNotContain("NameAssert");
+    assertThat(contentOf(addressAssertions)).startsWith("package org.assertj.maven.test2.adress;")
+                                            .contains("AddressAssert assertThat(")
+                                            .doesNotContain("EmployeeAssert");
+    assertThat(contentOf(nameAssertions)).startsWith("package org.assertj.maven.test.name;")
+                                         .contains("NameAssert assertThat(")
+                                         .doesNotContain("EmployeeAssert");
+  }
+
+  @Test
+  public void should_generate_entry_points_per_package_with_a_facade_for_all_classes() throws Exception {
+    // GIVEN
+    assertjAssertionsGeneratorMojo.packages = array("org.assertj.maven.test", "org.assertj.maven.test2");
+    AssertionsGenerator generator = new AssertionsGenerator(Thread.currentThread().getContextClassLoader());
+    generator.enableEntryPointClassesGenerationFor(STANDARD);
+    generator.setEntryPointsPerPackage(true);
+    generator.setEntryPointsFacade(true);
+    // WHEN
+    AssertionsGeneratorReport report = assertjAssertionsGeneratorMojo.executeWithAssertionGenerator(generator);
+    // THEN
+    File addressAssertions = new File(assertionsFileFor(Address.class).getParentFile(), "Assertions.java");
+    assertThat(contentOf(assertionsEntryPointFile("Assertions.java"))).contains("EmployeeAssert assertThat(",
+                                                                                "AddressAssert assertThat(",
+                                                                                "NameAssert assertThat(");
+    assertThat(contentOf(addressAssertions)).contains("AddressAssert assertThat(").doesNotContain("EmployeeAssert");
+    assertThat(report.getAssertionsEntryPointFilesByType().get(STANDARD)).isEqualTo(assertionsEntryPointFile("Assertions.java"));
+    assertThat(report.getPackageEntryPointFileNames()).contains(addressAssertions.getCanonicalPath())
+                                                      .doesNotContain(assertionsEntryPointFile("Assertions.java").getCanonicalPath());
+    assertThat(report.getReportContent()).contains("Package entry point classes generated:");
+  }
+
+  @Test
+  public void should_describe_members_of_shared_super_types_once() throws Exception {
+    // GIVEN
+    assertjAssertionsGeneratorMojo.packages = array("org.assertj.maven.test3");
+    assertjAssertionsGeneratorMojo.hierarchical = true;
+    // WHEN
+    AssertionsGenerator generator = new AssertionsGenerator(Thread.currentThread().getContextClassLoader());
+    AssertionsGeneratorReport report = assertjAssertionsGeneratorMojo.executeWithAssertionGenerator(generator);
+    // THEN
+    // wheels and brand getters and fields are described once, Car reuses the Vehicle ones
+    assertThat(report.getBuiltDescriptionsCount()).isEqualTo(4);
+    assertThat(report.getReusedDescriptionsCount()).isEqualTo(6);
+    assertThat(report.getReportContent()).contains("Getter and field descriptions cache:",
+                                                   "6 descriptions reused from shared super types",
+                                                   "60% hit rate");
+    assertThat(contentOf(abstractAssertionsFileFor(Car.class))).contains("hasBrand(String brand)");
+    assertThat(contentOf(abstractAssertionsFileFor(Vehicle.class))).contains("hasWheels(int wheels)");
+  }
+
+  @Test
+  public void should_fail_if_threads_parameter_is_not_valid() throws Exception {
+    assertjAssertionsGeneratorMojo.classes = array("org.assertj.maven.test.Employee");
+    assertjAssertionsGeneratorMojo.threads = "many";
+    try {
+      assertjAssertionsGeneratorMojo.execute();
+      failBecauseExceptionWasNotThrown(MojoFailureException.class);
+    } catch (MojoFailureException e) {
+      assertThat(e).hasMessage(shouldBeAValidThreadCount("many"));
+    }
+  }
+
+  @Test
+  public void should_not_load_classes_excluded_from_assertions_generation() throws Exception {
+    // GIVEN
+    assertjAssertionsGeneratorMojo.packages = array("org.assertj.maven.test");
+    URL testClasses = Player.class.getProtectionDomain().getCodeSource().getLocation();
+    try (RecordingClassLoader classLoader = new RecordingClassLoader(testClasses)) {
+      AssertionsGenerator generator = new AssertionsGenerator(classLoader);
+      generator.setLog(new NoLog());
+      generator.setExcludePatterns(array(".*Employee", ".*Service"));
+      // WHEN
+      AssertionsGeneratorReport report = assertjAssertionsGeneratorMojo.executeWithAssertionGenerator(generator);
+      // THEN
+      assertThat(assertionsFileFor(Player.class)).exists();
+      assertThat(assertionsFileFor(Employee.class)).doesNotExist();
+      assertThat(report.getReportContent()).contains(Employee.class.getName(), NameService.class.getName());
+      assertThat(classLoader.loadedClassNames).contains(Player.class.getName())
+                                              .doesNotContain(Employee.class.getName(), NameService.class.getName(),
+                                                              "org.assertj.maven.test.MyAssert");
+    }
+  }
+
+  @Test
+  public void should_reuse_jar_indexes_cached_by_previous_generation() throws Exception {
+    // GIVEN
+    assertjAssertionsGeneratorMojo.packages = array("org.assertj.maven.test");
+    File jarIndexCacheDirectory = temporaryFolder.newFolder("jar-index");
+    AssertionsGenerator generator = new AssertionsGenerator(Thread.currentThread().getContextClassLoader());
+    generator.setJarIndexCacheDirectory(jarIndexCacheDirectory);
+    AssertionsGeneratorReport firstReport = assertjAssertionsGeneratorMojo.executeWithAssertionGenerator(generator);
+    generator = new AssertionsGenerator(Thread.currentThread().getContextClassLoader());
+    generator.setJarIndexCacheDirectory(jarIndexCacheDirectory);
+    // WHEN
+    AssertionsGeneratorReport report = assertjAssertionsGeneratorMojo.executeWithAssertionGenerator(generator);
+    // THEN
+    assertThat(firstReport.getBuiltJarIndexesCount()).isPositive();
+    assertThat(firstReport.getReusedJarIndexesCount()).isZero();
+    assertThat(report.getBuiltJarIndexesCount()).isZero();
+    assertThat(report.getReusedJarIndexesCount()).isEqualTo(firstReport.getBuiltJarIndexesCount());
+    assertThat(report.getReportContent()).contains(report.getReusedJarIndexesCount() + " jar indexes reused");
+    assertThat(report.getGeneratedCustomAssertionFileNames()).isEqualTo(firstReport.getGeneratedCustomAssertionFileNames());
+    assertThat(assertionsFileFor(Player.class)).exists();
+  }
+
+  @Test
+  public void should_write_json_and_open_metrics_reports() throws Exception {
+    // GIVEN
+    assertjAssertionsGeneratorMojo.packages = array("org.assertj.maven.test");
+    assertjAssertionsGeneratorMojo.excludes = array(".*Employee");
+    assertjAssertionsGeneratorMojo.writeJsonReportInFile = new File(temporaryFolder.getRoot(), "reports/report.json").getPath();
+    assertjAssertionsGeneratorMojo.writeOpenMetricsReportInFile = temporaryFolder.newFile("report.prom").getPath();
+    // WHEN
+    assertjAssertionsGeneratorMojo.execute();
+    // THEN
+    String jsonReport = contentOf(new File(assertjAssertionsGeneratorMojo.writeJsonReportInFile));
+    assertThat(jsonReport).startsWith("{\"status\":\"success\",")
+                          .contains("\"inputPackages\":[\"org.assertj.maven.test\"]",
+                                    "\"excludedClasses\":[\"org.assertj.maven.test.Employee\",", // MyAssert and MyAssertions are excluded too
+                                    "\"CLASS_COLLECTION\":{\"wallTimeNanos\":",
+                                    "\"peakHeapUsedBytes\":",
+                                    "\"written\":", assertionsFileFor(Player.class).getName());
+    String openMetricsReport = contentOf(new File(assertjAssertionsGeneratorMojo.writeOpenMetricsReportInFile));
+    assertThat(openMetricsReport).contains("# TYPE assertj_generator_classes gauge",
+                                           "assertj_generator_success 1",
+                                           "assertj_generator_classes{state=\"excluded\"} 3",
+                                           "assertj_generator_phase_wall_time_seconds{phase=\"rendering\"}",
+                                           "assertj_generator_peak_heap_used_bytes ")
+                                 .endsWith("# EOF\n");
+  }
+
+  @Test
+  public void should_report_phase_timings_and_slowest_classes() throws Exception {
+    // GIVEN
+    assertjAssertionsGeneratorMojo.packages = array("org.assertj.maven.test");
+    AssertionsGenerator generator = new AssertionsGenerator(Thread.currentThread().getContextClassLoader());
+    generator.addPhaseTime(CLASS_LOADER_BUILD, 2000000, 1000000);
+    // WHEN
+    AssertionsGeneratorReport report = assertjAssertionsGeneratorMojo.executeWithAssertionGenerator(generator);
+    // THEN
+    assertThat(report.getPhaseTimes()).containsKeys(CLASS_LOADER_BUILD, CLASS_COLLECTION, DESCRIPTION_CONVERSION,
+                                                    RENDERING, ENTRY_POINT_GENERATION);
+    assertThat(report.getPhaseTimes().get(CLASS_LOADER_BUILD).getWallTimeNanos()).isEqualTo(2000000);
+    assertThat(report.getSlowestClasses()).isNotEmpty();
+    assertThat(report.getReportContent()).contains("--- " + TIMINGS_SECTION_TITLE + " ---",
+                                                   "- class loader build : 2 ms / 1 ms",
+                                                   "Slowest classes to generate assertions for:",
+                                                   report.getSlowestClasses().get(0).getClassName());
+  }
+
+  @Test
+  public void executions_of_the_same_session_should_share_dependencies_class_loaders() throws Exception {
+    // GIVEN
+    String moduleClasses = temporaryFolder.newFolder("module-classes").getAbsolutePath();
+    String junit = temporaryFolder.newFile("junit.jar").getAbsolutePath();
+    String guava = temporaryFolder.newFile("guava.jar").getAbsolutePath();
+    String commonsIo = temporaryFolder.newFile("commons-io.jar").getAbsolutePath();
+    Object session = new Object();
+    assertjAssertionsGeneratorMojo.session = session;
+    when(mavenProject.getCompileClasspathElements()).thenReturn(newArrayList(moduleClasses, junit, guava));
+    AssertJAssertionsGeneratorMojo otherModuleMojo = new AssertJAssertionsGeneratorMojo();
+    otherModuleMojo.project = mock(MavenProject.class);
+    otherModuleMojo.session = session;
+    when(otherModuleMojo.project.getCompileClasspathElements()).thenReturn(newArrayList(junit, guava, commonsIo));
+    // WHEN
+    ClassLoader classLoader = assertjAssertionsGeneratorMojo.getProjectClassLoader();
+    ClassLoader sameModuleClassLoader = assertjAssertionsGeneratorMojo.getProjectClassLoader();
+    ClassLoader otherModuleClassLoader = otherModuleMojo.getProjectClassLoader();
+    assertjAssertionsGeneratorMojo.session = new Object();
+    ClassLoader otherSessionClassLoader = assertjAssertionsGeneratorMojo.getProjectClassLoader();
+    // THEN
+    assertThat(sameModuleClassLoader).isNotSameAs(classLoader);
+    assertThat(sameModuleClassLoader.getParent()).isSameAs(classLoader.getParent());
+    // other module dependencies start with the first module ones : only commons-io is added
+    assertThat(otherModuleClassLoader.getParent().getParent()).isSameAs(classLoader.getParent());
+    assertThat(((URLClassLoader) otherModuleClassLoader.getParent()).getURLs()).containsExactly(new File(commonsIo).toURI().toURL());
+    assertThat(otherSessionClassLoader.getParent()).isNotSameAs(classLoader.getParent());
+  }
+
+  @Test
+  public void should_generate_assertions_with_session_class_loaders() throws Exception {
+    // GIVEN
+    assertjAssertionsGeneratorMojo.session = new Object();
+    assertjAssertionsGeneratorMojo.classes = array("org.assertj.maven.test.Employee");
+    assertjAssertionsGeneratorMojo.packages = array("org.assertj.maven.test2");
+    File testClasses = new File(Player.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+    when(mavenProject.getCompileClasspathElements()).thenReturn(newArrayList(testClasses.getAbsolutePath()));
+    // WHEN
+    assertjAssertionsGeneratorMojo.execute();
+    // THEN
+    assertThat(assertionsFileFor(Employee.class)).exists();
+    assertThat(assertionsFileFor(Address.class)).exists();
+  }
+
+  @Test
+  public void should_generate_assertions_again_when_watched_classes_change() throws Exception {
+    // GIVEN
+    File testClasses = new File(Player.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+    File watchedClasses = temporaryFolder.newFolder("classes");
+    FileUtils.copyDirectory(new File(testClasses, "org/assertj/maven/test"),
+                            new File(watchedClasses, "org/assertj/maven/test"));
+    FileUtils.copyDirectory(new File(testClasses, "org/assertj/maven/test2"),
+                            new File(watchedClasses, "org/assertj/maven/test2"));
+    File playerClassFile = new File(watchedClasses, "org/assertj/maven/test/Player.class");
+    final File compiledPlayerClassFile = temporaryFolder.newFile("Player.class");
+    FileUtils.copyFile(playerClassFile, compiledPlayerClassFile);
+    assertThat(playerClassFile.delete()).isTrue();
+    final AssertJAssertionsWatchMojo watchMojo = new AssertJAssertionsWatchMojo();
+    watchMojo.project = mavenProject;
+    watchMojo.targetDir = temporaryFolder.newFolder("assertions").getAbsolutePath();
+    watchMojo.packages = array("org.assertj.maven.test");
+    watchMojo.pruneStaleFiles = true;
+    watchMojo.stateDirectory = temporaryFolder.newFolder("state").getPath();
+    watchMojo.debounceMillis = 100;
+    watchMojo.quiet = true;
+    when(mavenProject.getCompileClasspathElements()).thenReturn(newArrayList(watchedClasses.getAbsolutePath()));
+    restoreContextClassLoader = Thread.currentThread().getContextClassLoader();
+    Thread.currentThread().setContextClassLoader(new TestClassesHidingClassLoader(restoreContextClassLoader));
+    final List<Exception> watchErrors = Collections.synchronizedList(new ArrayList<Exception>());
+    Thread watchThread = new Thread() {
+      @Override
+      public void run() {
+        try {
+          watchMojo.execute();
+        } catch (Exception e) {
+          watchErrors.add(e);
+        }
+      }
+    };
+    File employeeAssertFile = new File(watchMojo.targetDir, basePathName("", Employee.class) + "Assert.java");
+    File playerAssertFile = new File(watchMojo.targetDir, basePathName("", Player.class) + "Assert.java");
+    File assertionsEntryPointFile = new File(watchMojo.targetDir, "org/assertj/maven/test/Assertions.java");
+    try {
+      watchThread.start();
+      awaitUntil(employeeAssertFile, true);
+      assertThat(playerAssertFile).doesNotExist();
+      // WHEN
+      FileUtils.copyFile(compiledPlayerClassFile, playerClassFile);
+      // entry points are generated after the classes assertions
+      awaitUntilContains(assertionsEntryPointFile, "PlayerAssert");
+      assertThat(playerAssertFile).exists();
+      assertThat(playerClassFile.delete()).isTrue();
+      awaitUntil(playerAssertFile, false);
+    } finally {
+      watchMojo.stopWatching();
+      watchThread.join(10000);
+    }
+    // THEN
+    assertThat(watchThread.isAlive()).isFalse();
+    assertThat(watchErrors).isEmpty();
+    assertThat(employeeAssertFile).exists();
+    assertThat(contentOf(assertionsEntryPointFile)).doesNotContain("PlayerAssert");
+  }
+
+  @Test
+  public void should_generate_the_same_assertions_when_executions_of_different_modules_run_concurrently() throws Exception {
+    // GIVEN
+    Object session = new Object();
+    File jarIndexCacheDirectory = temporaryFolder.newFolder("jar-index");
+    AssertJAssertionsGeneratorMojo referenceMojo = moduleMojo("reference", new Object(), jarIndexCacheDirectory);
+    referenceMojo.execute();
+    int executionsCount = 8;
+    List<AssertJAssertionsGeneratorMojo> moduleMojos = new ArrayList<>();
+    for (int i = 0; i < executionsCount; i++) {
+      moduleMojos.add(moduleMojo("module-" + i, session, jarIndexCacheDirectory));
+    }
+    final CyclicBarrier allExecutionsReady = new CyclicBarrier(executionsCount);
+    ExecutorService executor = Executors.newFixedThreadPool(executionsCount);
+    List<Future<Void>> executions = new ArrayList<>();
+    // WHEN
+    try {
+      for (final AssertJAssertionsGeneratorMojo moduleMojo : moduleMojos) {
+        executions.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws Exception {
+            allExecutionsReady.await();
+            moduleMojo.execute();
+            return null;
+          }
+        }));
+      }
+      for (Future<Void> execution : executions) {
+        execution.get(60, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    // THEN
+    for (AssertJAssertionsGeneratorMojo moduleMojo : moduleMojos) {
+      assertHaveSameFiles(new File(moduleMojo.targetDir), new File(referenceMojo.targetDir));
+      assertThat(contentOf(new File(moduleMojo.writeReportInFile))).contains("my_has_assertion_template.txt")
+                                                                   .doesNotContain("Exception");
+      assertThat(moduleMojo.classes).isNull();
+      assertThat(moduleMojo.templates.templatesDirectory).isEqualTo("src/test/resources/templates");
+    }
+  }
+
+  @Test
+  public void should_close_project_class_loader_after_generation() throws Exception {
+    // GIVEN
+    final List<ClassLoader> projectClassLoaders = new ArrayList<>();
+    AssertJAssertionsGeneratorMojo mojo = new AssertJAssertionsGeneratorMojo() {
+      @Override
+      ClassLoader getProjectClassLoader() throws DependencyResolutionRequiredException, MalformedURLException {
+        ClassLoader projectClassLoader = super.getProjectClassLoader();
+        projectClassLoaders.add(projectClassLoader);
+        return projectClassLoader;
+      }
+    };
+    configureToLoadTestClassesItself(mojo);
+    // WHEN
+    mojo.execute();
+    // THEN
+    assertThat(assertionsFileFor(Employee.class)).exists();
+    assertThat(((URLClassLoader) projectClassLoaders.get(0)).findResource("org/assertj/maven/test/Employee.class")).isNull();
+  }
+
+  @Test
+  public void project_class_loaders_should_be_garbage_collectable_after_repeated_executions() throws Exception {
+    // GIVEN
+    final List<WeakReference<ClassLoader>> projectClassLoaders = new ArrayList<>();
+    AssertJAssertionsGeneratorMojo mojo = new AssertJAssertionsGeneratorMojo() {
+      @Override
+      ClassLoader getProjectClassLoader() throws DependencyResolutionRequiredException, MalformedURLException {
+        ClassLoader projectClassLoader = super.getProjectClassLoader();
+        projectClassLoaders.add(new WeakReference<>(projectClassLoader));
+        return projectClassLoader;
+      }
+    };
+    configureToLoadTestClassesItself(mojo);
+    // WHEN
+    for (int i = 0; i < 100; i++) {
+      mojo.execute();
+    }
+    // THEN
+    assertThat(projectClassLoaders).hasSize(100);
+    for (int i = 0; i < 10 && !allCleared(projectClassLoaders); i++) {
+      System.gc();
+      Thread.sleep(100);
+    }
+    assertThat(allCleared(projectClassLoaders)).as("all project class loaders were garbage collected").isTrue();
+  }
+
+  /**
+   * Makes the project class loader load the test classes itself instead of delegating to its parent.
+   */
+  private void configureToLoadTestClassesItself(final AssertJAssertionsGeneratorMojo mojo) throws Exception {
+    mojo.project = mavenProject;
+    mojo.targetDir = temporaryFolder.getRoot().getAbsolutePath();
+    mojo.classes = array("org.assertj.maven.test.Employee");
+    mojo.quiet = true;
+    File testClasses = new File(Player.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+    when(mavenProject.getCompileClasspathElements()).thenReturn(newArrayList(testClasses.getAbsolutePath()));
+    restoreContextClassLoader = Thread.currentThread().getContextClassLoader();
+    Thread.currentThread().setContextClassLoader(new TestClassesHidingClassLoader(restoreContextClassLoader));
+  }
+
+  private static boolean allCleared(List<WeakReference<ClassLoader>> classLoaderReferences) {
+    for (WeakReference<ClassLoader> classLoaderReference : classLoaderReferences) {
+      if (classLoaderReference.get() != null) return false;
+    }
+    return true;
+  }
+
+  /**
+   * The execution of the plugin in a module of its own, sharing only the maven session and the jar index cache.
+   */
+  private AssertJAssertionsGeneratorMojo moduleMojo(String module, Object session,
+                                                    File jarIndexCacheDirectory) throws Exception {
+    File testClasses = new File(Player.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+    File assertjCore = new File(Assertions.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+    MavenProject moduleProject = mock(MavenProject.class);
+    when(moduleProject.getCompileClasspathElements()).thenReturn(newArrayList(testClasses.getAbsolutePath(),
+                                                                              assertjCore.getAbsolutePath()));
+    AssertJAssertionsGeneratorMojo moduleMojo = new AssertJAssertionsGeneratorMojo();
+    moduleMojo.project = moduleProject;
+    moduleMojo.session = session;
+    moduleMojo.targetDir = temporaryFolder.newFolder(module).getAbsolutePath();
+    moduleMojo.packages = array("org.assertj.maven.test", "org.assertj.maven.test2");
+    moduleMojo.hierarchical = true;
+    moduleMojo.threads = "2";
+    moduleMojo.writeOnlyChangedFiles = true;
+    moduleMojo.incremental = true;
+    moduleMojo.stateDirectory = temporaryFolder.newFolder(module + "-state").getPath();
+    moduleMojo.jarIndexCacheDirectory = jarIndexCacheDirectory.getPath();
+    moduleMojo.writeReportInFile = temporaryFolder.newFile(module + "-report.txt").getPath();
+    moduleMojo.templates = new Templates();
+    // without trailing slash to check it is not added to the parameter
+    moduleMojo.templates.templatesDirectory = "src/test/resources/templates";
+    moduleMojo.templates.objectAssertion = "my_has_assertion_template.txt";
+    moduleMojo.templates.assertionsEntryPointClass = "my_standard_assertions_entry_point_class_template.txt";
+    return moduleMojo;
+  }
+
+  /**
+   * Generates the assertions of the given mojo in a new directory without incremental generation, only changed files
+   * written nor up to date check, returns the directory.
+   */
+  private File cleanBuildOf(AssertJAssertionsGeneratorMojo mojo) throws Exception {
+    AssertJAssertionsGeneratorMojo cleanBuildMojo = new AssertJAssertionsGeneratorMojo();
+    cleanBuildMojo.project = mavenProject;
+    cleanBuildMojo.packages = mojo.packages;
+    cleanBuildMojo.excludes = mojo.excludes;
+    cleanBuildMojo.hierarchical = mojo.hierarchical;
+    cleanBuildMojo.templates = mojo.templates;
+    cleanBuildMojo.targetDir = temporaryFolder.newFolder().getAbsolutePath();
+    cleanBuildMojo.execute();
+    return new File(cleanBuildMojo.targetDir);
+  }
+
+  /**
+   * Compiles the given source of the given class in the given directory, to change classes between generations.
+   */
+  private void compile(File classesDirectory, String className, String source) throws IOException {
+    File sourceFile = new File(temporaryFolder.newFolder(), className.replace('.', '/') + ".java");
+    FileUtils.write(sourceFile, source, UTF_8);
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    int exitCode = compiler.run(null, null, null, "-nowarn", "-cp", classesDirectory.getPath(), "-d",
+                                classesDirectory.getPath(), sourceFile.getPath());
+    assertThat(exitCode).as("compilation of %s", className).isZero();
+  }
+
+  /**
+   * Sets the parameters as maven does when they are not configured, when their default value is not the field one.
+   */
+  private static void useMavenDefaults(AssertJAssertionsGeneratorMojo mojo, File buildDirectory) {
+    mojo.targetDir = new File(buildDirectory, "generated-test-sources/assertj-assertions").getAbsolutePath();
+    mojo.generatedSourcesScope = "test";
+    mojo.hierarchical = true;
+    mojo.incremental = true;
+    mojo.writeOnlyChangedFiles = true;
+    mojo.threads = "1";
+    mojo.stateDirectory = new File(buildDirectory, "assertj-assertions-generator").getPath();
+    mojo.jarIndexCacheDirectory = new File(buildDirectory, "jar-index").getPath();
+  }
+
+  private static void awaitUntil(File file, boolean exists) throws InterruptedException {
+    long timeout = System.currentTimeMillis() + 20000;
+    while (file.exists() != exists && System.currentTimeMillis() < timeout) {
+      Thread.sleep(50);
+    }
+    assertThat(file.exists()).as("%s exists", file).isEqualTo(exists);
+  }
+
+  private static void awaitUntilContains(File file, String text) throws InterruptedException {
+    long timeout = System.currentTimeMillis() + 20000;
+    while (!(file.exists() && contentOf(file).contains(text)) && System.currentTimeMillis() < timeout) {
+      Thread.sleep(50);
+    }
+    assertThat(contentOf(file)).contains(text);
+  }
+
+  private static File workerFileIn(File workerDirectory) {
+    File[] workerFiles = workerDirectory.listFiles(new FilenameFilter() {
+      @Override
+      public boolean accept(File directory, String name) {
+        return name.endsWith(".properties");
+      }
+    });
+    assertThat(workerFiles).hasSize(1);
+    return workerFiles[0];
+  }
+
+  private static Map<String, String> contentsOf(File directory) {
+    Map<String, String> contents = new TreeMap<>();
+    for (File file : directory.listFiles()) {
+      contents.put(file.getName(), contentOf(file));
+    }
+    return contents;
+  }
+
+  private static void assertHaveSameFiles(File actualDir, File expectedDir) {
+    Collection<File> expectedFiles = listFiles(expectedDir, null, true);
+    assertThat(listFiles(actualDir, null, true)).hasSameSizeAs(expectedFiles);
+    for (File expectedFile : expectedFiles) {
+      String relativePath = expectedDir.toURI().relativize(expectedFile.toURI()).getPath();
+      assertThat(new File(actualDir, relativePath)).hasSameContentAs(expectedFile);
+    }
+  }
+
+  private static AssertionsGenerator incrementalGenerator(File stateFile) throws IOException {
+    AssertionsGenerator generator = new AssertionsGenerator(Thread.currentThread().getContextClassLoader());
+    generator.setLog(new NoLog());
+    generator.enableEntryPointClassesGenerationFor(STANDARD);
+    generator.setIncrementalStateFile(stateFile);
+    return generator;
+  }
+
   private File assertionsFileFor(Class<?> clazz) {
     return new File(temporaryFolder.getRoot(), basePathName(clazz) + "Assert.java");
   }
@@ -546,4 +1814,52 @@ public class AssertJAssertionsGeneratorMojoTest {
     return new File(temporaryFolder.getRoot(), "my.custom.pkg".replace('.', File.separatorChar) + File.separator
                                                + "Assertions.java");
   }
+
+  /**
+   * Loads the test classes itself (not from its parent) to record which ones are loaded.
+   */
+  private static class RecordingClassLoader extends URLClassLoader {
+    private final List<String> loadedClassNames = new ArrayList<>();
+
+    RecordingClassLoader(URL classesLocation) {
+      super(new URL[] { classesLocation }, ClassLoader.getSystemClassLoader().getParent());
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+      loadedClassNames.add(name);
+      return super.loadClass(name, resolve);
+    }
+  }
+
+  /**
+   * Hides the test domain classes so that the project class loader has to load them itself.
+   */
+  private static class TestClassesHidingClassLoader extends ClassLoader {
+    private static final String HIDDEN_PACKAGE = "org.assertj.maven.test";
+
+    TestClassesHidingClassLoader(ClassLoader parent) {
+      super(parent);
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+      if (name.startsWith(HIDDEN_PACKAGE)) throw new ClassNotFoundException(name);
+      return super.loadClass(name, resolve);
+    }
+
+    @Override
+    public URL getResource(String name) {
+      return isHidden(name) ? null : super.getResource(name);
+    }
+
+    @Override
+    public Enumeration<URL> getResources(String name) throws IOException {
+      return isHidden(name) ? Collections.<URL> emptyEnumeration() : super.getResources(name);
+    }
+
+    private static boolean isHidden(String resourceName) {
+      return resourceName.replace('/', '.').startsWith(HIDDEN_PACKAGE);
+    }
+  }
 }
@@ -0,0 +1,64 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * Copyright 2012-2017 the original author or authors.
+ */
+package org.assertj.maven;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import org.apache.maven.plugin.logging.Log;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class LogWriterTest {
+
+  private Log log = mock(Log.class);
+
+  @Test
+  public void should_log_a_small_text_as_a_single_message() throws Exception {
+    // GIVEN
+    String text = "\nreport\n- file\n";
+    // WHEN
+    try (LogWriter logWriter = new LogWriter(log)) {
+      logWriter.write(text);
+    }
+    // THEN
+    verify(log).info(text);
+  }
+
+  @Test
+  public void should_log_a_large_text_in_chunks_of_whole_lines() throws Exception {
+    // GIVEN
+    StringBuilder text = new StringBuilder();
+    // WHEN
+    try (LogWriter logWriter = new LogWriter(log)) {
+      for (int i = 0; i < 10000; i++) {
+        String line = "- /some/directory/File" + i + "Assert.java\n";
+        logWriter.write(line);
+        text.append(line);
+      }
+    }
+    // THEN
+    ArgumentCaptor<CharSequence> messages = ArgumentCaptor.forClass(CharSequence.class);
+    verify(log, atLeast(2)).info(messages.capture());
+    StringBuilder loggedText = new StringBuilder();
+    for (CharSequence message : messages.getAllValues()) {
+      // the log ends each message with a line end
+      if (loggedText.length() > 0) loggedText.append('\n');
+      assertThat(message.toString()).startsWith("- /some/directory/File");
+      loggedText.append(message);
+    }
+    assertThat(loggedText.toString()).isEqualTo(text.toString());
+  }
+}
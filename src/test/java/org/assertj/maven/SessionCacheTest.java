@@ -0,0 +1,107 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * Copyright 2012-2017 the original author or authors.
+ */
+package org.assertj.maven;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SessionCacheTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final ClassLoader parent = getClass().getClassLoader();
+  private final SessionCache sessionCache = new SessionCache();
+
+  @After
+  public void tearDown() {
+    sessionCache.close();
+  }
+
+  @Test
+  public void should_reuse_the_class_loader_of_the_dependencies_of_a_previous_module_its_dependencies_start_with() throws Exception {
+    // GIVEN
+    ClassLoader previousModuleClassLoader = sessionCache.dependenciesClassLoader(jars("a", "b"), parent);
+    // WHEN
+    ClassLoader classLoader = sessionCache.dependenciesClassLoader(jars("a", "b", "c"), parent);
+    // THEN
+    assertThat(classLoader.getParent()).isSameAs(previousModuleClassLoader);
+    assertThat(((URLClassLoader) classLoader).getURLs()).containsExactly(jar("c"));
+  }
+
+  @Test
+  public void should_share_a_class_loader_of_the_dependencies_modules_start_with() throws Exception {
+    // GIVEN
+    sessionCache.dependenciesClassLoader(jars("a", "b", "c"), parent);
+    ClassLoader secondModuleClassLoader = sessionCache.dependenciesClassLoader(jars("a", "b", "d"), parent);
+    // WHEN
+    ClassLoader thirdModuleClassLoader = sessionCache.dependenciesClassLoader(jars("a", "b", "e"), parent);
+    // THEN
+    ClassLoader sharedClassLoader = secondModuleClassLoader.getParent();
+    assertThat(((URLClassLoader) sharedClassLoader).getURLs()).containsExactly(jar("a"), jar("b"));
+    assertThat(sharedClassLoader.getParent()).isSameAs(parent);
+    assertThat(((URLClassLoader) secondModuleClassLoader).getURLs()).containsExactly(jar("d"));
+    assertThat(thirdModuleClassLoader.getParent()).isSameAs(sharedClassLoader);
+    assertThat(((URLClassLoader) thirdModuleClassLoader).getURLs()).containsExactly(jar("e"));
+  }
+
+  @Test
+  public void should_keep_the_cache_of_a_session_while_other_sessions_start() {
+    // GIVEN
+    Object session = new Object();
+    SessionCache cache = SessionCache.of(session);
+    // WHEN
+    SessionCache otherSessionCache = SessionCache.of(new Object());
+    // THEN
+    assertThat(SessionCache.of(session)).isSameAs(cache).isNotSameAs(otherSessionCache);
+    assertThat(cache.isClosed()).isFalse();
+  }
+
+  @Test
+  public void should_release_the_cache_of_a_session_once_it_has_ended() throws Exception {
+    // GIVEN
+    SessionCache cache = SessionCache.of(new Object());
+    cache.dependenciesClassLoader(jars("a"), parent);
+    // WHEN the session is garbage collected
+    long timeout = System.currentTimeMillis() + 10000;
+    while (!cache.isClosed() && System.currentTimeMillis() < timeout) {
+      System.gc();
+      Thread.sleep(50);
+    }
+    // THEN
+    assertThat(cache.isClosed()).isTrue();
+  }
+
+  private List<URL> jars(String... names) throws MalformedURLException {
+    List<URL> jars = new ArrayList<>();
+    for (String name : names) {
+      jars.add(jar(name));
+    }
+    return jars;
+  }
+
+  private URL jar(String name) throws MalformedURLException {
+    return new File(temporaryFolder.getRoot(), name + ".jar").toURI().toURL();
+  }
+}
@@ -12,18 +12,25 @@
  */
 package org.assertj.maven;
 
+import static org.apache.commons.io.FileUtils.write;
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 
 import org.assertj.assertions.generator.Template;
 import org.assertj.maven.generator.AssertionsGeneratorReport;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 public class TemplatesTest {
 
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
   private AssertionsGeneratorReport report;
   private Templates templates;
 
@@ -58,4 +65,23 @@ public class TemplatesTest {
     assertThat(list).isEmpty();
     assertThat(report.getUserTemplates()).containsOnly("Use default my has template assertion template as we failed to to read user template from target/test-classes/templates/unknown");
   }
+
+  @Test
+  public void should_reuse_user_template_until_its_file_changes() throws Exception {
+    // GIVEN
+    File templateFile = temporaryFolder.newFile("has_assertion_template.txt");
+    write(templateFile, "public S has${Property}() {}", "UTF-8");
+    templates.templatesDirectory = temporaryFolder.getRoot().getAbsolutePath() + "/";
+    List<Template> list = new ArrayList<>();
+    // WHEN
+    templates.loadUserTemplate(templateFile.getName(), Template.Type.HAS, "has template", list, report);
+    templates.loadUserTemplate(templateFile.getName(), Template.Type.HAS, "has template", list, report);
+    write(templateFile, "public S hasChanged${Property}() {}", "UTF-8");
+    assertThat(templateFile.setLastModified(templateFile.lastModified() + 2000)).isTrue();
+    templates.loadUserTemplate(templateFile.getName(), Template.Type.HAS, "has template", list, report);
+    // THEN
+    assertThat(list).hasSize(3);
+    assertThat(list.get(1)).isSameAs(list.get(0));
+    assertThat(list.get(2).getContent()).isEqualTo("public S hasChanged${Property}() {}");
+  }
 }
@@ -0,0 +1,100 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * Copyright 2012-2017 the original author or authors.
+ */
+package org.assertj.maven.generator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.assertj.assertions.generator.BaseAssertionGenerator;
+import org.assertj.assertions.generator.description.ClassDescription;
+import org.assertj.assertions.generator.description.converter.ClassToClassDescriptionConverter;
+import org.assertj.maven.test.All;
+import org.assertj.maven.test.Employee;
+import org.assertj.maven.test.Player;
+import org.assertj.maven.test3.vehicle.Car;
+import org.assertj.maven.test3.vehicle.Vehicle;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.reflect.TypeToken;
+
+public class CachingClassDescriptionConverterTest {
+
+  private CachingClassDescriptionConverter cachingConverter;
+  private ClassToClassDescriptionConverter converter;
+  private BaseAssertionGenerator generator;
+
+  @Before
+  public void setUp() throws Exception {
+    cachingConverter = new CachingClassDescriptionConverter();
+    converter = new ClassToClassDescriptionConverter();
+    generator = new BaseAssertionGenerator();
+  }
+
+  @Test
+  public void should_generate_the_same_assertions_as_the_generator_converter() {
+    for (Class<?> clazz : new Class<?>[] { Vehicle.class, Car.class, Employee.class, Player.class, All.class,
+        Box.class, StringBox.class, IntegerBox.class }) {
+      ClassDescription cachedDescription = cachingConverter.convertToClassDescription(TypeToken.of(clazz));
+      ClassDescription description = converter.convertToClassDescription(TypeToken.of(clazz));
+      assertThat(generator.generateCustomAssertionContentFor(cachedDescription))
+          .as(clazz.getName()).isEqualTo(generator.generateCustomAssertionContentFor(description));
+      Set<TypeToken<?>> superType = Collections.<TypeToken<?>> singleton(TypeToken.of(clazz.getSuperclass()));
+      assertThat(generator.generateHierarchicalCustomAssertionContentFor(cachedDescription, superType))
+          .as(clazz.getName()).isEqualTo(generator.generateHierarchicalCustomAssertionContentFor(description, superType));
+    }
+  }
+
+  @Test
+  public void should_reuse_descriptions_of_super_class_members_resolved_the_same_way() {
+    // GIVEN
+    cachingConverter.convertToClassDescription(TypeToken.of(Vehicle.class));
+    int builtDescriptionsCount = cachingConverter.getBuiltDescriptionsCount();
+    // WHEN
+    cachingConverter.convertToClassDescription(TypeToken.of(Car.class));
+    // THEN
+    // only brand getter and field are new
+    assertThat(cachingConverter.getBuiltDescriptionsCount() - builtDescriptionsCount).isEqualTo(2);
+  }
+
+  @Test
+  public void should_not_reuse_descriptions_of_generic_super_class_members_resolved_differently() {
+    // GIVEN
+    ClassDescription stringBox = cachingConverter.convertToClassDescription(TypeToken.of(StringBox.class));
+    int builtDescriptionsCount = cachingConverter.getBuiltDescriptionsCount();
+    // WHEN
+    ClassDescription integerBox = cachingConverter.convertToClassDescription(TypeToken.of(IntegerBox.class));
+    // THEN
+    // values getter and field are described again as they are lists of integers instead of strings
+    assertThat(cachingConverter.getBuiltDescriptionsCount() - builtDescriptionsCount).isEqualTo(2);
+    assertThat(generator.generateCustomAssertionContentFor(stringBox)).contains("hasValues(String... values)");
+    assertThat(generator.generateCustomAssertionContentFor(integerBox)).contains("hasValues(Integer... values)");
+  }
+
+  public static class Box<T> {
+    public List<T> values;
+
+    public List<T> getValues() {
+      return values;
+    }
+  }
+
+  public static class StringBox extends Box<String> {
+  }
+
+  public static class IntegerBox extends Box<Integer> {
+  }
+}